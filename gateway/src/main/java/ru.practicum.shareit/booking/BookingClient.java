@@ -6,12 +6,17 @@ import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
 import ru.practicum.shareit.client.BaseClient;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -19,6 +24,8 @@ public class BookingClient extends BaseClient {
 
     private static final String API_PREFIX = "/bookings";
 
+    private final URI bookingEventsUri;
+
     @Autowired
     public BookingClient(@Value("${shareit-server.url}") String serverUrl, RestTemplateBuilder builder) {
         super(builder
@@ -26,10 +33,12 @@ public class BookingClient extends BaseClient {
                 .requestFactory(HttpComponentsClientHttpRequestFactory::new)
                 .build()
         );
+        this.bookingEventsUri = URI.create(serverUrl + API_PREFIX + "/owner/events");
     }
 
-    public ResponseEntity<Object> createBooking(long userId, BookItemRequestDto requestDto) {
-        return post("", userId, requestDto);
+    public ResponseEntity<Object> createBooking(long userId, String idempotencyKey, boolean hold,
+                                                BookItemRequestDto requestDto) {
+        return postIdempotent(hold ? "?hold=true" : "", userId, idempotencyKey, requestDto);
     }
 
     public ResponseEntity<Object> updateBookingStatus(Long userId, Boolean approved, Long bookingId) {
@@ -44,11 +53,16 @@ public class BookingClient extends BaseClient {
         return patch("/" + bookingId + sb, userId, parameters, null);
     }
 
+    public ResponseEntity<Object> updateBookingStatuses(Long userId, List<BookingStatusUpdateDto> updates) {
+        return patch("/batch", userId, null, updates);
+    }
+
     public ResponseEntity<Object> getBooking(Long userId, Long bookingId) {
         return get("/" + bookingId, userId);
     }
 
-    public ResponseEntity<Object> getAllBookingsByUserId(Long userId, BookingState state, Integer from, Integer size) {
+    public ResponseEntity<Object> getAllBookingsByUserId(Long userId, BookingState state, Integer from, String cursor,
+                                                         Integer size) {
         StringBuilder sb = new StringBuilder();
         Map<String, Object> parameters = new HashMap<>();
 
@@ -57,7 +71,10 @@ public class BookingClient extends BaseClient {
             sb.append("state={state}&");
         }
 
-        if (from != null) {
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+            sb.append("cursor={cursor}&");
+        } else if (from != null) {
             parameters.put("from", from);
             sb.append("from={from}&");
         }
@@ -70,7 +87,8 @@ public class BookingClient extends BaseClient {
         return get("?" + sb, userId, parameters);
     }
 
-    public ResponseEntity<Object> getBookingForUserItems(Long userId, BookingState state, Integer from, Integer size) {
+    public ResponseEntity<Object> getBookingForUserItems(Long userId, BookingState state, Integer from, String cursor,
+                                                         Integer size) {
         StringBuilder sb = new StringBuilder();
         Map<String, Object> parameters = new HashMap<>();
 
@@ -79,7 +97,10 @@ public class BookingClient extends BaseClient {
             sb.append("state={state}&");
         }
 
-        if (from != null) {
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+            sb.append("cursor={cursor}&");
+        } else if (from != null) {
             parameters.put("from", from);
             sb.append("from={from}&");
         }
@@ -91,4 +112,9 @@ public class BookingClient extends BaseClient {
 
         return get("/owner?" + sb, userId, parameters);
     }
-}
\ No newline at end of file
+
+    public ResponseEntity<ResponseBodyEmitter> subscribeToBookingEvents(Long userId)
+            throws IOException, InterruptedException {
+        return relayEvents(bookingEventsUri, userId);
+    }
+}
@@ -14,12 +14,18 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 import ru.practicum.shareit.booking.dto.BookItemRequestDto;
 import ru.practicum.shareit.booking.dto.BookingState;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
 
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
 import javax.validation.constraints.Positive;
 import javax.validation.constraints.PositiveOrZero;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.util.List;
 
 @Slf4j
 @Validated
@@ -30,12 +36,18 @@ public class BookingController {
 
     private final BookingClient bookingClient;
     private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_BATCH_SIZE = 1000;
 
     @PostMapping
     public ResponseEntity<Object> createBooking(@RequestHeader(USER_ID_HEADER) Long userId,
+                                                @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+                                                String idempotencyKey,
+                                                @RequestParam(name = "hold", defaultValue = "false") boolean hold,
                                                 @RequestBody @Valid BookItemRequestDto requestDto) {
-        log.info("Пользователь с id = {} отправил запрос на создание бронирования: {}", userId, requestDto);
-        return bookingClient.createBooking(userId, requestDto);
+        log.info("Пользователь с id = {} отправил запрос на создание бронирования (hold = {}): {}", userId, hold,
+                requestDto);
+        return bookingClient.createBooking(userId, idempotencyKey, hold, requestDto);
     }
 
     @PatchMapping("/{bookingId}")
@@ -47,6 +59,18 @@ public class BookingController {
         return bookingClient.updateBookingStatus(userId, approved, bookingId);
     }
 
+    @PatchMapping("/batch")
+    public ResponseEntity<Object> updateBookingStatuses(@RequestBody
+                                                        @NotEmpty(message = "Список бронирований для изменения статуса " +
+                                                                "не должен быть пустым!")
+                                                        @Size(max = MAX_BATCH_SIZE, message = "За один запрос можно " +
+                                                                "изменить статус не более 1000 бронирований!")
+                                                        List<@Valid BookingStatusUpdateDto> updates,
+                                                        @RequestHeader(USER_ID_HEADER) Long userId) {
+        log.info("Пользователь с id = {} отправил запрос на изменение статуса {} бронирований", userId, updates.size());
+        return bookingClient.updateBookingStatuses(userId, updates);
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<Object> getBookingById(@RequestHeader(USER_ID_HEADER) Long userId,
                                                  @PathVariable Long bookingId) {
@@ -58,23 +82,33 @@ public class BookingController {
     public ResponseEntity<Object> getAllBookingsByUserId(@RequestHeader(USER_ID_HEADER) Long userId,
                                                          @RequestParam(name = "state", defaultValue = "ALL") String stateParam,
                                                          @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                         @RequestParam(name = "cursor", required = false) String cursor,
                                                          @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
         log.info("Пользователь с id = {} отправил запрос на получение списка бронирований со state = {} (from = {}," +
-                " size = {})", userId, stateParam, from, size);
-        return bookingClient.getAllBookingsByUserId(userId, state, from, size);
+                " cursor = {}, size = {})", userId, stateParam, from, cursor, size);
+        return bookingClient.getAllBookingsByUserId(userId, state, from, cursor, size);
     }
 
     @GetMapping("/owner")
     public ResponseEntity<Object> getBookingsForUserItems(@RequestHeader(USER_ID_HEADER) Long userId,
                                                           @RequestParam(name = "state", defaultValue = "ALL") String stateParam,
                                                           @PositiveOrZero @RequestParam(name = "from", defaultValue = "0") Integer from,
+                                                          @RequestParam(name = "cursor", required = false) String cursor,
                                                           @Positive @RequestParam(name = "size", defaultValue = "10") Integer size) {
         BookingState state = BookingState.from(stateParam)
                 .orElseThrow(() -> new IllegalArgumentException("Unknown state: " + stateParam));
         log.info("Пользователь с id = {} отправил запрос на получение списка бронирований co state = {} на вещи, для " +
-                "которых он является владельцем (from = {}, size = {})", userId, stateParam, from, size);
-        return bookingClient.getBookingForUserItems(userId, state, from, size);
+                "которых он является владельцем (from = {}, cursor = {}, size = {})", userId, stateParam, from, cursor,
+                size);
+        return bookingClient.getBookingForUserItems(userId, state, from, cursor, size);
+    }
+
+    @GetMapping("/owner/events")
+    public ResponseEntity<ResponseBodyEmitter> subscribeToBookingEvents(@RequestHeader(USER_ID_HEADER) Long userId)
+            throws IOException, InterruptedException {
+        log.info("Пользователь с id = {} подписался на события бронирований своих вещей", userId);
+        return bookingClient.subscribeToBookingEvents(userId);
     }
-}
\ No newline at end of file
+}
@@ -7,6 +7,7 @@ public enum BookingState {
     ALL,
     CURRENT,
     FUTURE,
+    HOLD,
     PAST,
     REJECTED,
     WAITING;
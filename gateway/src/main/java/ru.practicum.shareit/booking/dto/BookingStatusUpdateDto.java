@@ -0,0 +1,19 @@
+package ru.practicum.shareit.booking.dto;
+
+import javax.validation.constraints.NotNull;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookingStatusUpdateDto {
+
+    @NotNull(message = "Не указан id бронирования (bookingId)!")
+    private Long bookingId;
+
+    @NotNull(message = "Не указано решение по бронированию (approved)!")
+    private Boolean approved;
+}
@@ -11,7 +11,11 @@ import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -28,8 +32,12 @@ public class ItemClient extends BaseClient {
         );
     }
 
-    public ResponseEntity<Object> createItem(Long userId, ItemDto itemDto) {
-        return post("", userId, itemDto);
+    public ResponseEntity<Object> createItem(Long userId, String idempotencyKey, ItemDto itemDto) {
+        return postIdempotent("", userId, idempotencyKey, itemDto);
+    }
+
+    public ResponseEntity<Object> createItems(Long userId, List<ItemDto> itemDtos) {
+        return post("/batch", userId, itemDtos);
     }
 
     public ResponseEntity<Object> updateItem(Long userId, Long itemId, ItemDto itemDto) {
@@ -40,6 +48,16 @@ public class ItemClient extends BaseClient {
         return get("/" + itemId, userId);
     }
 
+    public ResponseEntity<Object> getItemAvailability(Long userId, Long itemId, LocalDateTime from, LocalDateTime to,
+                                                      Boolean includeWaiting) {
+        Map<String, Object> parameters = Map.of(
+                "from", from,
+                "to", to,
+                "waiting", includeWaiting);
+
+        return get("/" + itemId + "/availability?from={from}&to={to}&waiting={waiting}", userId, parameters);
+    }
+
     public ResponseEntity<Object> getItems(Long userId, Integer from, Integer size) {
         StringBuilder sb = new StringBuilder();
         Map<String, Object> parameters = new HashMap<>();
@@ -57,12 +75,27 @@ public class ItemClient extends BaseClient {
         return get("?" + sb, userId, parameters);
     }
 
-    public ResponseEntity<Object> searchForItem(Long userId, String text, Integer from, Integer size) {
+    public void exportItems(Long userId, Boolean includeBookings, HttpServletResponse response) throws IOException {
+        streamNdjson("/export?bookings={bookings}", userId, Map.of("bookings", includeBookings), response);
+    }
+
+    public ResponseEntity<Object> searchForItem(Long userId, String text, LocalDateTime start, LocalDateTime end,
+                                               Integer from, Integer size) {
         StringBuilder sb = new StringBuilder();
 
         Map<String, Object> parameters = new HashMap<>();
         parameters.put("text", text);
 
+        if (start != null) {
+            parameters.put("start", start);
+            sb.append("start={start}&");
+        }
+
+        if (end != null) {
+            parameters.put("end", end);
+            sb.append("end={end}&");
+        }
+
         if (from != null) {
             parameters.put("from", from);
             sb.append("from={from}&");
@@ -76,7 +109,38 @@ public class ItemClient extends BaseClient {
         return get("/search?text={text}&" + sb, userId, parameters);
     }
 
+    public ResponseEntity<Object> suggestItems(Long userId, String prefix, Integer size) {
+        StringBuilder sb = new StringBuilder();
+
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("prefix", prefix);
+
+        if (size != null) {
+            parameters.put("size", size);
+            sb.append("&size={size}");
+        }
+
+        return get("/suggest?prefix={prefix}" + sb, userId, parameters);
+    }
+
     public ResponseEntity<Object> createComment(Long userId, Long itemId, CommentDto commentDto) {
         return post("/" + itemId + "/comment", userId, commentDto);
     }
+
+    public ResponseEntity<Object> getComments(Long userId, Long itemId, Integer from, Integer size) {
+        StringBuilder sb = new StringBuilder();
+        Map<String, Object> parameters = new HashMap<>();
+
+        if (from != null) {
+            parameters.put("from", from);
+            sb.append("from={from}&");
+        }
+
+        if (size != null) {
+            parameters.put("size", size);
+            sb.append("size={size}");
+        }
+
+        return get("/" + itemId + "/comments?" + sb, userId, parameters);
+    }
 }
@@ -2,6 +2,7 @@ package ru.practicum.shareit.item;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.validation.annotation.Validated;
@@ -16,7 +17,13 @@ import org.springframework.web.bind.annotation.RequestParam;
 import ru.practicum.shareit.item.dto.CommentDto;
 import ru.practicum.shareit.item.dto.ItemDto;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Slf4j
 @Validated
@@ -26,15 +33,29 @@ import javax.validation.Valid;
 public class ItemController {
 
     private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    private static final int MAX_BATCH_SIZE = 10000;
     private final ItemClient itemClient;
 
     @PostMapping
     public ResponseEntity<Object> createItem(@Valid @RequestBody ItemDto itemDto,
-                                             @RequestHeader(USER_ID_HEADER) Long userId) {
+                                             @RequestHeader(USER_ID_HEADER) Long userId,
+                                             @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false)
+                                             String idempotencyKey) {
         log.info("Пользователь с id = {} отправил запрос на создание вещи: {}", userId, itemDto);
-        return itemClient.createItem(userId, itemDto);
+        return itemClient.createItem(userId, idempotencyKey, itemDto);
     }
 
+    @PostMapping("/batch")
+    public ResponseEntity<Object> createItems(@RequestBody
+                                              @NotEmpty(message = "Список вещей для создания не должен быть пустым!")
+                                              @Size(max = MAX_BATCH_SIZE,
+                                                      message = "За один запрос можно создать не более 10000 вещей!")
+                                              List<@Valid ItemDto> itemDtos,
+                                              @RequestHeader(USER_ID_HEADER) Long userId) {
+        log.info("Пользователь с id = {} отправил запрос на создание {} вещей", userId, itemDtos.size());
+        return itemClient.createItems(userId, itemDtos);
+    }
 
     @PatchMapping("/{itemId}")
     public ResponseEntity<Object> updateItem(@RequestBody ItemDto itemDto, @PathVariable("itemId") Long itemId,
@@ -50,6 +71,22 @@ public class ItemController {
         return itemClient.getItem(userId, itemId);
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<Object> getItemAvailability(@PathVariable("itemId") Long itemId,
+                                                      @RequestParam("from")
+                                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                      LocalDateTime from,
+                                                      @RequestParam("to")
+                                                      @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                      LocalDateTime to,
+                                                      @RequestParam(name = "waiting", defaultValue = "false")
+                                                      Boolean includeWaiting,
+                                                      @RequestHeader(USER_ID_HEADER) Long userId) {
+        log.info("Пользователь с id = {} отправил запрос на получение занятости вещи с id = {} с {} по {} " +
+                "(waiting = {})", userId, itemId, from, to, includeWaiting);
+        return itemClient.getItemAvailability(userId, itemId, from, to, includeWaiting);
+    }
+
     @GetMapping
     public ResponseEntity<Object> getItemsByUserId(@RequestParam(name = "from", required = false) Integer from,
                                                    @RequestParam(name = "size", required = false) Integer size,
@@ -59,14 +96,38 @@ public class ItemController {
         return itemClient.getItems(userId, from, size);
     }
 
+    @GetMapping("/export")
+    public void exportItems(@RequestParam(name = "bookings", defaultValue = "false") Boolean includeBookings,
+                            @RequestHeader(USER_ID_HEADER) Long userId,
+                            HttpServletResponse response) throws IOException {
+        log.info("Пользователь с id = {} отправил запрос на выгрузку своих вещей (bookings = {})", userId,
+                includeBookings);
+        itemClient.exportItems(userId, includeBookings, response);
+    }
+
     @GetMapping("/search")
     public ResponseEntity<Object> searchForItem(@RequestParam(name = "from", required = false) Integer from,
                                                 @RequestParam(name = "size", required = false) Integer size,
                                                 @RequestParam("text") String text,
+                                                @RequestParam(name = "start", required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                LocalDateTime start,
+                                                @RequestParam(name = "end", required = false)
+                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                LocalDateTime end,
                                                 @RequestHeader(USER_ID_HEADER) Long userId) {
-        log.info("Пользователь с id = {} отправил запрос на поиск вещей с text = {} (from = {}, size = {})", userId,
-                text, from, size);
-        return itemClient.searchForItem(userId, text, from, size);
+        log.info("Пользователь с id = {} отправил запрос на поиск вещей с text = {}, свободных с {} по {} " +
+                "(from = {}, size = {})", userId, text, start, end, from, size);
+        return itemClient.searchForItem(userId, text, start, end, from, size);
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<Object> suggestItems(@RequestParam("prefix") String prefix,
+                                               @RequestParam(name = "size", required = false) Integer size,
+                                               @RequestHeader(USER_ID_HEADER) Long userId) {
+        log.info("Пользователь с id = {} отправил запрос на подсказки по названиям вещей с prefix = {} (size = {})",
+                userId, prefix, size);
+        return itemClient.suggestItems(userId, prefix, size);
     }
 
     @PostMapping("/{itemId}/comment")
@@ -77,4 +138,14 @@ public class ItemController {
                 itemId, commentDto);
         return itemClient.createComment(userId, itemId, commentDto);
     }
+
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<Object> getComments(@PathVariable("itemId") Long itemId,
+                                              @RequestParam(name = "from", required = false) Integer from,
+                                              @RequestParam(name = "size", required = false) Integer size,
+                                              @RequestHeader(USER_ID_HEADER) Long userId) {
+        log.info("Пользователь с id = {} отправил запрос на получение комментариев к вещи с id = {} (from = {}, " +
+                "size = {})", userId, itemId, from, size);
+        return itemClient.getComments(userId, itemId, from, size);
+    }
 }
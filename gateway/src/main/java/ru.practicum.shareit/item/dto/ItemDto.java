@@ -35,4 +35,6 @@ public class ItemDto {
     private BookingShortDto nextBooking;
 
     private List<CommentDto> comments;
+
+    private Long commentCount;
 }
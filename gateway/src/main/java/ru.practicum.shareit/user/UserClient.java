@@ -10,6 +10,11 @@ import org.springframework.web.util.DefaultUriBuilderFactory;
 import ru.practicum.shareit.client.BaseClient;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
 @Service
 public class UserClient extends BaseClient {
 
@@ -36,8 +41,28 @@ public class UserClient extends BaseClient {
         return get("/" + userId, userId);
     }
 
-    public ResponseEntity<Object> getUsers() {
-        return get("/");
+    public ResponseEntity<Object> getUsers(Integer from, String cursor, Integer size) {
+        StringBuilder sb = new StringBuilder();
+        Map<String, Object> parameters = new HashMap<>();
+
+        if (cursor != null) {
+            parameters.put("cursor", cursor);
+            sb.append("cursor={cursor}&");
+        } else if (from != null) {
+            parameters.put("from", from);
+            sb.append("from={from}&");
+        }
+
+        if (size != null) {
+            parameters.put("size", size);
+            sb.append("size={size}");
+        }
+
+        return get("?" + sb, null, parameters);
+    }
+
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        streamNdjson("/export", null, Map.of(), response);
     }
 
     public ResponseEntity<Object> deleteUser(Long userId) {
@@ -12,9 +12,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import ru.practicum.shareit.user.dto.UserDto;
 
+import javax.servlet.http.HttpServletResponse;
 import javax.validation.Valid;
+import javax.validation.constraints.Positive;
+import javax.validation.constraints.PositiveOrZero;
+import java.io.IOException;
 
 @Slf4j
 @Validated
@@ -44,9 +49,18 @@ public class UserController {
     }
 
     @GetMapping
-    public ResponseEntity<Object> getAllUsers() {
-        log.info("Получен запрос на получение списка всех пользователей");
-        return userClient.getUsers();
+    public ResponseEntity<Object> getAllUsers(@PositiveOrZero @RequestParam(name = "from", required = false) Integer from,
+                                              @RequestParam(name = "cursor", required = false) String cursor,
+                                              @Positive @RequestParam(name = "size", required = false) Integer size) {
+        log.info("Получен запрос на получение списка пользователей (from = {}, cursor = {}, size = {})", from, cursor,
+                size);
+        return userClient.getUsers(from, cursor, size);
+    }
+
+    @GetMapping("/export")
+    public void exportUsers(HttpServletResponse response) throws IOException {
+        log.info("Получен запрос на выгрузку всех пользователей");
+        userClient.exportUsers(response);
     }
 
     @DeleteMapping("/{userId}")
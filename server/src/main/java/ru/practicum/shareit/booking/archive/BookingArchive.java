@@ -0,0 +1,252 @@
+package ru.practicum.shareit.booking.archive;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
+import ru.practicum.shareit.booking.mapper.BookingMapper;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.common.util.OffsetPageRequest;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
+
+import java.time.LocalDateTime;
+import java.time.Period;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static ru.practicum.shareit.booking.model.Status.APPROVED;
+
+/**
+ * Archive of bookings that ended more than the retention period ago. A scheduled job moves them out of
+ * {@code bookings} batch by batch, so lists of live bookings stay small. Every archived booking started before
+ * the archive cutoff, which lets booking lists skip the archive whenever the requested page is full and does
+ * not reach back past the cutoff.
+ * <p>
+ * Raising the retention period does not bring archived bookings back; until they age past the new cutoff,
+ * lists may miss them.
+ */
+@Slf4j
+@Component
+public class BookingArchive {
+
+    private static final Comparator<Booking> NEWEST_FIRST = Comparator.comparing(Booking::getStart)
+            .thenComparing(Booking::getId)
+            .reversed();
+
+    private final BookingRepository bookingRepository;
+    private final ArchivedBookingRepository archivedBookingRepository;
+    private final BookingMapper bookingMapper;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final Period retention;
+    private final int batchSize;
+
+    private final Counter archivedBookings;
+    private final Counter archiveReads;
+
+    @Autowired
+    public BookingArchive(BookingRepository bookingRepository,
+                          ArchivedBookingRepository archivedBookingRepository,
+                          BookingMapper bookingMapper,
+                          PlatformTransactionManager transactionManager,
+                          MeterRegistry meterRegistry,
+                          @Value("${shareit.booking.archive.enabled:true}") boolean enabled,
+                          @Value("${shareit.booking.archive.retention:P6M}") Period retention,
+                          @Value("${shareit.booking.archive.batch-size:1000}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.archivedBookingRepository = archivedBookingRepository;
+        this.bookingMapper = bookingMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.retention = retention;
+        this.batchSize = batchSize;
+
+        archivedBookings = meterRegistry.counter("shareit.booking.archive.archived");
+        archiveReads = meterRegistry.counter("shareit.booking.archive.reads");
+    }
+
+    /**
+     * Bookings that ended before this moment are moved to the archive.
+     */
+    public LocalDateTime getCutoff() {
+        return LocalDateTime.now().minus(retention);
+    }
+
+    /**
+     * Moves the bookings that ended before the cutoff to the archive, one transaction per batch, and returns how
+     * many were moved.
+     */
+    @Scheduled(cron = "${shareit.booking.archive.cron:0 30 3 * * *}")
+    public int archive() {
+        if (!enabled) {
+            return 0;
+        }
+
+        LocalDateTime cutoff = getCutoff();
+        int total = 0;
+        Integer moved;
+
+        do {
+            moved = transactionTemplate.execute(status -> archiveBatch(cutoff));
+            total += moved == null ? 0 : moved;
+        } while (moved != null && moved == batchSize);
+
+        log.info("В архив перенесено {} бронирований, завершившихся до {}", total, cutoff);
+
+        return total;
+    }
+
+    /**
+     * Returns the page of bookings ordered by start and id, both descending, taking archived bookings into
+     * account. Meant for pages that start at the first booking, such as keyset pages: the archive is read only
+     * when the live page is not full or its last booking started before the cutoff, and then only up to the page
+     * size.
+     */
+    public List<Booking> complete(Pageable pageable, Function<Pageable, List<Booking>> liveQuery,
+                                  Function<Pageable, List<Booking>> archiveQuery) {
+        if (pageable.getOffset() != 0) {
+            throw new IllegalArgumentException("Page must start at the first booking, offset = "
+                    + pageable.getOffset());
+        }
+
+        return complete(pageable, liveQuery, cutoff -> 0, archiveQuery);
+    }
+
+    /**
+     * Returns the page of bookings at any offset, ordered by start and id, both descending, taking archived
+     * bookings into account. {@code liveCountFrom} counts the live bookings of the list that started at or after
+     * the given moment.
+     * <p>
+     * Archived bookings sort after every live booking that started at or after the cutoff, so a page that starts
+     * there needs at most a page of the archive head. A page that starts before the cutoff is located by counting
+     * the newer live bookings: only the live bookings that are still waiting to be archived and the archived
+     * bookings from the matching position on are read, never the rows in front of the page.
+     */
+    public List<Booking> complete(Pageable pageable, Function<Pageable, List<Booking>> liveQuery,
+                                  ToLongFunction<LocalDateTime> liveCountFrom,
+                                  Function<Pageable, List<Booking>> archiveQuery) {
+        List<Booking> bookings = liveQuery.apply(pageable);
+        LocalDateTime cutoff = getCutoff();
+        int size = pageable.getPageSize();
+
+        if (bookings.size() == size && !bookings.get(bookings.size() - 1).getStart().isBefore(cutoff)) {
+            return bookings;
+        }
+
+        archiveReads.increment();
+
+        if (pageable.getOffset() == 0 || !bookings.isEmpty() && !bookings.get(0).getStart().isBefore(cutoff)) {
+            return merge(bookings, archiveQuery.apply(PageRequest.of(0, size)), 0, size);
+        }
+
+        long liveFromCutoff = Math.min(pageable.getOffset(), liveCountFrom.applyAsLong(cutoff));
+        long tailOffset = pageable.getOffset() - liveFromCutoff;
+        List<Booking> liveBeforeCutoff = liveQuery.apply(OffsetPageRequest.of(liveFromCutoff,
+                toInt(tailOffset + size), pageable.getSort()));
+        long liveSkipped = Math.min(tailOffset, liveBeforeCutoff.size());
+        List<Booking> archived = archiveQuery.apply(OffsetPageRequest.of(tailOffset - liveSkipped,
+                toInt(liveSkipped + size)));
+
+        return merge(liveBeforeCutoff, archived, liveSkipped, size);
+    }
+
+    public List<Booking> findBookingsByBooker(Long bookerId, Collection<Status> statuses, Pageable pageable) {
+        return toBookings(archivedBookingRepository.findBookingsByBooker(bookerId, statuses, pageable));
+    }
+
+    public List<Booking> findBookingsByBookerBefore(Long bookerId, Collection<Status> statuses, LocalDateTime start,
+                                                    Long id, Pageable pageable) {
+        return toBookings(archivedBookingRepository.findBookingsByBookerBefore(bookerId, statuses, start, id,
+                pageable));
+    }
+
+    public List<Booking> findBookingsByOwner(Long ownerId, Collection<Status> statuses, Pageable pageable) {
+        return toBookings(archivedBookingRepository.findBookingsByOwner(ownerId, statuses, pageable));
+    }
+
+    public List<Booking> findBookingsByOwnerBefore(Long ownerId, Collection<Status> statuses, LocalDateTime start,
+                                                   Long id, Pageable pageable) {
+        return toBookings(archivedBookingRepository.findBookingsByOwnerBefore(ownerId, statuses, start, id,
+                pageable));
+    }
+
+    public Optional<Booking> findActiveById(Long bookingId) {
+        return archivedBookingRepository.findActiveById(bookingId).map(bookingMapper::toBooking);
+    }
+
+    public List<AvailabilityIntervalDto> findBusyIntervals(Long itemId, LocalDateTime from, LocalDateTime to,
+                                                           Collection<Status> statuses) {
+        archiveReads.increment();
+        return archivedBookingRepository.findBusyIntervalsByItemIdOverlapping(itemId, from, to, statuses);
+    }
+
+    /**
+     * Returns the latest approved archived booking of each item; archived bookings are all in the past, so only
+     * the "last" booking of an item can come from the archive.
+     */
+    public List<Booking> findLastApprovedBookings(Collection<Long> itemIds) {
+        return toBookings(archivedBookingRepository.findLastApprovedBookingsByItemIds(itemIds));
+    }
+
+    /**
+     * Streams the archived bookings of the owner's items in the order of {@link
+     * BookingRepository#streamExportBookingsByOwnerId}.
+     */
+    public Stream<BookingExportDto> streamExportBookingsByOwnerId(Long ownerId) {
+        return archivedBookingRepository.streamExportBookingsByOwnerId(ownerId);
+    }
+
+    public boolean hasApprovedBooking(Long bookerId, Long itemId) {
+        return archivedBookingRepository.existsByBookerIdAndItemIdAndStatus(bookerId, itemId, APPROVED);
+    }
+
+    private int archiveBatch(LocalDateTime cutoff) {
+        List<Long> bookingIds = bookingRepository.findIdsEndedBefore(cutoff, PageRequest.of(0, batchSize));
+
+        if (bookingIds.isEmpty()) {
+            return 0;
+        }
+
+        archivedBookingRepository.copyFromBookingsEndedBefore(bookingIds, cutoff);
+        bookingRepository.deleteAllEndedBefore(bookingIds, cutoff);
+        archivedBookings.increment(bookingIds.size());
+
+        return bookingIds.size();
+    }
+
+    private static List<Booking> merge(List<Booking> bookings, List<Booking> archived, long skip, int limit) {
+        return Stream.concat(bookings.stream(), archived.stream())
+                .sorted(NEWEST_FIRST)
+                .skip(skip)
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    private static int toInt(long size) {
+        return (int) Math.min(Integer.MAX_VALUE, size);
+    }
+
+    private List<Booking> toBookings(List<ArchivedBooking> archivedBookings) {
+        return archivedBookings.stream()
+                .map(bookingMapper::toBooking)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,135 @@
+package ru.practicum.shareit.booking.archive;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+
+/**
+ * Keeps the monthly range partitions of the Postgres {@code bookings} table by end date: every month from the
+ * archive cutoff to a few months ahead gets its own partition, with its rows moved out of the default partition,
+ * and partitions left empty by the archival job are dropped. The partitioned table itself is created by
+ * {@code schema-postgresql.sql}.
+ */
+@Slf4j
+@Component
+public class BookingPartitionManager {
+
+    private static final String PARTITION_PREFIX = "bookings_p";
+    private static final String DEFAULT_PARTITION = "bookings_default";
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    private final BookingArchive bookingArchive;
+    private final boolean enabled;
+    private final int monthsAhead;
+
+    @Autowired
+    public BookingPartitionManager(EntityManager entityManager,
+                                   PlatformTransactionManager transactionManager,
+                                   BookingArchive bookingArchive,
+                                   @Value("${shareit.booking.partitioning.enabled:false}") boolean enabled,
+                                   @Value("${shareit.booking.partitioning.months-ahead:3}") int monthsAhead) {
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.bookingArchive = bookingArchive;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${shareit.booking.partitioning.cron:0 0 3 * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+
+        YearMonth first = YearMonth.from(bookingArchive.getCutoff());
+        YearMonth last = YearMonth.now().plusMonths(monthsAhead);
+        List<String> partitions = transactionTemplate.execute(status -> findPartitions());
+
+        for (YearMonth month = first; !month.isAfter(last); month = month.plusMonths(1)) {
+            YearMonth partitionMonth = month;
+            if (!partitions.contains(getPartitionName(partitionMonth))) {
+                transactionTemplate.executeWithoutResult(status -> createPartition(partitionMonth));
+            }
+        }
+
+        for (String partition : partitions) {
+            YearMonth month = getPartitionMonth(partition);
+            if (month != null && month.isBefore(first)) {
+                transactionTemplate.executeWithoutResult(status -> dropIfEmpty(partition));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<String> findPartitions() {
+        return entityManager.createNativeQuery("SELECT c.relname FROM pg_inherits i " +
+                        "JOIN pg_class c ON c.oid = i.inhrelid " +
+                        "WHERE i.inhparent = 'bookings'::regclass")
+                .getResultList();
+    }
+
+    /**
+     * Creates the partition as a plain table filled with the month's rows from the default partition, then
+     * attaches it. Inserts into the default partition wait meanwhile, so none of the month's rows is left behind.
+     */
+    private void createPartition(YearMonth month) {
+        String partition = getPartitionName(month);
+        String from = month.atDay(1).toString();
+        String to = month.plusMonths(1).atDay(1).toString();
+        String range = String.format("end_date >= '%s' AND end_date < '%s'", from, to);
+
+        execute("LOCK TABLE " + DEFAULT_PARTITION + " IN SHARE ROW EXCLUSIVE MODE");
+        execute("CREATE TABLE " + partition + " (LIKE bookings INCLUDING DEFAULTS)");
+        int moved = execute("INSERT INTO " + partition + " SELECT * FROM " + DEFAULT_PARTITION + " WHERE " + range);
+        execute("DELETE FROM " + DEFAULT_PARTITION + " WHERE " + range);
+        execute(String.format("ALTER TABLE bookings ATTACH PARTITION %s FOR VALUES FROM ('%s') TO ('%s')",
+                partition, from, to));
+
+        log.info("Создана секция {} таблицы бронирований, перенесено {} бронирований", partition, moved);
+    }
+
+    private void dropIfEmpty(String partition) {
+        boolean hasRows = (Boolean) entityManager.createNativeQuery("SELECT EXISTS (SELECT 1 FROM " + partition + ")")
+                .getSingleResult();
+
+        if (!hasRows) {
+            execute("DROP TABLE " + partition);
+            log.info("Удалена пустая секция {} таблицы бронирований", partition);
+        }
+    }
+
+    private int execute(String sql) {
+        return entityManager.createNativeQuery(sql).executeUpdate();
+    }
+
+    private static String getPartitionName(YearMonth month) {
+        return PARTITION_PREFIX + month.format(PARTITION_SUFFIX);
+    }
+
+    private static YearMonth getPartitionMonth(String partition) {
+        if (!partition.startsWith(PARTITION_PREFIX)) {
+            return null;
+        }
+
+        try {
+            return YearMonth.parse(partition.substring(PARTITION_PREFIX.length()), PARTITION_SUFFIX);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+}
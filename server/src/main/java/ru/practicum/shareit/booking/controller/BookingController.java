@@ -1,6 +1,7 @@
 package ru.practicum.shareit.booking.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -11,9 +12,14 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.common.service.IdempotencyService;
 
 import javax.validation.Valid;
 import java.util.List;
@@ -24,12 +30,25 @@ import java.util.List;
 public class BookingController {
 
     private final BookingService bookingService;
+    private final IdempotencyService idempotencyService;
     private static final String USER_ID_HEADER = "X-Sharer-User-Id";
 
     @PostMapping
     public ResponseEntity<BookingDto> addBooking(@Valid @RequestBody BookingInputDto bookingInputDto,
-                                                 @RequestHeader(USER_ID_HEADER) Long userId) {
-        return ResponseEntity.ok().body(bookingService.add(bookingInputDto, userId));
+                                                 @RequestHeader(USER_ID_HEADER) Long userId,
+                                                 @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER,
+                                                         required = false) String idempotencyKey) {
+        return idempotencyService.execute("addBooking", userId, idempotencyKey, bookingInputDto,
+                () -> ResponseEntity.ok().body(bookingService.add(bookingInputDto, userId)));
+    }
+
+    @PostMapping(params = "hold=true")
+    public ResponseEntity<BookingDto> holdBooking(@Valid @RequestBody BookingInputDto bookingInputDto,
+                                                  @RequestHeader(USER_ID_HEADER) Long userId,
+                                                  @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER,
+                                                          required = false) String idempotencyKey) {
+        return idempotencyService.execute("holdBooking", userId, idempotencyKey, bookingInputDto,
+                () -> ResponseEntity.ok().body(bookingService.hold(bookingInputDto, userId)));
     }
 
     @PatchMapping("/{bookingId}")
@@ -39,6 +58,12 @@ public class BookingController {
         return ResponseEntity.ok().body(bookingService.updateStatus(bookingId, approved, userId));
     }
 
+    @PatchMapping("/batch")
+    public ResponseEntity<List<BookingBatchResultDto>> updateBookingStatuses(@RequestBody List<BookingStatusUpdateDto> updates,
+                                                                             @RequestHeader(USER_ID_HEADER) Long userId) {
+        return ResponseEntity.ok().body(bookingService.updateStatuses(updates, userId));
+    }
+
     @GetMapping("/{bookingId}")
     public ResponseEntity<BookingDto> getBookingById(@PathVariable("bookingId") Long bookingId,
                                                      @RequestHeader(USER_ID_HEADER) Long userId) {
@@ -60,4 +85,25 @@ public class BookingController {
                                                                        @RequestHeader(USER_ID_HEADER) Long userId) {
         return ResponseEntity.ok().body(bookingService.getAllBookingsForUserItems(state, from, size, userId));
     }
+
+    @GetMapping(params = "cursor")
+    public ResponseEntity<BookingPageDto> getBookingsPageByUserId(@RequestParam(name = "state", defaultValue = "ALL") String state,
+                                                                  @RequestParam(name = "cursor") String cursor,
+                                                                  @RequestParam(name = "size", required = false) Integer size,
+                                                                  @RequestHeader(USER_ID_HEADER) Long userId) {
+        return ResponseEntity.ok().body(bookingService.getBookingsPageByUserId(state, cursor, size, userId));
+    }
+
+    @GetMapping(path = "/owner", params = "cursor")
+    public ResponseEntity<BookingPageDto> getBookingsPageForUserItems(@RequestParam(name = "state", defaultValue = "ALL") String state,
+                                                                      @RequestParam(name = "cursor") String cursor,
+                                                                      @RequestParam(name = "size", required = false) Integer size,
+                                                                      @RequestHeader(USER_ID_HEADER) Long userId) {
+        return ResponseEntity.ok().body(bookingService.getBookingsPageForUserItems(state, cursor, size, userId));
+    }
+
+    @GetMapping(path = "/owner/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter subscribeToBookingEvents(@RequestHeader(USER_ID_HEADER) Long userId) {
+        return bookingService.subscribeToBookingEvents(userId);
+    }
 }
@@ -0,0 +1,16 @@
+package ru.practicum.shareit.booking.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import ru.practicum.shareit.booking.model.Status;
+
+@Data
+@AllArgsConstructor
+public class BookingBatchResultDto {
+
+    private Long bookingId;
+
+    private Status status;
+
+    private String error;
+}
@@ -22,6 +22,8 @@ public class BookingDto {
 
     private Status status;
 
+    private LocalDateTime holdUntil;
+
     public BookingDto(Long id, LocalDateTime start, LocalDateTime end, ItemDto item, UserDto booker, Status status) {
         this.id = id;
         this.start = start;
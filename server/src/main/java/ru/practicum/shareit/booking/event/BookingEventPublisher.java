@@ -0,0 +1,294 @@
+package ru.practicum.shareit.booking.event;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingEventType;
+import ru.practicum.shareit.common.util.TransactionUtils;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Pushes booking changes to the server-sent event streams of the item owner. Publishing only appends the event
+ * to a bounded buffer of every subscriber and never waits for a connection: sender threads drain the buffers, and
+ * a subscriber that falls behind loses its oldest events. Every subscriber gets its own event builder, since a
+ * builder is not safe to send from several sender threads.
+ * <p>
+ * A servlet write blocks while the client does not read, so a send that takes longer than the write timeout
+ * closes the subscriber and interrupts its sender thread. The sender pool grows past its core size while threads
+ * are busy, at most to one thread per subscriber, so subscribers that stopped reading never hold up the others.
+ */
+@Slf4j
+@Component
+public class BookingEventPublisher {
+
+    private final int bufferSize;
+    private final long timeoutMillis;
+    private final long writeTimeoutMillis;
+    private final ExecutorService senders;
+    private final ScheduledExecutorService writeTimeouts;
+
+    private final Map<Long, Set<Subscriber>> subscribersByOwnerId = new ConcurrentHashMap<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final AtomicLong eventIds = new AtomicLong();
+
+    private final Counter droppedEvents;
+
+    @Autowired
+    public BookingEventPublisher(MeterRegistry meterRegistry,
+                                 @Value("${shareit.booking.events.buffer-size:100}") int bufferSize,
+                                 @Value("${shareit.booking.events.timeout:PT30M}") Duration timeout,
+                                 @Value("${shareit.booking.events.sender-threads:4}") int senderThreads,
+                                 @Value("${shareit.booking.events.write-timeout:PT10S}") Duration writeTimeout) {
+        this.bufferSize = bufferSize;
+        this.timeoutMillis = timeout.toMillis();
+        this.writeTimeoutMillis = writeTimeout.toMillis();
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(senderThreads, Integer.MAX_VALUE, 60, TimeUnit.SECONDS,
+                new SynchronousQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "booking-events-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        ScheduledThreadPoolExecutor writeTimeouts = new ScheduledThreadPoolExecutor(1, runnable -> {
+            Thread thread = new Thread(runnable, "booking-events-write-timeouts");
+            thread.setDaemon(true);
+            return thread;
+        });
+        writeTimeouts.setRemoveOnCancelPolicy(true);
+        this.writeTimeouts = writeTimeouts;
+
+        droppedEvents = meterRegistry.counter("shareit.booking.events.dropped");
+        Gauge.builder("shareit.booking.events.subscribers", subscriberCount, AtomicInteger::get)
+                .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(Long ownerId) {
+        return subscribe(ownerId, new SseEmitter(timeoutMillis));
+    }
+
+    public SseEmitter subscribe(Long ownerId, SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(ownerId, emitter);
+
+        subscribersByOwnerId.compute(ownerId, (id, subscribers) -> {
+            Set<Subscriber> ownerSubscribers = subscribers == null ? ConcurrentHashMap.newKeySet() : subscribers;
+            ownerSubscribers.add(subscriber);
+            return ownerSubscribers;
+        });
+        subscriberCount.incrementAndGet();
+        emitter.onCompletion(() -> remove(subscriber));
+        emitter.onError(e -> remove(subscriber));
+        emitter.onTimeout(() -> {
+            subscriber.close();
+            remove(subscriber);
+            emitter.complete();
+        });
+
+        subscriber.offer(SseEmitter.event().comment("connected"));
+        log.info("Владелец с id = {} подписался на события бронирований", ownerId);
+
+        return emitter;
+    }
+
+    /**
+     * Sends the event to the subscribers of the item owner once the surrounding transaction commits.
+     */
+    public void publish(Booking booking, BookingEventType type) {
+        Long ownerId = booking.getItem().getOwner().getId();
+        BookingEventDto event = new BookingEventDto(type, booking.getId(), booking.getItem().getId(),
+                booking.getBooker().getId(), booking.getStart(), booking.getEnd(), booking.getStatus());
+
+        TransactionUtils.afterCommit(() -> {
+            Set<Subscriber> subscribers = subscribersByOwnerId.get(ownerId);
+            if (subscribers == null) {
+                return;
+            }
+
+            String eventId = String.valueOf(eventIds.incrementAndGet());
+            subscribers.forEach(subscriber -> subscriber.offer(SseEmitter.event()
+                    .id(eventId)
+                    .name(type.name())
+                    .data(event)));
+        });
+    }
+
+    /**
+     * Keeps idle connections open through proxies and detects subscribers that went away.
+     */
+    @Scheduled(fixedDelayString = "${shareit.booking.events.heartbeat-interval:PT15S}")
+    public void sendHeartbeats() {
+        subscribersByOwnerId.values().forEach(subscribers ->
+                subscribers.forEach(subscriber -> subscriber.offer(SseEmitter.event().comment("heartbeat"))));
+    }
+
+    public int getSubscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        senders.shutdownNow();
+        writeTimeouts.shutdownNow();
+        subscribersByOwnerId.values().forEach(subscribers ->
+                subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    /**
+     * Removes the subscriber and drops the set of the owner once it is empty. Both happen under the lock of the
+     * owner key, as does adding in {@link #subscribe(Long, SseEmitter)}, so a subscriber cannot be added to a set
+     * that is being dropped.
+     */
+    private void remove(Subscriber subscriber) {
+        subscribersByOwnerId.computeIfPresent(subscriber.ownerId, (id, subscribers) -> {
+            if (subscribers.remove(subscriber)) {
+                subscriberCount.decrementAndGet();
+            }
+            return subscribers.isEmpty() ? null : subscribers;
+        });
+    }
+
+    private final class Subscriber {
+
+        private final Long ownerId;
+        private final SseEmitter emitter;
+        private final ArrayDeque<SseEmitter.SseEventBuilder> buffer = new ArrayDeque<>();
+        private boolean draining;
+        private boolean closed;
+        private Thread sendingThread;
+        private boolean sendTimedOut;
+
+        private Subscriber(Long ownerId, SseEmitter emitter) {
+            this.ownerId = ownerId;
+            this.emitter = emitter;
+        }
+
+        private void offer(SseEmitter.SseEventBuilder event) {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                if (buffer.size() >= bufferSize) {
+                    buffer.pollFirst();
+                    droppedEvents.increment();
+                }
+                buffer.addLast(event);
+
+                if (draining) {
+                    return;
+                }
+                draining = true;
+            }
+
+            try {
+                senders.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                log.debug("Отправка событий бронирований остановлена");
+                synchronized (this) {
+                    draining = false;
+                }
+            }
+        }
+
+        /**
+         * Sends the buffered events until the buffer is empty. A failed or timed out send closes the subscriber
+         * for good: it is removed, its buffer is dropped and later events are ignored.
+         */
+        private void drain() {
+            while (true) {
+                SseEmitter.SseEventBuilder event;
+
+                synchronized (this) {
+                    event = closed ? null : buffer.pollFirst();
+                    if (event == null) {
+                        draining = false;
+                        return;
+                    }
+                    sendingThread = Thread.currentThread();
+                }
+
+                ScheduledFuture<?> writeTimeout = writeTimeouts.schedule(this::abortSend, writeTimeoutMillis,
+                        TimeUnit.MILLISECONDS);
+                Exception failure = null;
+
+                try {
+                    emitter.send(event);
+                } catch (IOException | RuntimeException e) {
+                    failure = e;
+                } finally {
+                    writeTimeout.cancel(false);
+                    synchronized (this) {
+                        sendingThread = null;
+                    }
+                    Thread.interrupted();
+                }
+
+                boolean timedOut;
+                synchronized (this) {
+                    timedOut = sendTimedOut;
+                }
+
+                if (failure != null || timedOut) {
+                    log.debug("Подписчик на события бронирований владельца с id = {} отключился", ownerId);
+                    close();
+                    remove(this);
+                    if (timedOut) {
+                        emitter.completeWithError(new IOException("Превышено время записи события"));
+                    }
+                    synchronized (this) {
+                        draining = false;
+                    }
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Closes the subscriber whose send is taking too long and interrupts the sender thread. The emitter is
+         * completed by the sender thread once the send returns, because the emitter is locked while it sends.
+         */
+        private void abortSend() {
+            synchronized (this) {
+                if (sendingThread == null) {
+                    return;
+                }
+                closed = true;
+                sendTimedOut = true;
+                buffer.clear();
+                sendingThread.interrupt();
+            }
+
+            log.debug("Отправка события владельцу с id = {} заняла больше {} мс", ownerId, writeTimeoutMillis);
+            remove(this);
+        }
+
+        private synchronized void close() {
+            closed = true;
+            buffer.clear();
+        }
+    }
+}
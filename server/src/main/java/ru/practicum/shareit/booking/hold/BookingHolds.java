@@ -0,0 +1,216 @@
+package ru.practicum.shareit.booking.hold;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.event.BookingEventPublisher;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingEventType;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.common.util.TransactionUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import static ru.practicum.shareit.booking.model.Status.EXPIRED;
+import static ru.practicum.shareit.booking.model.Status.HOLD;
+
+/**
+ * Expires booking holds through a hashed timer wheel instead of polling the bookings table. Each hold lands in
+ * the bucket of the tick it expires at; every tick only looks at its own bucket and releases the holds that are
+ * due, in batches of bookings updated in one transaction. The wheel lives in memory and is rebuilt from the held
+ * bookings at startup, so every instance releases the holds it knows of and the status check on release makes a
+ * second release a no-op.
+ */
+@Slf4j
+@Component
+public class BookingHolds {
+
+    private final BookingRepository bookingRepository;
+    private final BookingEventPublisher bookingEventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration holdDuration;
+    private final long tickNanos;
+    private final int batchSize;
+
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final ArrayDeque<Timeout>[] buckets;
+    private final long startNanos = System.nanoTime();
+    private final AtomicInteger size = new AtomicInteger();
+    private long tick;
+
+    private final Counter expiredHolds;
+
+    @Autowired
+    @SuppressWarnings("unchecked")
+    public BookingHolds(BookingRepository bookingRepository,
+                        BookingEventPublisher bookingEventPublisher,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry,
+                        @Value("${shareit.booking.hold.duration:PT15M}") Duration holdDuration,
+                        @Value("${shareit.booking.hold.tick:PT1S}") Duration tick,
+                        @Value("${shareit.booking.hold.wheel-size:512}") int wheelSize,
+                        @Value("${shareit.booking.hold.batch-size:500}") int batchSize) {
+        this.bookingRepository = bookingRepository;
+        this.bookingEventPublisher = bookingEventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.holdDuration = holdDuration;
+        this.tickNanos = tick.toNanos();
+        this.batchSize = batchSize;
+
+        buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+
+        expiredHolds = meterRegistry.counter("shareit.booking.holds.expired");
+        Gauge.builder("shareit.booking.holds.scheduled", size, AtomicInteger::get).register(meterRegistry);
+    }
+
+    /**
+     * Returns the moment a hold placed at {@code dateTime} expires.
+     */
+    public LocalDateTime getHoldUntil(LocalDateTime dateTime) {
+        return dateTime.plus(holdDuration);
+    }
+
+    /**
+     * Puts the hold on the wheel once the surrounding transaction commits.
+     */
+    public void schedule(Booking booking) {
+        Long bookingId = booking.getId();
+        LocalDateTime holdUntil = booking.getHoldUntil();
+
+        TransactionUtils.afterCommit(() -> add(bookingId, holdUntil));
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<Booking> holds = transactionTemplate.execute(status -> bookingRepository.findAllByStatus(HOLD));
+
+        if (holds != null) {
+            holds.forEach(booking -> add(booking.getId(), booking.getHoldUntil()));
+            log.info("Таймер удержаний бронирований восстановлен: {} удержаний", holds.size());
+        }
+    }
+
+    /**
+     * Advances the wheel to the current tick and releases the holds due by now. Only the scheduler thread touches
+     * the buckets; new holds reach them through the pending queue.
+     */
+    @Scheduled(fixedRateString = "${shareit.booking.hold.tick:PT1S}")
+    public void advance() {
+        long currentTick = (System.nanoTime() - startNanos) / tickNanos;
+        List<Long> dueBookingIds = new ArrayList<>();
+
+        for (Timeout timeout = pending.poll(); timeout != null; timeout = pending.poll()) {
+            long deadlineTick = Math.max(timeout.deadlineTick, tick + 1);
+            buckets[(int) (deadlineTick % buckets.length)].add(new Timeout(timeout.bookingId, deadlineTick));
+        }
+
+        while (tick < currentTick) {
+            tick++;
+            Iterator<Timeout> iterator = buckets[(int) (tick % buckets.length)].iterator();
+
+            while (iterator.hasNext()) {
+                Timeout timeout = iterator.next();
+                if (timeout.deadlineTick <= tick) {
+                    iterator.remove();
+                    size.decrementAndGet();
+                    dueBookingIds.add(timeout.bookingId);
+                }
+            }
+        }
+
+        for (int from = 0; from < dueBookingIds.size(); from += batchSize) {
+            release(dueBookingIds.subList(from, Math.min(from + batchSize, dueBookingIds.size())));
+        }
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    private void add(Long bookingId, LocalDateTime holdUntil) {
+        long delayNanos = Math.max(0, Duration.between(LocalDateTime.now(), holdUntil).toNanos());
+        long deadlineNanos = System.nanoTime() - startNanos + delayNanos;
+
+        pending.add(new Timeout(bookingId, (deadlineNanos + tickNanos - 1) / tickNanos));
+        size.incrementAndGet();
+    }
+
+    /**
+     * Marks the bookings that are still held and due as expired. An owner approving or rejecting one of them
+     * at the same time wins through the booking version; a failed batch goes back on the wheel for the next tick.
+     */
+    private void release(List<Long> bookingIds) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> expire(bookingIds));
+        } catch (DataAccessException e) {
+            log.warn("Не удалось снять удержания бронирований {}, повторная попытка на следующем такте: {}",
+                    bookingIds, e.getMessage());
+            LocalDateTime now = LocalDateTime.now();
+            bookingIds.forEach(bookingId -> add(bookingId, now));
+        }
+    }
+
+    private void expire(List<Long> bookingIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Booking> expired = new ArrayList<>();
+
+        for (Booking booking : bookingRepository.findAllWithItemByIdIn(bookingIds)) {
+            if (!HOLD.equals(booking.getStatus())) {
+                continue;
+            }
+
+            if (booking.getHoldUntil().isAfter(now)) {
+                TransactionUtils.afterCommit(() -> add(booking.getId(), booking.getHoldUntil()));
+                continue;
+            }
+
+            booking.setStatus(EXPIRED);
+            expired.add(booking);
+        }
+
+        bookingRepository.saveAll(expired);
+        bookingRepository.flush();
+
+        expired.forEach(booking -> bookingEventPublisher.publish(booking, BookingEventType.EXPIRED));
+        expiredHolds.increment(expired.size());
+
+        if (!expired.isEmpty()) {
+            log.info("Сняты истёкшие удержания бронирований: {}", expired.stream()
+                    .map(Booking::getId)
+                    .collect(Collectors.toList()));
+        }
+    }
+
+    private static final class Timeout {
+
+        private final Long bookingId;
+        private final long deadlineTick;
+
+        private Timeout(Long bookingId, long deadlineTick) {
+            this.bookingId = bookingId;
+            this.deadlineTick = deadlineTick;
+        }
+    }
+}
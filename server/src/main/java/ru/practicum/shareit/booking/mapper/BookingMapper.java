@@ -5,6 +5,7 @@ import org.mapstruct.Mapping;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
 import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.user.mapper.UserMapper;
@@ -17,5 +18,14 @@ public interface BookingMapper {
     @Mapping(target = "bookerId", expression = "java(booking.getBooker().getId())")
     BookingShortDto toBookingShortDto(Booking booking);
 
+    @Mapping(target = "id", ignore = true)
+    @Mapping(target = "item", ignore = true)
+    @Mapping(target = "booker", ignore = true)
+    @Mapping(target = "status", ignore = true)
+    @Mapping(target = "version", ignore = true)
+    @Mapping(target = "holdUntil", ignore = true)
     Booking toBooking(BookingInputDto bookingInputDto);
+
+    @Mapping(target = "holdUntil", ignore = true)
+    Booking toBooking(ArchivedBooking archivedBooking);
 }
@@ -6,5 +6,6 @@ public enum State {
     PAST,
     FUTURE,
     WAITING,
+    HOLD,
     REJECTED
 }
@@ -2,7 +2,9 @@ package ru.practicum.shareit.booking.model;
 
 public enum Status {
     WAITING,
+    HOLD,
     APPROVED,
     REJECTED,
-    CANCELED
+    CANCELED,
+    EXPIRED
 }
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.booking.repository;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+public interface ArchivedBookingBatchRepository {
+
+    /**
+     * Copies the given bookings that ended before the moment into the archive with a single statement and returns
+     * the number of copied bookings.
+     */
+    int copyFromBookingsEndedBefore(Collection<Long> bookingIds, LocalDateTime dateTime);
+}
@@ -0,0 +1,31 @@
+package ru.practicum.shareit.booking.repository;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.time.LocalDateTime;
+import java.util.Collection;
+
+/**
+ * Spring Data cannot derive a native {@code insert ... select} query, so the archive copy goes through the
+ * entity manager.
+ */
+public class ArchivedBookingBatchRepositoryImpl implements ArchivedBookingBatchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int copyFromBookingsEndedBefore(Collection<Long> bookingIds, LocalDateTime dateTime) {
+        entityManager.flush();
+
+        return entityManager.createNativeQuery("insert into bookings_archive " +
+                        "(id, start_date, end_date, item_id, booker_id, status, version) " +
+                        "select id, start_date, end_date, item_id, booker_id, status, version " +
+                        "  from bookings " +
+                        " where id in (:bookingIds) " +
+                        "   and end_date < :dateTime")
+                .setParameter("bookingIds", bookingIds)
+                .setParameter("dateTime", dateTime)
+                .executeUpdate();
+    }
+}
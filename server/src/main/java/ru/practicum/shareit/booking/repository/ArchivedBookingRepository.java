@@ -0,0 +1,106 @@
+package ru.practicum.shareit.booking.repository;
+
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
+import ru.practicum.shareit.booking.model.ArchivedBooking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
+
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+@Repository
+public interface ArchivedBookingRepository extends JpaRepository<ArchivedBooking, Long>, ArchivedBookingBatchRepository {
+
+    @Query("select b from ArchivedBooking b " +
+            "where b.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.item.owner.deletedAt is null")
+    Optional<ArchivedBooking> findActiveById(Long bookingId);
+
+    @Query("select b from ArchivedBooking b " +
+            "where b.booker.id = ?1 " +
+            "  and b.item.owner.deletedAt is null " +
+            "  and b.status in ?2 " +
+            "order by b.start desc, b.id desc")
+    List<ArchivedBooking> findBookingsByBooker(Long bookerId, Collection<Status> statuses, Pageable pageable);
+
+    @Query("select b from ArchivedBooking b " +
+            "where b.booker.id = ?1 " +
+            "  and b.item.owner.deletedAt is null " +
+            "  and b.status in ?2 " +
+            "  and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<ArchivedBooking> findBookingsByBookerBefore(Long bookerId, Collection<Status> statuses, LocalDateTime start,
+                                                     Long id, Pageable pageable);
+
+    @Query("select b from ArchivedBooking b " +
+            "  join b.item i " +
+            "where i.owner.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.status in ?2 " +
+            "order by b.start desc, b.id desc")
+    List<ArchivedBooking> findBookingsByOwner(Long ownerId, Collection<Status> statuses, Pageable pageable);
+
+    @Query("select b from ArchivedBooking b " +
+            "  join b.item i " +
+            "where i.owner.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.status in ?2 " +
+            "  and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<ArchivedBooking> findBookingsByOwnerBefore(Long ownerId, Collection<Status> statuses, LocalDateTime start,
+                                                    Long id, Pageable pageable);
+
+    @Query("select new ru.practicum.shareit.item.dto.AvailabilityIntervalDto(b.start, b.end) " +
+            "from ArchivedBooking b " +
+            "where b.item.id = ?1 " +
+            "  and b.status in ?4 " +
+            "  and b.start < ?3 " +
+            "  and b.end > ?2 " +
+            "order by b.start")
+    List<AvailabilityIntervalDto> findBusyIntervalsByItemIdOverlapping(Long itemId, LocalDateTime from,
+                                                                       LocalDateTime to, Collection<Status> statuses);
+
+    @Query("select b from ArchivedBooking b " +
+            "where b.item.id in ?1 " +
+            "  and b.status = 'APPROVED' " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.start = (" +
+            "      select max(lb.start) from ArchivedBooking lb" +
+            "       where lb.item.id = b.item.id" +
+            "         and lb.status = 'APPROVED'" +
+            "         and lb.booker.deletedAt is null)")
+    List<ArchivedBooking> findLastApprovedBookingsByItemIds(Collection<Long> itemIds);
+
+    boolean existsByBookerIdAndItemIdAndStatus(Long bookerId, Long itemId, Status status);
+
+    @Query("select b.id from ArchivedBooking b where b.booker.id = ?1")
+    List<Long> findIdsByBookerId(Long bookerId, Pageable pageable);
+
+    @Query("select b.id from ArchivedBooking b where b.item.owner.id = ?1")
+    List<Long> findIdsByOwnerId(Long ownerId, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ArchivedBooking b where b.id in ?1")
+    int deleteAllByIds(Collection<Long> bookingIds);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new ru.practicum.shareit.booking.dto.BookingExportDto(b.id, b.item.id, b.start, b.end, " +
+            "       b.booker.id, b.status) " +
+            "from ArchivedBooking b " +
+            "where b.item.owner.id = ?1 " +
+            "order by b.item.id, b.start, b.id")
+    Stream<BookingExportDto> streamExportBookingsByOwnerId(Long ownerId);
+}
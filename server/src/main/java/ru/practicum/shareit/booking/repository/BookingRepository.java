@@ -3,46 +3,334 @@ package ru.practicum.shareit.booking.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
 import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface BookingRepository extends JpaRepository<Booking, Long> {
 
-    Page<Booking> findByBookerId(Long bookerId, Pageable pageable);
+    Page<Booking> findByBookerIdAndItemOwnerDeletedAtIsNull(Long bookerId, Pageable pageable);
+
+    /**
+     * The booking unless its booker or the owner of its item is deleted.
+     */
+    @Query("select b from Booking b " +
+            "where b.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.item.owner.deletedAt is null")
+    Optional<Booking> findActiveById(Long bookingId);
+
+    @Query("select b from Booking b " +
+            "  join fetch b.item i " +
+            "where b.id in ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and i.owner.deletedAt is null")
+    List<Booking> findAllWithItemByIdIn(Collection<Long> bookingIds);
+
+    /**
+     * Bookings that block their period: approved bookings and holds that have not expired by {@code dateTime}.
+     */
+    @Query("select b from Booking b " +
+            "where b.item.id in ?1 " +
+            "  and (b.status = 'APPROVED' or (b.status = 'HOLD' and b.holdUntil > ?4)) " +
+            "  and b.start < ?3 " +
+            "  and b.end > ?2")
+    List<Booking> findBlockingBookingsByItemIdsOverlapping(Collection<Long> itemIds, LocalDateTime start,
+                                                           LocalDateTime end, LocalDateTime dateTime);
+
+    @Query("select b from Booking b " +
+            "where b.item.id = ?1 " +
+            "  and b.status = 'HOLD' " +
+            "  and b.holdUntil > ?4 " +
+            "  and b.start < ?3 " +
+            "  and b.end > ?2")
+    List<Booking> findActiveHoldsOverlapping(Long itemId, LocalDateTime start, LocalDateTime end,
+                                             LocalDateTime dateTime);
+
+    List<Booking> findAllByStatus(Status status);
+
+    /**
+     * Periods taken on the item within the window, ordered by start: bookings in one of {@code statuses} and holds
+     * that have not expired by {@code dateTime}.
+     */
+    @Query("select new ru.practicum.shareit.item.dto.AvailabilityIntervalDto(b.start, b.end) " +
+            "from Booking b " +
+            "where b.item.id = ?1 " +
+            "  and (b.status in ?4 or (b.status = 'HOLD' and b.holdUntil > ?5)) " +
+            "  and b.start < ?3 " +
+            "  and b.end > ?2 " +
+            "order by b.start")
+    List<AvailabilityIntervalDto> findBusyIntervalsByItemIdOverlapping(Long itemId, LocalDateTime from,
+                                                                       LocalDateTime to, Collection<Status> statuses,
+                                                                       LocalDateTime dateTime);
+
+    /**
+     * Approved bookings of an item never overlap, so the one starting last before {@code end} is the only
+     * candidate for an overlap with a period ending at {@code end}: a single backward seek on
+     * (item_id, status, start_date).
+     */
+    Optional<Booking> findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(Long itemId, Status status,
+                                                                               LocalDateTime end);
+
+    Page<Booking> findByBookerIdAndStatusAndItemOwnerDeletedAtIsNull(Long bookerId, Status status, Pageable pageable);
+
+    Page<Booking> findByBookerIdAndStartIsBeforeAndEndIsAfterAndItemOwnerDeletedAtIsNull(Long bookerId,
+                                                                                           LocalDateTime start,
+                                                                                           LocalDateTime end,
+                                                                                           Pageable pageable);
+
+    Page<Booking> findByBookerIdAndStatusAndEndIsBeforeAndItemOwnerDeletedAtIsNull(Long bookerId, Status status,
+                                                                                     LocalDateTime end,
+                                                                                     Pageable pageable);
+
+    Page<Booking> findByBookerIdAndStatusInAndStartIsAfterAndItemOwnerDeletedAtIsNull(Long bookerId,
+                                                                                        List<Status> statuses,
+                                                                                        LocalDateTime start,
+                                                                                        Pageable pageable);
+
+    @Query("select b from Booking b " +
+            "  join b.item i " +
+            "where i.owner.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findAllBookingsByOwner(Long ownerId, Pageable pageable);
+
+    @Query("select b from Booking b " +
+            "  join b.item i " +
+            "where i.owner.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.status = ?2 " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findBookingsByOwnerAndStatus(Long ownerId, Status status, Pageable pageable);
+
+    @Query("select b from Booking b " +
+            "  join b.item i " +
+            "where i.owner.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.start < ?2 " +
+            "  and b.end > ?2 " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findCurrentBookingsByOwner(Long ownerId, LocalDateTime dateTime, Pageable pageable);
+
+    @Query("select b from Booking b " +
+            "  join b.item i " +
+            "where i.owner.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.status = 'APPROVED' " +
+            "  and b.end < ?2 " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findPastBookingsByOwner(Long ownerId, LocalDateTime dateTime, Pageable pageable);
+
+    @Query("select b from Booking b " +
+            "  join b.item i " +
+            "where i.owner.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.status in ('APPROVED', 'WAITING') " +
+            "  and b.start > ?2 " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findFutureBookingsByOwner(Long ownerId, LocalDateTime dateTime, Pageable pageable);
+
+    /**
+     * The "...From" queries count the bookings of a list that started at or after the given moment, so an offset
+     * page can be located relative to the archive cutoff.
+     */
+    @Query("select count(b) from Booking b " +
+            "where b.booker.id = ?1 " +
+            "  and b.item.owner.deletedAt is null " +
+            "  and b.start >= ?2")
+    long countBookingsByBookerFrom(Long bookerId, LocalDateTime start);
+
+    @Query("select count(b) from Booking b " +
+            "where b.booker.id = ?1 " +
+            "  and b.item.owner.deletedAt is null " +
+            "  and b.status = ?2 " +
+            "  and b.start >= ?3")
+    long countBookingsByBookerAndStatusFrom(Long bookerId, Status status, LocalDateTime start);
+
+    @Query("select count(b) from Booking b " +
+            "where b.booker.id = ?1 " +
+            "  and b.item.owner.deletedAt is null " +
+            "  and b.status = 'APPROVED' " +
+            "  and b.end < ?2 " +
+            "  and b.start >= ?3")
+    long countPastBookingsByBookerFrom(Long bookerId, LocalDateTime dateTime, LocalDateTime start);
+
+    @Query("select count(b) from Booking b " +
+            "  join b.item i " +
+            "where i.owner.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.start >= ?2")
+    long countBookingsByOwnerFrom(Long ownerId, LocalDateTime start);
+
+    @Query("select count(b) from Booking b " +
+            "  join b.item i " +
+            "where i.owner.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.status = ?2 " +
+            "  and b.start >= ?3")
+    long countBookingsByOwnerAndStatusFrom(Long ownerId, Status status, LocalDateTime start);
 
-    Page<Booking> findByBookerIdAndStatus(Long bookerId, Status status, Pageable pageable);
+    @Query("select count(b) from Booking b " +
+            "  join b.item i " +
+            "where i.owner.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.status = 'APPROVED' " +
+            "  and b.end < ?2 " +
+            "  and b.start >= ?3")
+    long countPastBookingsByOwnerFrom(Long ownerId, LocalDateTime dateTime, LocalDateTime start);
+
+    /**
+     * The "...Before" queries return keyset pages: the bookings that follow the booking with the given start and
+     * id in the (start desc, id desc) order, so a page costs the same at any depth.
+     */
+    @Query("select b from Booking b " +
+            "where b.booker.id = ?1 " +
+            "  and b.item.owner.deletedAt is null " +
+            "  and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findBookingsByBookerBefore(Long bookerId, LocalDateTime start, Long id,
+                                             Pageable pageable);
+
+    @Query("select b from Booking b " +
+            "where b.booker.id = ?1 " +
+            "  and b.item.owner.deletedAt is null " +
+            "  and b.status = ?2 " +
+            "  and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findBookingsByBookerAndStatusBefore(Long bookerId, Status status, LocalDateTime start, Long id,
+                                                      Pageable pageable);
+
+    @Query("select b from Booking b " +
+            "where b.booker.id = ?1 " +
+            "  and b.item.owner.deletedAt is null " +
+            "  and b.start < ?2 " +
+            "  and b.end > ?2 " +
+            "  and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findCurrentBookingsByBookerBefore(Long bookerId, LocalDateTime dateTime, LocalDateTime start, Long id,
+                                                    Pageable pageable);
+
+    @Query("select b from Booking b " +
+            "where b.booker.id = ?1 " +
+            "  and b.item.owner.deletedAt is null " +
+            "  and b.status = 'APPROVED' " +
+            "  and b.end < ?2 " +
+            "  and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findPastBookingsByBookerBefore(Long bookerId, LocalDateTime dateTime, LocalDateTime start, Long id,
+                                                 Pageable pageable);
+
+    @Query("select b from Booking b " +
+            "where b.booker.id = ?1 " +
+            "  and b.item.owner.deletedAt is null " +
+            "  and b.status in ('APPROVED', 'WAITING') " +
+            "  and b.start > ?2 " +
+            "  and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findFutureBookingsByBookerBefore(Long bookerId, LocalDateTime dateTime, LocalDateTime start, Long id,
+                                                   Pageable pageable);
+
+    @Query("select b from Booking b " +
+            "  join b.item i " +
+            "where i.owner.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and (b.start < ?2 or (b.start = ?2 and b.id < ?3)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findBookingsByOwnerBefore(Long ownerId, LocalDateTime start, Long id,
+                                            Pageable pageable);
 
-    Page<Booking> findByBookerIdAndStartIsBeforeAndEndIsAfter(Long bookerId, LocalDateTime start, LocalDateTime end,
-                                                              Pageable pageable);
+    @Query("select b from Booking b " +
+            "  join b.item i " +
+            "where i.owner.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.status = ?2 " +
+            "  and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findBookingsByOwnerAndStatusBefore(Long ownerId, Status status, LocalDateTime start, Long id,
+                                                     Pageable pageable);
 
-    Page<Booking> findByBookerIdAndStatusAndEndIsBefore(Long bookerId, Status status, LocalDateTime end,
-                                                        Pageable pageable);
+    @Query("select b from Booking b " +
+            "  join b.item i " +
+            "where i.owner.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.start < ?2 " +
+            "  and b.end > ?2 " +
+            "  and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findCurrentBookingsByOwnerBefore(Long ownerId, LocalDateTime dateTime, LocalDateTime start, Long id,
+                                                   Pageable pageable);
 
-    Page<Booking> findByBookerIdAndStatusInAndStartIsAfter(Long bookerId, List<Status> statuses, LocalDateTime start,
-                                                           Pageable pageable);
+    @Query("select b from Booking b " +
+            "  join b.item i " +
+            "where i.owner.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.status = 'APPROVED' " +
+            "  and b.end < ?2 " +
+            "  and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findPastBookingsByOwnerBefore(Long ownerId, LocalDateTime dateTime, LocalDateTime start, Long id,
+                                                Pageable pageable);
+
+    @Query("select b from Booking b " +
+            "  join b.item i " +
+            "where i.owner.id = ?1 " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.status in ('APPROVED', 'WAITING') " +
+            "  and b.start > ?2 " +
+            "  and (b.start < ?3 or (b.start = ?3 and b.id < ?4)) " +
+            "order by b.start desc, b.id desc")
+    List<Booking> findFutureBookingsByOwnerBefore(Long ownerId, LocalDateTime dateTime, LocalDateTime start, Long id,
+                                                  Pageable pageable);
+
+    @Query("select b from Booking b " +
+            "where b.item.id in ?1 " +
+            "  and b.status = 'APPROVED' " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.start = (" +
+            "      select max(lb.start) from Booking lb" +
+            "       where lb.item.id = b.item.id" +
+            "         and lb.status = 'APPROVED'" +
+            "         and lb.booker.deletedAt is null" +
+            "         and lb.start < ?2)")
+    List<Booking> findLastApprovedBookingsByItemIds(Collection<Long> itemIds, LocalDateTime dateTime);
 
     @Query("select b from Booking b " +
-            "where b.item.id in (" +
-            "      select i.id from Item i" +
-            "       where i.owner.id = ?1) " +
-            "order by b.start desc")
-    Page<Booking> findAllBookingsByOwner(Long ownerIds, Pageable pageable);
+            "where b.item.id in ?1 " +
+            "  and b.status = 'APPROVED' " +
+            "  and b.booker.deletedAt is null " +
+            "  and b.start = (" +
+            "      select min(nb.start) from Booking nb" +
+            "       where nb.item.id = b.item.id" +
+            "         and nb.status = 'APPROVED'" +
+            "         and nb.booker.deletedAt is null" +
+            "         and nb.start > ?2)")
+    List<Booking> findNextApprovedBookingsByItemIds(Collection<Long> itemIds, LocalDateTime dateTime);
 
     @Query("select b from Booking b " +
-            "where b.item.id in (" +
-            "      select i.id from Item i" +
-            "       where i.owner.id = ?1) " +
-            "  and b.status in ?2 " +
-            " order by b.start desc")
-    Page<Booking> findAllBookingsByOwner(Long ownerId, List<Status> statuses, Pageable pageable);
+            "where b.item.id in ?1 " +
+            "  and b.status = 'APPROVED' " +
+            "  and b.booker.deletedAt is null")
+    List<Booking> findApprovedBookingsByItemIds(Collection<Long> itemIds);
 
-    List<Booking> findAllBookingsByItemId(Long itemId);
+    @Query("select distinct b.item.id from Booking b " +
+            "where b.status = 'APPROVED' " +
+            "  and b.end > ?1")
+    List<Long> findItemIdsWithApprovedBookingsEndingAfter(LocalDateTime dateTime, Pageable pageable);
 
     @Query("select b from Booking b " +
             "where b.booker.id = ?1 " +
@@ -50,4 +338,33 @@ public interface BookingRepository extends JpaRepository<Booking, Long> {
             "  and b.status = 'APPROVED' " +
             "  and b.start < ?3")
     List<Booking> findPastAndCurrentActiveBookingsByBookerIdAndItemId(Long userId, Long itemId, LocalDateTime dateTime);
+
+    @Query("select b.id from Booking b " +
+            "where b.end < ?1 " +
+            "order by b.id")
+    List<Long> findIdsEndedBefore(LocalDateTime dateTime, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Booking b " +
+            "where b.id in ?1 " +
+            "  and b.end < ?2")
+    int deleteAllEndedBefore(Collection<Long> bookingIds, LocalDateTime dateTime);
+
+    @Query("select b.id from Booking b where b.booker.id = ?1")
+    List<Long> findIdsByBookerId(Long bookerId, Pageable pageable);
+
+    @Query("select b.id from Booking b where b.item.owner.id = ?1")
+    List<Long> findIdsByOwnerId(Long ownerId, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Booking b where b.id in ?1")
+    int deleteAllByIds(Collection<Long> bookingIds);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select new ru.practicum.shareit.booking.dto.BookingExportDto(b.id, b.item.id, b.start, b.end, " +
+            "       b.booker.id, b.status) " +
+            "from Booking b " +
+            "where b.item.owner.id = ?1 " +
+            "order by b.item.id, b.start, b.id")
+    Stream<BookingExportDto> streamExportBookingsByOwnerId(Long ownerId);
 }
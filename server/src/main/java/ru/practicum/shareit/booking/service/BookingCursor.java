@@ -0,0 +1,64 @@
+package ru.practicum.shareit.booking.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.booking.model.Booking;
+
+import javax.validation.ValidationException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * Position in a booking list ordered by start and id, both descending. Clients get it as an opaque
+ * URL-safe string and pass it back to continue the list right after the booking it was made from.
+ */
+@Slf4j
+final class BookingCursor {
+
+    private static final BookingCursor FIRST = new BookingCursor(LocalDateTime.of(9999, 12, 31, 23, 59, 59),
+            Long.MAX_VALUE);
+    private static final char SEPARATOR = ',';
+
+    private final LocalDateTime start;
+    private final Long id;
+
+    private BookingCursor(LocalDateTime start, Long id) {
+        this.start = start;
+        this.id = id;
+    }
+
+    LocalDateTime getStart() {
+        return start;
+    }
+
+    Long getId() {
+        return id;
+    }
+
+    static String encode(Booking booking) {
+        String value = booking.getStart().toString() + SEPARATOR + booking.getId();
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the position the cursor points at; an empty cursor points before the first booking.
+     */
+    static BookingCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return FIRST;
+        }
+
+        try {
+            String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separatorIndex = value.lastIndexOf(SEPARATOR);
+
+            return new BookingCursor(LocalDateTime.parse(value.substring(0, separatorIndex)),
+                    Long.parseLong(value.substring(separatorIndex + 1)));
+        } catch (IllegalArgumentException | IndexOutOfBoundsException | DateTimeParseException e) {
+            String errorMessage = String.format("Некорректное значение параметра cursor: %s!", cursor);
+            log.warn(errorMessage);
+            throw new ValidationException(errorMessage);
+        }
+    }
+}
@@ -1,8 +1,12 @@
 package ru.practicum.shareit.booking.service;
 
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
 
 import java.util.List;
 
@@ -11,11 +15,21 @@ public interface BookingService {
 
     BookingDto add(BookingInputDto bookingInputDto, Long userId);
 
+    BookingDto hold(BookingInputDto bookingInputDto, Long userId);
+
     BookingDto updateStatus(Long bookingId, Boolean approved, Long userId);
 
+    List<BookingBatchResultDto> updateStatuses(List<BookingStatusUpdateDto> updates, Long userId);
+
     BookingDto get(Long bookingId, Long userId);
 
     List<BookingDto> getAllBookingsByUserId(String state, Integer from, Integer size, Long userId);
 
     List<BookingDto> getAllBookingsForUserItems(String state, Integer from, Integer size, Long userId);
+
+    BookingPageDto getBookingsPageByUserId(String state, String cursor, Integer size, Long userId);
+
+    BookingPageDto getBookingsPageForUserItems(String state, String cursor, Integer size, Long userId);
+
+    SseEmitter subscribeToBookingEvents(Long userId);
 }
@@ -6,27 +6,47 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.archive.BookingArchive;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
+import ru.practicum.shareit.booking.event.BookingEventPublisher;
+import ru.practicum.shareit.booking.hold.BookingHolds;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingEventType;
 import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingTimeline;
 import ru.practicum.shareit.common.service.ConsistencyService;
 import ru.practicum.shareit.common.util.PageRequestUtils;
 import ru.practicum.shareit.exception.BookingNotFoundException;
 import ru.practicum.shareit.exception.NotAvailableForBookingException;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
-import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.model.User;
 
 import javax.validation.ValidationException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static ru.practicum.shareit.booking.model.Status.APPROVED;
+import static ru.practicum.shareit.booking.model.Status.HOLD;
 import static ru.practicum.shareit.booking.model.Status.REJECTED;
 import static ru.practicum.shareit.booking.model.Status.WAITING;
 
@@ -37,32 +57,31 @@ public class BookingServiceImpl implements BookingService {
 
     private final BookingRepository bookingRepository;
     private final ItemRepository itemRepository;
-    private final UserRepository userRepository;
     private final BookingMapper bookingMapper;
     private final ConsistencyService consistencyService;
+    private final BookingTimeline bookingTimeline;
+    private final ItemLocks itemLocks;
+    private final BookingEventPublisher bookingEventPublisher;
+    private final BookingArchive bookingArchive;
+    private final BookingHolds bookingHolds;
 
     @Transactional
     @Override
     public BookingDto add(BookingInputDto bookingInputDto, Long userId) {
-        consistencyService.checkUserExistence(userId);
-        consistencyService.checkItemExistence(bookingInputDto);
-
-        validateBookingInputDto(bookingInputDto, userId);
-        Booking booking = bookingMapper.toBooking(bookingInputDto);
-
-        booking.setStatus(Status.WAITING);
-        booking.setItem(itemRepository.getReferenceById(bookingInputDto.getItemId()));
-        booking.setBooker(userRepository.getReferenceById(userId));
+        return create(bookingInputDto, userId, false);
+    }
 
-        return bookingMapper.toBookingDto(bookingRepository.save(booking));
+    @Transactional
+    @Override
+    public BookingDto hold(BookingInputDto bookingInputDto, Long userId) {
+        return create(bookingInputDto, userId, true);
     }
 
     @Transactional
     @Override
     public BookingDto updateStatus(Long bookingId, Boolean approved, Long userId) {
         consistencyService.checkUserExistence(userId);
-        consistencyService.checkBookingExistence(bookingId);
-        Booking booking = bookingRepository.getReferenceById(bookingId);
+        Booking booking = consistencyService.getBooking(bookingId);
 
         if (!isOwner(userId, booking)) {
             String errorMessage = String.format("Статус бронирования может изменить только владелец вещи с id = %d!",
@@ -71,9 +90,11 @@ public class BookingServiceImpl implements BookingService {
             throw new BookingNotFoundException(errorMessage);
         }
 
-        if (WAITING.equals(booking.getStatus()) && approved) {
+        if (isPending(booking) && approved) {
+            lockItem(booking.getItem().getId());
+            checkOverlap(booking.getItem().getId(), booking.getId(), booking.getStart(), booking.getEnd());
             booking.setStatus(APPROVED);
-        } else if (WAITING.equals(booking.getStatus())) {
+        } else if (isPending(booking)) {
             booking.setStatus(REJECTED);
         } else {
             String errorMessage = String.format("Невозможно изменить статус для бронирования с id = %d!", bookingId);
@@ -81,16 +102,88 @@ public class BookingServiceImpl implements BookingService {
             throw new ValidationException(errorMessage);
         }
 
-        return bookingMapper.toBookingDto(bookingRepository.save(booking));
+        Booking savedBooking = bookingRepository.saveAndFlush(booking);
+        bookingTimeline.update(savedBooking);
+        bookingEventPublisher.publish(savedBooking, APPROVED.equals(savedBooking.getStatus())
+                ? BookingEventType.APPROVED : BookingEventType.REJECTED);
+
+        return bookingMapper.toBookingDto(savedBooking);
+    }
+
+    @Transactional
+    @Override
+    public List<BookingBatchResultDto> updateStatuses(List<BookingStatusUpdateDto> updates, Long userId) {
+        consistencyService.checkUserExistence(userId);
+
+        if (updates == null || updates.isEmpty()) {
+            String errorMessage = "Список бронирований для изменения статуса не должен быть пустым!";
+            log.warn(errorMessage);
+            throw new ValidationException(errorMessage);
+        }
+
+        Set<Long> bookingIds = updates.stream()
+                .map(BookingStatusUpdateDto::getBookingId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Map<Long, Booking> bookingsById = bookingIds.isEmpty() ? Map.of()
+                : bookingRepository.findAllWithItemByIdIn(bookingIds).stream()
+                .collect(Collectors.toMap(Booking::getId, Function.identity()));
+
+        List<BookingBatchResultDto> results = new ArrayList<>(updates.size());
+        Map<Long, BookingBatchResultDto> approvals = new LinkedHashMap<>();
+        Map<Long, BookingBatchResultDto> changes = new LinkedHashMap<>();
+        Set<Long> seenBookingIds = new HashSet<>();
+
+        for (BookingStatusUpdateDto update : updates) {
+            Booking booking = bookingsById.get(update.getBookingId());
+            BookingBatchResultDto result = new BookingBatchResultDto(update.getBookingId(),
+                    booking == null ? null : booking.getStatus(),
+                    validateStatusUpdate(update, booking, seenBookingIds, userId));
+
+            if (result.getError() == null && update.getApproved()) {
+                approvals.put(booking.getId(), result);
+            } else if (result.getError() == null) {
+                booking.setStatus(REJECTED);
+                changes.put(booking.getId(), result);
+            }
+
+            results.add(result);
+        }
+
+        approveAll(approvals, bookingsById, changes);
+
+        List<Booking> changedBookings = changes.keySet().stream()
+                .map(bookingsById::get)
+                .collect(Collectors.toList());
+        bookingRepository.saveAll(changedBookings);
+        bookingRepository.flush();
+
+        changes.forEach((bookingId, result) -> {
+            Booking booking = bookingsById.get(bookingId);
+            result.setStatus(booking.getStatus());
+            bookingTimeline.update(booking);
+            bookingEventPublisher.publish(booking, APPROVED.equals(booking.getStatus())
+                    ? BookingEventType.APPROVED : BookingEventType.REJECTED);
+        });
+
+        log.info("Пользователь с id = {} изменил статус {} бронирований из {}", userId, changes.size(),
+                updates.size());
+
+        return results;
     }
 
     @Transactional(readOnly = true)
     @Override
     public BookingDto get(Long bookingId, Long userId) {
         consistencyService.checkUserExistence(userId);
-        consistencyService.checkBookingExistence(bookingId);
 
-        Booking booking = bookingRepository.getReferenceById(bookingId);
+        Booking booking = bookingRepository.findActiveById(bookingId)
+                .or(() -> bookingArchive.findActiveById(bookingId))
+                .orElseThrow(() -> {
+                    String errorMessage = String.format("Бронирование с id = %d не найдено!", bookingId);
+                    log.warn(errorMessage);
+                    return new BookingNotFoundException(errorMessage);
+                });
 
         if (!isBooker(userId, booking) && !isOwner(userId, booking)) {
             String errorMessage = String.format("У пользователя с id = %d нет прав для просмотра информации " +
@@ -99,7 +192,7 @@ public class BookingServiceImpl implements BookingService {
             throw new BookingNotFoundException(errorMessage);
         }
 
-        return bookingMapper.toBookingDto(bookingRepository.getReferenceById(bookingId));
+        return bookingMapper.toBookingDto(booking);
     }
 
     @Transactional(readOnly = true)
@@ -114,30 +207,47 @@ public class BookingServiceImpl implements BookingService {
 
         switch (State.valueOf(state)) {
             case CURRENT:
-                return bookingRepository.findByBookerIdAndStartIsBeforeAndEndIsAfter(userId, dateTime, dateTime,
-                                pageRequest).stream()
+                return bookingRepository.findByBookerIdAndStartIsBeforeAndEndIsAfterAndItemOwnerDeletedAtIsNull(userId,
+                                dateTime, dateTime, pageRequest).stream()
                         .map(bookingMapper::toBookingDto)
                         .collect(Collectors.toList());
             case PAST:
-                return bookingRepository.findByBookerIdAndStatusAndEndIsBefore(userId, APPROVED, dateTime,
-                                pageRequest).stream()
+                return bookingArchive.complete(pageRequest,
+                                window -> bookingRepository
+                                        .findByBookerIdAndStatusAndEndIsBeforeAndItemOwnerDeletedAtIsNull(userId,
+                                                APPROVED, dateTime, window)
+                                        .getContent(),
+                                cutoff -> bookingRepository.countPastBookingsByBookerFrom(userId, dateTime, cutoff),
+                                window -> bookingArchive.findBookingsByBooker(userId, List.of(APPROVED), window))
+                        .stream()
                         .map(bookingMapper::toBookingDto)
                         .collect(Collectors.toList());
             case FUTURE:
-                return bookingRepository.findByBookerIdAndStatusInAndStartIsAfter(userId, List.of(APPROVED, WAITING),
-                                dateTime, pageRequest).stream()
+                return bookingRepository.findByBookerIdAndStatusInAndStartIsAfterAndItemOwnerDeletedAtIsNull(userId,
+                                List.of(APPROVED, WAITING), dateTime, pageRequest).stream()
                         .map(bookingMapper::toBookingDto)
                         .collect(Collectors.toList());
             case WAITING:
-                return bookingRepository.findByBookerIdAndStatus(userId, Status.WAITING, pageRequest).stream()
-                        .map(bookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
+            case HOLD:
             case REJECTED:
-                return bookingRepository.findByBookerIdAndStatus(userId, Status.REJECTED, pageRequest).stream()
+                Status status = Status.valueOf(state);
+                return bookingArchive.complete(pageRequest,
+                                window -> bookingRepository
+                                        .findByBookerIdAndStatusAndItemOwnerDeletedAtIsNull(userId, status, window)
+                                        .getContent(),
+                                cutoff -> bookingRepository.countBookingsByBookerAndStatusFrom(userId, status, cutoff),
+                                window -> bookingArchive.findBookingsByBooker(userId, List.of(status), window))
+                        .stream()
                         .map(bookingMapper::toBookingDto)
                         .collect(Collectors.toList());
             default:
-                return bookingRepository.findByBookerId(userId, pageRequest).stream()
+                return bookingArchive.complete(pageRequest,
+                                window -> bookingRepository.findByBookerIdAndItemOwnerDeletedAtIsNull(userId, window)
+                                        .getContent(),
+                                cutoff -> bookingRepository.countBookingsByBookerFrom(userId, cutoff),
+                                window -> bookingArchive.findBookingsByBooker(userId, EnumSet.allOf(Status.class),
+                                        window))
+                        .stream()
                         .map(bookingMapper::toBookingDto)
                         .collect(Collectors.toList());
         }
@@ -154,53 +264,323 @@ public class BookingServiceImpl implements BookingService {
 
         switch (State.valueOf(state)) {
             case CURRENT:
-                return bookingRepository.findAllBookingsByOwner(userId, pageRequest).stream()
-                        .filter(booking -> booking.getStart().isBefore(dateTime) && booking.getEnd().isAfter(dateTime))
+                return bookingRepository.findCurrentBookingsByOwner(userId, dateTime, pageRequest).stream()
                         .map(bookingMapper::toBookingDto)
                         .collect(Collectors.toList());
             case PAST:
-                return bookingRepository.findAllBookingsByOwner(userId, List.of(APPROVED), pageRequest).stream()
-                        .filter(booking -> booking.getEnd().isBefore(dateTime))
+                return bookingArchive.complete(pageRequest,
+                                window -> bookingRepository.findPastBookingsByOwner(userId, dateTime, window),
+                                cutoff -> bookingRepository.countPastBookingsByOwnerFrom(userId, dateTime, cutoff),
+                                window -> bookingArchive.findBookingsByOwner(userId, List.of(APPROVED), window))
+                        .stream()
                         .map(bookingMapper::toBookingDto)
                         .collect(Collectors.toList());
             case FUTURE:
-                return bookingRepository.findAllBookingsByOwner(userId, List.of(APPROVED, WAITING), pageRequest).stream()
-                        .filter(booking -> booking.getStart().isAfter(dateTime))
+                return bookingRepository.findFutureBookingsByOwner(userId, dateTime, pageRequest).stream()
                         .map(bookingMapper::toBookingDto)
                         .collect(Collectors.toList());
             case WAITING:
-                return bookingRepository.findAllBookingsByOwner(userId, List.of(WAITING), pageRequest).stream()
-                        .map(bookingMapper::toBookingDto)
-                        .collect(Collectors.toList());
+            case HOLD:
             case REJECTED:
-                return bookingRepository.findAllBookingsByOwner(userId, List.of(REJECTED), pageRequest).stream()
+                Status status = Status.valueOf(state);
+                return bookingArchive.complete(pageRequest,
+                                window -> bookingRepository.findBookingsByOwnerAndStatus(userId, status, window),
+                                cutoff -> bookingRepository.countBookingsByOwnerAndStatusFrom(userId, status, cutoff),
+                                window -> bookingArchive.findBookingsByOwner(userId, List.of(status), window))
+                        .stream()
                         .map(bookingMapper::toBookingDto)
                         .collect(Collectors.toList());
             default:
-                return bookingRepository.findAllBookingsByOwner(userId, pageRequest).stream()
+                return bookingArchive.complete(pageRequest,
+                                window -> bookingRepository.findAllBookingsByOwner(userId, window),
+                                cutoff -> bookingRepository.countBookingsByOwnerFrom(userId, cutoff),
+                                window -> bookingArchive.findBookingsByOwner(userId, EnumSet.allOf(Status.class),
+                                        window))
+                        .stream()
                         .map(bookingMapper::toBookingDto)
                         .collect(Collectors.toList());
         }
     }
 
+    @Transactional(readOnly = true)
+    @Override
+    public BookingPageDto getBookingsPageByUserId(String state, String cursor, Integer size, Long userId) {
+        consistencyService.checkUserExistence(userId);
+        consistencyService.checkStateExistence(state);
+
+        LocalDateTime dateTime = LocalDateTime.now();
+        BookingCursor position = BookingCursor.decode(cursor);
+        int pageSize = PageRequestUtils.getPageSize(size);
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+        List<Booking> bookings;
+
+        switch (State.valueOf(state)) {
+            case CURRENT:
+                bookings = bookingRepository.findCurrentBookingsByBookerBefore(userId, dateTime, position.getStart(),
+                        position.getId(), pageRequest);
+                break;
+            case PAST:
+                bookings = bookingArchive.complete(pageRequest,
+                        window -> bookingRepository.findPastBookingsByBookerBefore(userId, dateTime,
+                                position.getStart(), position.getId(), window),
+                        window -> bookingArchive.findBookingsByBookerBefore(userId, List.of(APPROVED),
+                                position.getStart(), position.getId(), window));
+                break;
+            case FUTURE:
+                bookings = bookingRepository.findFutureBookingsByBookerBefore(userId, dateTime, position.getStart(),
+                        position.getId(), pageRequest);
+                break;
+            case WAITING:
+            case HOLD:
+            case REJECTED:
+                Status status = Status.valueOf(state);
+                bookings = bookingArchive.complete(pageRequest,
+                        window -> bookingRepository.findBookingsByBookerAndStatusBefore(userId, status,
+                                position.getStart(), position.getId(), window),
+                        window -> bookingArchive.findBookingsByBookerBefore(userId, List.of(status),
+                                position.getStart(), position.getId(), window));
+                break;
+            default:
+                bookings = bookingArchive.complete(pageRequest,
+                        window -> bookingRepository.findBookingsByBookerBefore(userId, position.getStart(),
+                                position.getId(), window),
+                        window -> bookingArchive.findBookingsByBookerBefore(userId, EnumSet.allOf(Status.class),
+                                position.getStart(), position.getId(), window));
+        }
+
+        return toBookingPageDto(bookings, pageSize);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public BookingPageDto getBookingsPageForUserItems(String state, String cursor, Integer size, Long userId) {
+        consistencyService.checkUserExistence(userId);
+        consistencyService.checkStateExistence(state);
+
+        LocalDateTime dateTime = LocalDateTime.now();
+        BookingCursor position = BookingCursor.decode(cursor);
+        int pageSize = PageRequestUtils.getPageSize(size);
+        PageRequest pageRequest = PageRequest.of(0, pageSize + 1);
+        List<Booking> bookings;
+
+        switch (State.valueOf(state)) {
+            case CURRENT:
+                bookings = bookingRepository.findCurrentBookingsByOwnerBefore(userId, dateTime, position.getStart(),
+                        position.getId(), pageRequest);
+                break;
+            case PAST:
+                bookings = bookingArchive.complete(pageRequest,
+                        window -> bookingRepository.findPastBookingsByOwnerBefore(userId, dateTime,
+                                position.getStart(), position.getId(), window),
+                        window -> bookingArchive.findBookingsByOwnerBefore(userId, List.of(APPROVED),
+                                position.getStart(), position.getId(), window));
+                break;
+            case FUTURE:
+                bookings = bookingRepository.findFutureBookingsByOwnerBefore(userId, dateTime, position.getStart(),
+                        position.getId(), pageRequest);
+                break;
+            case WAITING:
+            case HOLD:
+            case REJECTED:
+                Status status = Status.valueOf(state);
+                bookings = bookingArchive.complete(pageRequest,
+                        window -> bookingRepository.findBookingsByOwnerAndStatusBefore(userId, status,
+                                position.getStart(), position.getId(), window),
+                        window -> bookingArchive.findBookingsByOwnerBefore(userId, List.of(status),
+                                position.getStart(), position.getId(), window));
+                break;
+            default:
+                bookings = bookingArchive.complete(pageRequest,
+                        window -> bookingRepository.findBookingsByOwnerBefore(userId, position.getStart(),
+                                position.getId(), window),
+                        window -> bookingArchive.findBookingsByOwnerBefore(userId, EnumSet.allOf(Status.class),
+                                position.getStart(), position.getId(), window));
+        }
+
+        return toBookingPageDto(bookings, pageSize);
+    }
+
+    @Override
+    public SseEmitter subscribeToBookingEvents(Long userId) {
+        consistencyService.checkUserExistence(userId);
+
+        return bookingEventPublisher.subscribe(userId);
+    }
+
+    /**
+     * Bookings are fetched one above the page size, so the extra row tells whether a next page exists without a
+     * count query.
+     */
+    private BookingPageDto toBookingPageDto(List<Booking> bookings, int pageSize) {
+        String nextCursor = null;
+
+        if (bookings.size() > pageSize) {
+            bookings = bookings.subList(0, pageSize);
+            nextCursor = BookingCursor.encode(bookings.get(pageSize - 1));
+        }
+
+        return new BookingPageDto(bookings.stream()
+                .map(bookingMapper::toBookingDto)
+                .collect(Collectors.toList()), nextCursor);
+    }
+
+    /**
+     * Serializes booking creation and approval per item, so the overlap check and the write that relies on it
+     * cannot interleave with another transaction for the same item. Requests within this instance queue on the
+     * item's lock stripe; the item row lock covers other instances.
+     */
+    private void lockItem(Long itemId) {
+        itemLocks.lock(itemId);
+        itemRepository.findByIdForUpdate(itemId);
+    }
+
+    /**
+     * Approves the bookings in start order unless they overlap a booking that is already approved or was
+     * approved earlier in the same batch. All items are locked up front and their approved bookings in the
+     * covered period are read with a single query.
+     */
+    private void approveAll(Map<Long, BookingBatchResultDto> approvals, Map<Long, Booking> bookingsById,
+                            Map<Long, BookingBatchResultDto> changes) {
+        if (approvals.isEmpty()) {
+            return;
+        }
+
+        List<Booking> bookings = approvals.keySet().stream()
+                .map(bookingsById::get)
+                .sorted(Comparator.comparing(Booking::getStart).thenComparing(Booking::getId))
+                .collect(Collectors.toList());
+
+        Set<Long> itemIds = bookings.stream()
+                .map(booking -> booking.getItem().getId())
+                .collect(Collectors.toSet());
+        LocalDateTime start = bookings.stream()
+                .map(Booking::getStart)
+                .min(Comparator.naturalOrder())
+                .orElseThrow();
+        LocalDateTime end = bookings.stream()
+                .map(Booking::getEnd)
+                .max(Comparator.naturalOrder())
+                .orElseThrow();
+
+        itemLocks.lockAll(itemIds);
+        itemRepository.findAllByIdForUpdate(itemIds);
+
+        Map<Long, List<Booking>> blockingByItemId = bookingRepository.findBlockingBookingsByItemIdsOverlapping(itemIds,
+                        start, end, LocalDateTime.now()).stream()
+                .collect(Collectors.groupingBy(booking -> booking.getItem().getId()));
+
+        for (Booking booking : bookings) {
+            List<Booking> blocking = blockingByItemId.computeIfAbsent(booking.getItem().getId(),
+                    itemId -> new ArrayList<>());
+            BookingBatchResultDto result = approvals.get(booking.getId());
+
+            blocking.stream()
+                    .filter(other -> !other.getId().equals(booking.getId())
+                            && other.getStart().isBefore(booking.getEnd())
+                            && other.getEnd().isAfter(booking.getStart()))
+                    .findFirst()
+                    .ifPresentOrElse(other -> result.setError(String.format("Вещь с id = %d уже забронирована " +
+                            "с %s по %s!", booking.getItem().getId(), other.getStart(), other.getEnd())), () -> {
+                        booking.setStatus(APPROVED);
+                        blocking.add(booking);
+                        changes.put(booking.getId(), result);
+                    });
+        }
+    }
+
+    private String validateStatusUpdate(BookingStatusUpdateDto update, Booking booking, Set<Long> seenBookingIds,
+                                        Long userId) {
+        if (update.getBookingId() == null || update.getApproved() == null) {
+            return "Не указан id бронирования (bookingId) или решение (approved)!";
+        }
+
+        if (!seenBookingIds.add(update.getBookingId())) {
+            return String.format("Бронирование с id = %d указано в запросе несколько раз!", update.getBookingId());
+        }
+
+        if (booking == null) {
+            return String.format("Бронирование с id = %d не найдено!", update.getBookingId());
+        }
+
+        if (!booking.getItem().getOwner().getId().equals(userId)) {
+            return String.format("Статус бронирования может изменить только владелец вещи с id = %d!",
+                    booking.getItem().getId());
+        }
+
+        if (!isPending(booking)) {
+            return String.format("Невозможно изменить статус для бронирования с id = %d!", booking.getId());
+        }
+
+        return null;
+    }
+
+    private BookingDto create(BookingInputDto bookingInputDto, Long userId, boolean hold) {
+        User booker = consistencyService.getUser(userId);
+
+        itemLocks.lock(bookingInputDto.getItemId());
+        Item item = consistencyService.getItemForUpdate(bookingInputDto.getItemId());
+        validateBookingInputDto(bookingInputDto, item, userId);
+        checkOverlap(item.getId(), null, bookingInputDto.getStart(), bookingInputDto.getEnd());
+
+        Booking booking = bookingMapper.toBooking(bookingInputDto);
+
+        booking.setStatus(hold ? HOLD : WAITING);
+        booking.setHoldUntil(hold ? bookingHolds.getHoldUntil(LocalDateTime.now()) : null);
+        booking.setItem(item);
+        booking.setBooker(booker);
+
+        Booking savedBooking = bookingRepository.save(booking);
+        bookingTimeline.update(savedBooking);
+        bookingEventPublisher.publish(savedBooking, BookingEventType.CREATED);
+
+        if (hold) {
+            bookingHolds.schedule(savedBooking);
+        }
+
+        return bookingMapper.toBookingDto(savedBooking);
+    }
+
+    /**
+     * A booking waits for the owner's decision while it is WAITING or held and the hold has not expired yet.
+     */
+    private boolean isPending(Booking booking) {
+        return WAITING.equals(booking.getStatus())
+                || HOLD.equals(booking.getStatus()) && booking.getHoldUntil().isAfter(LocalDateTime.now());
+    }
+
+    /**
+     * Rejects the period if it overlaps an approved booking or a hold that has not expired yet.
+     */
+    private void checkOverlap(Long itemId, Long bookingId, LocalDateTime start, LocalDateTime end) {
+        Stream.concat(bookingRepository.findFirstByItemIdAndStatusAndStartBeforeOrderByStartDesc(itemId, APPROVED, end)
+                                .stream(),
+                        bookingRepository.findActiveHoldsOverlapping(itemId, start, end, LocalDateTime.now()).stream())
+                .filter(booking -> !booking.getId().equals(bookingId) && booking.getEnd().isAfter(start))
+                .findFirst()
+                .ifPresent(booking -> {
+                    String errorMessage = String.format("Вещь с id = %d уже забронирована с %s по %s!", itemId,
+                            booking.getStart(), booking.getEnd());
+                    log.warn(errorMessage);
+                    throw new NotAvailableForBookingException(errorMessage);
+                });
+    }
+
     private boolean isOwner(Long userId, Booking booking) {
-        return itemRepository.getReferenceById(booking.getItem().getId()).getOwner().getId().equals(userId);
+        return booking.getItem().getOwner().getId().equals(userId);
     }
 
     private boolean isBooker(Long userId, Booking booking) {
         return booking.getBooker().getId().equals(userId);
     }
 
-    private void validateBookingInputDto(BookingInputDto bookingInputDto, Long userId) {
-        Item item = itemRepository.getReferenceById(bookingInputDto.getItemId());
-
+    private void validateBookingInputDto(BookingInputDto bookingInputDto, Item item, Long userId) {
         if (Boolean.FALSE.equals(item.getAvailable())) {
             String errorMessage = String.format("Вещь с id = %d недоступна для бронирования!", bookingInputDto.getItemId());
             log.warn(errorMessage);
             throw new NotAvailableForBookingException(errorMessage);
         }
 
-        if (itemRepository.getReferenceById(bookingInputDto.getItemId()).getOwner().getId().equals(userId)) {
+        if (item.getOwner().getId().equals(userId)) {
             String errorMessage = "Вы не можете забронировать вещь, для которой являетесь владельцем!";
             log.warn(errorMessage);
             throw new BookingNotFoundException(errorMessage);
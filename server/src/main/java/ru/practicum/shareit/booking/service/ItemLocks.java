@@ -0,0 +1,70 @@
+package ru.practicum.shareit.booking.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.common.util.TransactionUtils;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed set of locks shared by all items: an item always maps to the same stripe, so bookings of one item are
+ * serialized while bookings of different items mostly proceed in parallel, without a lock per item. A stripe
+ * that is not free within the lock timeout fails the request with {@link CannotAcquireLockException}, so one slow
+ * transaction cannot hold up every request mapped to its stripe indefinitely.
+ */
+@Component
+public class ItemLocks {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+
+    @Autowired
+    public ItemLocks(@Value("${shareit.booking.lock.stripes:64}") int stripes,
+                     @Value("${shareit.booking.lock.timeout:PT5S}") Duration timeout) {
+        this.timeoutMillis = timeout.toMillis();
+        this.stripes = new ReentrantLock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Locks the stripe of the item until the surrounding transaction commits or rolls back, so the next holder
+     * sees what this transaction wrote.
+     */
+    public void lock(Long itemId) {
+        lockStripe(Math.floorMod(itemId, stripes.length));
+    }
+
+    /**
+     * Same as {@link #lock(Long)} for several items. Stripes are always taken in ascending order, so two
+     * transactions locking overlapping sets of items cannot deadlock.
+     */
+    public void lockAll(Collection<Long> itemIds) {
+        itemIds.stream()
+                .mapToInt(itemId -> Math.floorMod(itemId, stripes.length))
+                .distinct()
+                .sorted()
+                .forEach(this::lockStripe);
+    }
+
+    private void lockStripe(int stripe) {
+        ReentrantLock lock = stripes[stripe];
+
+        try {
+            if (!lock.tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                throw new CannotAcquireLockException("Блокировка вещей не получена за " + timeoutMillis + " мс");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("Ожидание блокировки вещей прервано", e);
+        }
+
+        TransactionUtils.afterCompletion(lock::unlock);
+    }
+}
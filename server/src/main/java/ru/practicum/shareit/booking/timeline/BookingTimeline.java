@@ -0,0 +1,283 @@
+package ru.practicum.shareit.booking.timeline;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.archive.BookingArchive;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.common.util.TransactionUtils;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+import static ru.practicum.shareit.booking.model.Status.APPROVED;
+
+/**
+ * Per-item sorted view of approved bookings, used to answer "last" and "next" booking lookups without
+ * re-reading the bookings table. Timelines are loaded on first access, kept up to date from
+ * booking status transitions and evicted once idle or when the cache grows past its limit. A timeline holds the
+ * live approved bookings of its item plus the latest archived one, which is all the archive can contribute to the
+ * "last" lookup.
+ * <p>
+ * The cache is local to the instance: status transitions applied on other nodes are not seen here. Every timeline
+ * is therefore reloaded once it is older than the time-to-live, which bounds how stale a lookup can be. A timeline
+ * whose load raced with a local status transition is reloaded on the next access.
+ */
+@Slf4j
+@Component
+public class BookingTimeline {
+
+    private static final int WARM_UP_BATCH_SIZE = 500;
+    private static final int UPDATE_STRIPES = 64;
+
+    private final BookingRepository bookingRepository;
+    private final BookingArchive bookingArchive;
+    private final int maxItems;
+    private final int warmUpItems;
+    private final long idleTimeoutNanos;
+    private final long ttlNanos;
+
+    private final Map<Long, ItemTimeline> timelines = new ConcurrentHashMap<>();
+    private final AtomicLongArray updates = new AtomicLongArray(UPDATE_STRIPES);
+
+    @Autowired
+    public BookingTimeline(BookingRepository bookingRepository,
+                           BookingArchive bookingArchive,
+                           @Value("${shareit.booking.timeline.max-items:10000}") int maxItems,
+                           @Value("${shareit.booking.timeline.warm-up-items:1000}") int warmUpItems,
+                           @Value("${shareit.booking.timeline.idle-timeout:PT30M}") Duration idleTimeout,
+                           @Value("${shareit.booking.timeline.ttl:PT5M}") Duration ttl) {
+        this.bookingRepository = bookingRepository;
+        this.bookingArchive = bookingArchive;
+        this.maxItems = maxItems;
+        this.warmUpItems = warmUpItems;
+        this.idleTimeoutNanos = idleTimeout.toNanos();
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    @Transactional(readOnly = true)
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (warmUpItems <= 0) {
+            return;
+        }
+
+        List<Long> itemIds = bookingRepository.findItemIdsWithApprovedBookingsEndingAfter(LocalDateTime.now(),
+                PageRequest.of(0, Math.min(warmUpItems, maxItems)));
+
+        for (int from = 0; from < itemIds.size(); from += WARM_UP_BATCH_SIZE) {
+            List<Long> batch = itemIds.subList(from, Math.min(from + WARM_UP_BATCH_SIZE, itemIds.size()));
+            Map<Long, List<Booking>> bookingsByItemId = findApprovedBookings(batch).stream()
+                    .collect(Collectors.groupingBy(booking -> booking.getItem().getId()));
+
+            bookingsByItemId.forEach((itemId, bookings) -> timelines.putIfAbsent(itemId, new ItemTimeline(bookings)));
+        }
+
+        log.info("Загружены таймлайны бронирований для {} вещей", timelines.size());
+    }
+
+    public BookingShortDto getLastBooking(Long itemId, LocalDateTime dateTime) {
+        return getTimeline(itemId).getLast(dateTime);
+    }
+
+    public BookingShortDto getNextBooking(Long itemId, LocalDateTime dateTime) {
+        return getTimeline(itemId).getNext(dateTime);
+    }
+
+    /**
+     * Applies the saved booking to the timeline of its item once the surrounding transaction commits.
+     */
+    public void update(Booking booking) {
+        Long itemId = booking.getItem().getId();
+        Entry entry = new Entry(booking.getId(), booking.getStart(), booking.getEnd(), booking.getBooker().getId());
+        boolean approved = APPROVED.equals(booking.getStatus());
+
+        TransactionUtils.afterCommit(() -> {
+            updates.incrementAndGet(getStripe(itemId));
+            timelines.computeIfPresent(itemId, (key, timeline) -> {
+                timeline.remove(entry.getId());
+                if (approved) {
+                    timeline.add(entry);
+                }
+                return timeline;
+            });
+        });
+    }
+
+    /**
+     * Drops the timelines that hold bookings of the deleted booker once the surrounding transaction commits; they
+     * are reloaded without them on the next access. Timelines being loaded at that moment are reloaded as well.
+     */
+    public void removeBooker(Long bookerId) {
+        TransactionUtils.afterCommit(() -> {
+            for (int stripe = 0; stripe < UPDATE_STRIPES; stripe++) {
+                updates.incrementAndGet(stripe);
+            }
+            timelines.values().removeIf(timeline -> timeline.hasBooker(bookerId));
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.booking.timeline.eviction-interval:PT1M}")
+    public void evictIdle() {
+        long now = System.nanoTime();
+        timelines.values().removeIf(timeline -> now - timeline.getLastAccess() > idleTimeoutNanos);
+    }
+
+    private ItemTimeline getTimeline(Long itemId) {
+        ItemTimeline timeline = timelines.get(itemId);
+
+        if (timeline == null || timeline.isExpired(ttlNanos)) {
+            timeline = load(itemId, timeline);
+            evictExcess();
+        }
+
+        timeline.touch();
+        return timeline;
+    }
+
+    /**
+     * Reads the timeline outside the map, so a slow query does not block other items, and publishes it unless
+     * another thread got there first.
+     */
+    private ItemTimeline load(Long itemId, ItemTimeline expired) {
+        int stripe = getStripe(itemId);
+        long updatesBeforeLoad = updates.get(stripe);
+        ItemTimeline loaded = new ItemTimeline(findApprovedBookings(List.of(itemId)));
+
+        boolean published = expired == null ? timelines.putIfAbsent(itemId, loaded) == null
+                : timelines.replace(itemId, expired, loaded);
+
+        if (!published) {
+            ItemTimeline current = timelines.get(itemId);
+            return current == null ? loaded : current;
+        }
+
+        if (updates.get(stripe) != updatesBeforeLoad) {
+            loaded.expire();
+        }
+
+        return loaded;
+    }
+
+    private static int getStripe(Long itemId) {
+        return (int) (itemId & (UPDATE_STRIPES - 1));
+    }
+
+    private List<Booking> findApprovedBookings(List<Long> itemIds) {
+        List<Booking> bookings = new ArrayList<>(bookingRepository.findApprovedBookingsByItemIds(itemIds));
+        bookings.addAll(bookingArchive.findLastApprovedBookings(itemIds));
+        return bookings;
+    }
+
+    private void evictExcess() {
+        int excess = timelines.size() - maxItems;
+        if (excess <= 0) {
+            return;
+        }
+
+        timelines.entrySet().stream()
+                .sorted(Comparator.comparingLong(entry -> entry.getValue().getLastAccess()))
+                .limit(excess + maxItems / 10)
+                .map(Map.Entry::getKey)
+                .collect(Collectors.toList())
+                .forEach(timelines::remove);
+    }
+
+    private static final class ItemTimeline {
+
+        private final TreeSet<Entry> entries = new TreeSet<>(Entry.ORDER);
+        private final Map<Long, Entry> entriesById = new HashMap<>();
+        private volatile long lastAccess = System.nanoTime();
+        private volatile long loadedAt = System.nanoTime();
+
+        private ItemTimeline(List<Booking> bookings) {
+            for (Booking booking : bookings) {
+                add(new Entry(booking.getId(), booking.getStart(), booking.getEnd(), booking.getBooker().getId()));
+            }
+        }
+
+        private synchronized BookingShortDto getLast(LocalDateTime dateTime) {
+            return toBookingShortDto(entries.lower(new Entry(Long.MIN_VALUE, dateTime, null, null)));
+        }
+
+        private synchronized BookingShortDto getNext(LocalDateTime dateTime) {
+            return toBookingShortDto(entries.higher(new Entry(Long.MAX_VALUE, dateTime, null, null)));
+        }
+
+        private synchronized boolean hasBooker(Long bookerId) {
+            return entries.stream().anyMatch(entry -> bookerId.equals(entry.getBookerId()));
+        }
+
+        private synchronized void add(Entry entry) {
+            entries.add(entry);
+            entriesById.put(entry.getId(), entry);
+        }
+
+        private synchronized void remove(Long bookingId) {
+            Entry entry = entriesById.remove(bookingId);
+            if (entry != null) {
+                entries.remove(entry);
+            }
+        }
+
+        private void touch() {
+            lastAccess = System.nanoTime();
+        }
+
+        private long getLastAccess() {
+            return lastAccess;
+        }
+
+        private boolean isExpired(long ttlNanos) {
+            return System.nanoTime() - loadedAt > ttlNanos;
+        }
+
+        /**
+         * Makes the next access reload the timeline, because a status transition may have been applied while it
+         * was being read.
+         */
+        private void expire() {
+            loadedAt = System.nanoTime() - Long.MAX_VALUE / 2;
+        }
+
+        private static BookingShortDto toBookingShortDto(Entry entry) {
+            if (entry == null) {
+                return null;
+            }
+
+            return new BookingShortDto(entry.getId(), entry.getStart(), entry.getEnd(), entry.getBookerId());
+        }
+    }
+
+    @Getter
+    @AllArgsConstructor
+    private static final class Entry {
+
+        private static final Comparator<Entry> ORDER = Comparator.comparing(Entry::getStart)
+                .thenComparing(Entry::getId);
+
+        private final Long id;
+        private final LocalDateTime start;
+        private final LocalDateTime end;
+        private final Long bookerId;
+    }
+}
@@ -4,20 +4,33 @@ import lombok.AllArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.booking.model.Booking;
 import ru.practicum.shareit.booking.model.State;
 import ru.practicum.shareit.booking.repository.BookingRepository;
 import ru.practicum.shareit.exception.BookingNotFoundException;
 import ru.practicum.shareit.exception.ItemNotFoundException;
 import ru.practicum.shareit.exception.ItemRequestNotFoundException;
 import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.request.model.ItemRequest;
 import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.cache.UserIdCache;
+import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
 import javax.validation.ValidationException;
 import java.util.Arrays;
 import java.util.stream.Collectors;
 
+/**
+ * Checks that the entities a request refers to exist. The checks load the entities by id instead of counting them,
+ * so the persistence context keeps them for the rest of the request: the service gets the entity from the
+ * {@code get} methods or reads it later by id, through {@code getReferenceById} or a lazy association, without
+ * another round-trip. The persistence context lives as long as the transaction, or the whole request with
+ * open-in-view, which bounds the memoization to one request. User ids that are known to exist are checked against
+ * {@link UserIdCache} without a query.
+ */
 @Slf4j
 @Service
 @AllArgsConstructor
@@ -27,6 +40,7 @@ public class ConsistencyService {
     private ItemRepository itemRepository;
     private BookingRepository bookingRepository;
     private ItemRequestRepository itemRequestRepository;
+    private UserIdCache userIdCache;
 
     public void checkStateExistence(String state) {
         var existingStates = Arrays.stream(State.values())
@@ -41,42 +55,83 @@ public class ConsistencyService {
     }
 
     public void checkUserExistence(Long userId) {
-        if (!userRepository.existsById(userId)) {
-            String errorMessage = String.format("Пользователь c id = %d не найден!", userId);
-            log.warn(errorMessage);
-            throw new UserNotFoundException(errorMessage);
+        if (userIdCache.isKnown(userId)) {
+            return;
+        }
+
+        if (userIdCache.isUnknown(userId)) {
+            throw userNotFound(userId);
         }
+
+        getUser(userId);
     }
 
     public void checkItemExistence(BookingInputDto bookingInputDto) {
-        if (!itemRepository.existsById(bookingInputDto.getItemId())) {
-            String errorMessage = String.format("Вещь с id = %d не найдена!", bookingInputDto.getItemId());
-            log.warn(errorMessage);
-            throw new ItemNotFoundException(errorMessage);
-        }
+        getItem(bookingInputDto.getItemId());
     }
 
     public void checkItemExistence(Long itemId) {
-        if (!itemRepository.existsById(itemId)) {
-            String errorMessage = String.format("Вещь с id = %d не найдена!", itemId);
-            log.warn(errorMessage);
-            throw new ItemNotFoundException(errorMessage);
-        }
+        getItem(itemId);
     }
 
     public void checkBookingExistence(Long bookingId) {
-        if (!bookingRepository.existsById(bookingId)) {
+        getBooking(bookingId);
+    }
+
+    public void checkItemRequestExistence(Long requestId) {
+        getItemRequest(requestId);
+    }
+
+    public User getUser(Long userId) {
+        User user = userRepository.findActiveById(userId).orElseThrow(() -> {
+            userIdCache.addUnknown(userId);
+            return userNotFound(userId);
+        });
+
+        userIdCache.addKnown(userId);
+
+        return user;
+    }
+
+    /**
+     * Items of deleted owners are treated as missing, as are bookings and requests of deleted users.
+     */
+    public Item getItem(Long itemId) {
+        return itemRepository.findActiveById(itemId).orElseThrow(() -> itemNotFound(itemId));
+    }
+
+    /**
+     * Loads the item with a row lock, so a caller that has to lock the item checks its existence in the same query.
+     */
+    public Item getItemForUpdate(Long itemId) {
+        return itemRepository.findByIdForUpdate(itemId).orElseThrow(() -> itemNotFound(itemId));
+    }
+
+    public Booking getBooking(Long bookingId) {
+        return bookingRepository.findActiveById(bookingId).orElseThrow(() -> {
             String errorMessage = String.format("Бронирование с id = %d не найдено!", bookingId);
             log.warn(errorMessage);
-            throw new BookingNotFoundException(errorMessage);
-        }
+            return new BookingNotFoundException(errorMessage);
+        });
     }
 
-    public void checkItemRequestExistence(Long requestId) {
-        if (!itemRequestRepository.existsById(requestId)) {
+    public ItemRequest getItemRequest(Long requestId) {
+        return itemRequestRepository.findActiveById(requestId).orElseThrow(() -> {
             String errorMessage = String.format("Запрос c id = %d не найден!", requestId);
             log.warn(errorMessage);
-            throw new ItemRequestNotFoundException(errorMessage);
-        }
+            return new ItemRequestNotFoundException(errorMessage);
+        });
+    }
+
+    private UserNotFoundException userNotFound(Long userId) {
+        String errorMessage = String.format("Пользователь c id = %d не найден!", userId);
+        log.warn(errorMessage);
+        return new UserNotFoundException(errorMessage);
+    }
+
+    private ItemNotFoundException itemNotFound(Long itemId) {
+        String errorMessage = String.format("Вещь с id = %d не найдена!", itemId);
+        log.warn(errorMessage);
+        return new ItemNotFoundException(errorMessage);
     }
 }
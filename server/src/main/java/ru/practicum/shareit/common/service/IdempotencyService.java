@@ -0,0 +1,228 @@
+package ru.practicum.shareit.common.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Service;
+import ru.practicum.shareit.exception.IdempotencyKeyReusedException;
+import ru.practicum.shareit.exception.RequestInProgressException;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Remembers the first response to a request with an {@code Idempotency-Key} header for a limited time, so a
+ * retried request returns that response instead of being executed again. A retry that arrives while the first
+ * request is still running waits for its response. Failed requests are not remembered.
+ * <p>
+ * Each entry keeps a SHA-256 hash of the request body, and a request that reuses a key with a different body is
+ * rejected. Only completed responses are evicted when the map is full; requests still running are bounded by the
+ * number of request threads and leave the map when they finish.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    public static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private final ObjectMapper objectMapper;
+    private final int maxSize;
+    private final long ttlNanos;
+    private final long waitTimeoutNanos;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>();
+
+    @Autowired
+    public IdempotencyService(ObjectMapper objectMapper,
+                              @Value("${shareit.idempotency.max-size:10000}") int maxSize,
+                              @Value("${shareit.idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${shareit.idempotency.wait-timeout:PT30S}") Duration waitTimeout) {
+        this.objectMapper = objectMapper;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+    }
+
+    /**
+     * Executes the request, or replays the response of the request with the same operation, user and key.
+     * Without a key the request is always executed.
+     */
+    public <T> ResponseEntity<T> execute(String operation, Long userId, String idempotencyKey, Object body,
+                                         Supplier<ResponseEntity<T>> request) {
+        if (idempotencyKey == null) {
+            return request.get();
+        }
+
+        Key key = new Key(operation, userId, idempotencyKey);
+        byte[] bodyHash = hash(body);
+        Entry entry;
+        boolean first = false;
+
+        synchronized (this) {
+            entry = entries.get(key);
+
+            if (entry != null && entry.response.isDone() && System.nanoTime() - entry.created > ttlNanos) {
+                entries.remove(key);
+                entry = null;
+            }
+
+            if (entry == null) {
+                entry = new Entry(new CompletableFuture<>(), bodyHash, System.nanoTime());
+                entries.put(key, entry);
+                evictOverflow();
+                first = true;
+            }
+        }
+
+        if (first) {
+            return executeFirst(key, entry, request);
+        }
+
+        if (!MessageDigest.isEqual(entry.bodyHash, bodyHash)) {
+            String errorMessage = String.format("Ключ идемпотентности %s уже использован для запроса с другим телом!",
+                    idempotencyKey);
+            log.warn(errorMessage);
+            throw new IdempotencyKeyReusedException(errorMessage);
+        }
+
+        return replay(idempotencyKey, entry);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    /**
+     * Runs the request that created the entry. Unless it returned a response, the entry is removed before it is
+     * completed with the failure, so waiting retries see the failure and later ones execute the request again.
+     */
+    private <T> ResponseEntity<T> executeFirst(Key key, Entry entry, Supplier<ResponseEntity<T>> request) {
+        Throwable failure = null;
+
+        try {
+            ResponseEntity<T> response = request.get();
+            entry.response.complete(response);
+            return response;
+        } catch (RuntimeException | Error e) {
+            failure = e;
+            throw e;
+        } finally {
+            if (!entry.response.isDone()) {
+                synchronized (this) {
+                    entries.remove(key, entry);
+                }
+                entry.response.completeExceptionally(failure != null ? failure
+                        : new IllegalStateException("Запрос завершился без ответа"));
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> ResponseEntity<T> replay(String idempotencyKey, Entry entry) {
+        ResponseEntity<T> response;
+
+        try {
+            response = (ResponseEntity<T>) entry.response.get(waitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            throw requestInProgress(idempotencyKey);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw requestInProgress(idempotencyKey);
+        }
+
+        log.info("Повторный запрос с ключом идемпотентности {}: возвращён сохранённый ответ", idempotencyKey);
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header(REPLAYED_HEADER, "true")
+                .body(response.getBody());
+    }
+
+    private RequestInProgressException requestInProgress(String idempotencyKey) {
+        String errorMessage = String.format("Запрос с ключом идемпотентности %s ещё выполняется!", idempotencyKey);
+        log.warn(errorMessage);
+        return new RequestInProgressException(errorMessage);
+    }
+
+    private void evictOverflow() {
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxSize && eldest.hasNext()) {
+            if (eldest.next().getValue().response.isDone()) {
+                eldest.remove();
+            }
+        }
+    }
+
+    private byte[] hash(Object body) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(objectMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static final class Key {
+
+        private final String operation;
+        private final Long userId;
+        private final String idempotencyKey;
+
+        private Key(String operation, Long userId, String idempotencyKey) {
+            this.operation = operation;
+            this.userId = userId;
+            this.idempotencyKey = idempotencyKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return operation.equals(key.operation) && Objects.equals(userId, key.userId)
+                    && idempotencyKey.equals(key.idempotencyKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(operation, userId, idempotencyKey);
+        }
+    }
+
+    private static final class Entry {
+
+        private final CompletableFuture<ResponseEntity<?>> response;
+        private final byte[] bodyHash;
+        private final long created;
+
+        private Entry(CompletableFuture<ResponseEntity<?>> response, byte[] bodyHash, long created) {
+            this.response = response;
+            this.bodyHash = bodyHash;
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package ru.practicum.shareit.common.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.persistence.EntityManager;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes rows as newline-delimited JSON, one row per line, straight from a forward-only cursor. The rows are read
+ * inside a read-only transaction that is opened when the web layer starts writing the response, and the output is
+ * flushed every {@value #FLUSH_INTERVAL} rows, so memory use does not depend on the number of rows.
+ */
+@Service
+public class NdjsonExporter {
+
+    private static final int FLUSH_INTERVAL = 100;
+
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    public NdjsonExporter(EntityManager entityManager, ObjectMapper objectMapper,
+                          PlatformTransactionManager transactionManager) {
+        this.entityManager = entityManager;
+        this.objectMapper = objectMapper;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    /**
+     * Returns the body that opens the rows, writes them and closes them again. The number of written rows is
+     * passed to {@code onFinished}.
+     */
+    public <T> StreamingResponseBody export(Class<T> type, Supplier<Stream<T>> rows, LongConsumer onFinished) {
+        return outputStream -> {
+            try {
+                transactionTemplate.executeWithoutResult(status -> write(type, rows, onFinished, outputStream));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+        };
+    }
+
+    /**
+     * Maps an entity and detaches it, so the persistence context does not grow with every row read.
+     */
+    public <E, T> Function<E, T> detaching(Function<E, T> mapper) {
+        return entity -> {
+            T row = mapper.apply(entity);
+            entityManager.detach(entity);
+            return row;
+        };
+    }
+
+    private <T> void write(Class<T> type, Supplier<Stream<T>> rows, LongConsumer onFinished,
+                           OutputStream outputStream) {
+        try {
+            onFinished.accept(writeRows(type, rows, outputStream));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private <T> long writeRows(Class<T> type, Supplier<Stream<T>> rows, OutputStream outputStream)
+            throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(type);
+        long count = 0;
+
+        try (Stream<T> stream = rows.get()) {
+            for (Iterator<T> iterator = stream.iterator(); iterator.hasNext(); ) {
+                outputStream.write(writer.writeValueAsBytes(iterator.next()));
+                outputStream.write('\n');
+
+                if (++count % FLUSH_INTERVAL == 0) {
+                    outputStream.flush();
+                }
+            }
+        }
+
+        outputStream.flush();
+
+        return count;
+    }
+}
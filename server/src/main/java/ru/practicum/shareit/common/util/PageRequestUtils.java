@@ -9,6 +9,8 @@ import javax.validation.ValidationException;
 @Slf4j
 public class PageRequestUtils {
 
+    public static final int DEFAULT_PAGE_SIZE = 10;
+
     private static void validatePageRequestParams(Integer from, Integer size) {
         if (size != null && size <= 0) {
             log.warn("Параметр size должен быть больше 0 или равен null!");
@@ -42,4 +44,12 @@ public class PageRequestUtils {
 
         return pageRequest;
     }
+
+    /**
+     * Validates the page size of a cursor request; {@code null} stands for the default size.
+     */
+    public static int getPageSize(Integer size) {
+        validatePageRequestParams(null, size);
+        return size == null ? DEFAULT_PAGE_SIZE : size;
+    }
 }
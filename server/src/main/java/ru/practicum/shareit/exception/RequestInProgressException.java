@@ -0,0 +1,7 @@
+package ru.practicum.shareit.exception;
+
+public class RequestInProgressException extends RuntimeException {
+    public RequestInProgressException(String msg) {
+        super(msg);
+    }
+}
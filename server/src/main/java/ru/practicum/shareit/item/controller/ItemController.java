@@ -1,6 +1,8 @@
 package ru.practicum.shareit.item.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PatchMapping;
@@ -11,11 +13,18 @@ import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.common.service.IdempotencyService;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.service.ItemExportService;
 import ru.practicum.shareit.item.service.ItemService;
 
 import javax.validation.Valid;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -24,12 +33,24 @@ import java.util.List;
 public class ItemController {
 
     private final ItemService itemService;
+    private final ItemExportService itemExportService;
+    private final IdempotencyService idempotencyService;
     private static final String USER_ID_HEADER = "X-Sharer-User-Id";
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
 
     @PostMapping
     public ResponseEntity<ItemDto> addItem(@Valid @RequestBody ItemDto itemDto,
-                                           @RequestHeader(USER_ID_HEADER) Long userId) {
-        return ResponseEntity.ok().body(itemService.add(itemDto, userId));
+                                           @RequestHeader(USER_ID_HEADER) Long userId,
+                                           @RequestHeader(name = IdempotencyService.IDEMPOTENCY_KEY_HEADER,
+                                                   required = false) String idempotencyKey) {
+        return idempotencyService.execute("addItem", userId, idempotencyKey, itemDto,
+                () -> ResponseEntity.ok().body(itemService.add(itemDto, userId)));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<List<ItemBatchResultDto>> addItems(@RequestBody List<ItemDto> itemDtos,
+                                                             @RequestHeader(USER_ID_HEADER) Long userId) {
+        return ResponseEntity.ok().body(itemService.addAll(itemDtos, userId));
     }
 
     @PatchMapping("/{itemId}")
@@ -45,6 +66,21 @@ public class ItemController {
         return ResponseEntity.ok().body(itemService.get(itemId, userId));
     }
 
+    @GetMapping("/{itemId}/availability")
+    public ResponseEntity<ItemAvailabilityDto> getItemAvailability(@PathVariable("itemId") Long itemId,
+                                                                   @RequestParam("from")
+                                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                                   LocalDateTime from,
+                                                                   @RequestParam("to")
+                                                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                                   LocalDateTime to,
+                                                                   @RequestParam(name = "waiting",
+                                                                           defaultValue = "false")
+                                                                   boolean includeWaiting,
+                                                                   @RequestHeader(USER_ID_HEADER) Long userId) {
+        return ResponseEntity.ok().body(itemService.getAvailability(itemId, from, to, includeWaiting, userId));
+    }
+
     @GetMapping
     public ResponseEntity<List<ItemDto>> getItemsByUserId(@RequestParam(name = "from", required = false) Integer from,
                                                           @RequestParam(name = "size", required = false) Integer size,
@@ -52,11 +88,32 @@ public class ItemController {
         return ResponseEntity.ok().body(itemService.getAll(from, size, userId));
     }
 
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportItems(@RequestParam(name = "bookings", defaultValue = "false")
+                                                             boolean includeBookings,
+                                                             @RequestHeader(USER_ID_HEADER) Long userId) {
+        return ResponseEntity.ok().contentType(NDJSON)
+                .body(itemExportService.export(userId, includeBookings));
+    }
+
     @GetMapping("/search")
     public ResponseEntity<List<ItemDto>> searchItem(@RequestParam(name = "from", required = false) Integer from,
                                                     @RequestParam(name = "size", required = false) Integer size,
-                                                    @RequestParam("text") String text) {
-        return ResponseEntity.ok().body(itemService.search(text, from, size));
+                                                    @RequestParam("text") String text,
+                                                    @RequestParam(name = "start", required = false)
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                    LocalDateTime start,
+                                                    @RequestParam(name = "end", required = false)
+                                                    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME)
+                                                    LocalDateTime end) {
+        return ResponseEntity.ok().body(itemService.search(text, start, end, from, size));
+    }
+
+    @GetMapping("/suggest")
+    public ResponseEntity<List<ItemSuggestionDto>> suggestItems(@RequestParam("prefix") String prefix,
+                                                                @RequestParam(name = "size", required = false)
+                                                                Integer size) {
+        return ResponseEntity.ok().body(itemService.suggest(prefix, size));
     }
 
     @PostMapping("/{itemId}/comment")
@@ -65,4 +122,12 @@ public class ItemController {
                                                  @RequestHeader(USER_ID_HEADER) Long userId) {
         return ResponseEntity.ok().body(itemService.addComment(commentDto, itemId, userId));
     }
+
+    @GetMapping("/{itemId}/comments")
+    public ResponseEntity<List<CommentDto>> getComments(@PathVariable("itemId") Long itemId,
+                                                        @RequestParam(name = "from", required = false) Integer from,
+                                                        @RequestParam(name = "size", required = false) Integer size,
+                                                        @RequestHeader(USER_ID_HEADER) Long userId) {
+        return ResponseEntity.ok().body(itemService.getComments(itemId, from, size, userId));
+    }
 }
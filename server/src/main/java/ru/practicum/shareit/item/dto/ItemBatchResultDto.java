@@ -0,0 +1,15 @@
+package ru.practicum.shareit.item.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ItemBatchResultDto {
+
+    private Integer index;
+
+    private Long id;
+
+    private String error;
+}
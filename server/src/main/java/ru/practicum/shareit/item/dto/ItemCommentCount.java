@@ -0,0 +1,8 @@
+package ru.practicum.shareit.item.dto;
+
+public interface ItemCommentCount {
+
+    Long getItemId();
+
+    Long getCommentCount();
+}
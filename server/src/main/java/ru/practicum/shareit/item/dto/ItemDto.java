@@ -34,6 +34,8 @@ public class ItemDto {
 
     private List<CommentDto> comments;
 
+    private Long commentCount;
+
     public ItemDto(Long id, String name, String description, Boolean available, UserDto owner, List<CommentDto> comments) {
         this.id = id;
         this.name = name;
@@ -3,6 +3,7 @@ package ru.practicum.shareit.item.mapper;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemCommentView;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.service.UserService;
@@ -13,6 +14,8 @@ public interface CommentMapper {
     @Mapping(target = "authorName", expression = "java(comment.getAuthor().getName())")
     CommentDto toCommentDto(Comment comment);
 
+    CommentDto toCommentDto(ItemCommentView itemCommentView);
+
     @Mapping(target = "item", ignore = true)
     @Mapping(target = "author", ignore = true)
     Comment toComment(CommentDto commentDto);
@@ -1,13 +1,23 @@
 package ru.practicum.shareit.item.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemExportDto;
 import ru.practicum.shareit.item.model.Item;
 
-@Mapper(componentModel = "spring", uses = {CommentMapper.class})
+@Mapper(componentModel = "spring")
 public interface ItemMapper {
 
+    @Mapping(target = "comments", ignore = true)
+    @Mapping(target = "commentCount", ignore = true)
+    @Mapping(target = "lastBooking", ignore = true)
+    @Mapping(target = "nextBooking", ignore = true)
     ItemDto toItemDto(Item item);
 
+    @Mapping(target = "owner.deletedAt", ignore = true)
     Item toItem(ItemDto itemDto);
+
+    @Mapping(target = "bookings", ignore = true)
+    ItemExportDto toItemExportDto(Item item);
 }
@@ -1,13 +1,55 @@
 package ru.practicum.shareit.item.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemCommentCount;
+import ru.practicum.shareit.item.dto.ItemCommentView;
 import ru.practicum.shareit.item.model.Comment;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface CommentRepository extends JpaRepository<Comment, Long> {
 
-    List<Comment> findCommentsByItemId(Long itemId);
+    @Query(value = "select c.item_id as itemId, c.id as id, c.text as text, u.name as authorName, " +
+            "       c.created as created " +
+            "  from (select cm.*, " +
+            "               row_number() over (partition by cm.item_id order by cm.created desc, cm.id desc) as rn " +
+            "          from comments cm " +
+            "         where cm.item_id in ?1 " +
+            "           and exists (select 1 from users du where du.id = cm.author_id and du.deleted_at is null)) c " +
+            "  join users u on u.id = c.author_id " +
+            " where c.rn <= ?2 " +
+            " order by c.item_id, c.created desc, c.id desc",
+            nativeQuery = true)
+    List<ItemCommentView> findRecentCommentsByItemIds(Collection<Long> itemIds, int limit);
+
+    @Query("select c.item.id as itemId, count(c.id) as commentCount " +
+            "from Comment c " +
+            "where c.item.id in ?1 " +
+            "  and c.author.deletedAt is null " +
+            "group by c.item.id")
+    List<ItemCommentCount> countCommentsByItemIds(Collection<Long> itemIds);
+
+    @Query("select new ru.practicum.shareit.item.dto.CommentDto(c.id, c.text, a.name, c.created) " +
+            "from Comment c " +
+            "join c.author a " +
+            "where c.item.id = ?1 " +
+            "  and a.deletedAt is null")
+    List<CommentDto> findCommentsByItemId(Long itemId, Pageable pageable);
+
+    @Query("select c.id from Comment c where c.author.id = ?1")
+    List<Long> findIdsByAuthorId(Long authorId, Pageable pageable);
+
+    @Query("select c.id from Comment c where c.item.owner.id = ?1")
+    List<Long> findIdsByOwnerId(Long ownerId, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Comment c where c.id in ?1")
+    int deleteAllByIds(Collection<Long> commentIds);
 }
@@ -0,0 +1,13 @@
+package ru.practicum.shareit.item.repository;
+
+import ru.practicum.shareit.item.model.Item;
+
+import java.util.List;
+
+public interface ItemBatchRepository {
+
+    /**
+     * Inserts new items of a single owner in JDBC batches and returns their ids in the order of the list.
+     */
+    List<Long> insertAll(List<Item> items, Long ownerId);
+}
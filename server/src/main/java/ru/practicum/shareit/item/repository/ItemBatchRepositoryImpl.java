@@ -0,0 +1,50 @@
+package ru.practicum.shareit.item.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Persists items chunk by chunk: ids come from the pooled {@code items_seq} sequence, so Hibernate can group the
+ * inserts of every chunk into a single JDBC batch, and the persistence context is cleared after each chunk.
+ */
+public class ItemBatchRepositoryImpl implements ItemBatchRepository {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final int batchSize;
+
+    public ItemBatchRepositoryImpl(@Value("${shareit.item.batch.size:500}") int batchSize) {
+        this.batchSize = batchSize;
+    }
+
+    @Override
+    public List<Long> insertAll(List<Item> items, Long ownerId) {
+        List<Long> ids = new ArrayList<>(items.size());
+        User owner = entityManager.getReference(User.class, ownerId);
+
+        for (Item item : items) {
+            item.setId(null);
+            item.setOwner(owner);
+            entityManager.persist(item);
+            ids.add(item.getId());
+
+            if (ids.size() % batchSize == 0) {
+                entityManager.flush();
+                entityManager.clear();
+                owner = entityManager.getReference(User.class, ownerId);
+            }
+        }
+
+        entityManager.flush();
+        entityManager.clear();
+
+        return ids;
+    }
+}
@@ -3,18 +3,120 @@ package ru.practicum.shareit.item.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.item.model.Item;
 
+import javax.persistence.LockModeType;
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
-public interface ItemRepository extends JpaRepository<Item, Long> {
+public interface ItemRepository extends JpaRepository<Item, Long>, ItemBatchRepository {
 
     Page<Item> findByOwnerId(Long ownerId, Pageable pageable);
 
+    Page<Item> findByOwnerDeletedAtIsNull(Pageable pageable);
+
+    /**
+     * The item unless its owner is deleted. The owner is checked in a subquery rather than a join, so the locking
+     * variants below lock only the item rows.
+     */
+    @Query("select i from Item i " +
+            "where i.id = ?1 " +
+            "  and exists (select o.id from User o where o.id = i.owner.id and o.deletedAt is null)")
+    Optional<Item> findActiveById(Long itemId);
+
+    @Query("select i from Item i " +
+            "where i.id in ?1 " +
+            "  and exists (select o.id from User o where o.id = i.owner.id and o.deletedAt is null)")
+    List<Item> findAllActiveById(Collection<Long> itemIds);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i " +
+            "where i.id = ?1 " +
+            "  and exists (select o.id from User o where o.id = i.owner.id and o.deletedAt is null)")
+    Optional<Item> findByIdForUpdate(Long itemId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select i from Item i " +
+            "where i.id in ?1 " +
+            "  and exists (select o.id from User o where o.id = i.owner.id and o.deletedAt is null) " +
+            "order by i.id")
+    List<Item> findAllByIdForUpdate(Collection<Long> itemIds);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select i from Item i where i.owner.id = ?1 order by i.id")
+    Stream<Item> streamByOwnerId(Long ownerId);
+
+    @Query("select i.id from Item i where i.owner.id = ?1")
+    List<Long> findIdsByOwnerId(Long ownerId, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from Item i where i.id in ?1")
+    int deleteAllByIds(Collection<Long> itemIds);
+
     @Query("select i from Item i " +
             "where (upper(i.name) like upper(concat('%', ?1, '%')) " +
             "   or upper(i.description) like upper(concat('%', ?1, '%')))" +
-            "  and i.available = true")
+            "  and i.available = true " +
+            "  and exists (select o.id from User o where o.id = i.owner.id and o.deletedAt is null)")
     Page<Item> search(String text, Pageable pageable);
+
+    /**
+     * Available items of active owners matching the text that have no approved booking and no hold unexpired by
+     * {@code dateTime} within the period.
+     */
+    @Query("select i from Item i " +
+            "where (upper(i.name) like upper(concat('%', ?1, '%')) " +
+            "   or upper(i.description) like upper(concat('%', ?1, '%')))" +
+            "  and i.available = true " +
+            "  and exists (select o.id from User o where o.id = i.owner.id and o.deletedAt is null) " +
+            "  and not exists (" +
+            "      select b.id from Booking b" +
+            "       where b.item = i" +
+            "         and (b.status = 'APPROVED' or (b.status = 'HOLD' and b.holdUntil > ?4))" +
+            "         and b.start < ?3" +
+            "         and b.end > ?2)")
+    Page<Item> searchAvailableBetween(String text, LocalDateTime start, LocalDateTime end, LocalDateTime dateTime,
+                                      Pageable pageable);
+
+    @Query(value = "select i.* from items i " +
+            "where i.is_available = true " +
+            "  and (i.name ilike concat('%', ?1, '%') " +
+            "   or i.description ilike concat('%', ?1, '%')) " +
+            "  and exists (select 1 from users o where o.id = i.owner_id and o.deleted_at is null) " +
+            "order by ts_rank(i.search_vector, plainto_tsquery('simple', ?1)) desc, " +
+            "         word_similarity(?1, i.name) desc, " +
+            "         i.id",
+            nativeQuery = true)
+    List<Item> searchRanked(String text, Pageable pageable);
+
+    @Query(value = "select i.* from items i " +
+            "where i.is_available = true " +
+            "  and (i.name ilike concat('%', ?1, '%') " +
+            "   or i.description ilike concat('%', ?1, '%')) " +
+            "  and exists (select 1 from users o where o.id = i.owner_id and o.deleted_at is null) " +
+            "  and not exists (" +
+            "      select 1 from bookings b" +
+            "       where b.item_id = i.id" +
+            "         and (b.status = 'APPROVED' or (b.status = 'HOLD' and b.hold_until > ?4))" +
+            "         and b.start_date < ?3" +
+            "         and b.end_date > ?2) " +
+            "order by ts_rank(i.search_vector, plainto_tsquery('simple', ?1)) desc, " +
+            "         word_similarity(?1, i.name) desc, " +
+            "         i.id",
+            nativeQuery = true)
+    List<Item> searchRankedAvailableBetween(String text, LocalDateTime start, LocalDateTime end,
+                                            LocalDateTime dateTime, Pageable pageable);
 }
@@ -0,0 +1,43 @@
+package ru.practicum.shareit.item.search;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Relevance-ranked item search on top of the Postgres trigram and tsvector indexes from schema-postgresql.sql.
+ * Disabled on H2, where {@link ItemRepository#search} is used instead.
+ */
+@Component
+public class ItemFullTextSearch {
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+
+    @Autowired
+    public ItemFullTextSearch(ItemRepository itemRepository,
+                              @Value("${shareit.search.full-text.enabled:false}") boolean enabled) {
+        this.itemRepository = itemRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public List<Item> search(String text, Pageable pageable) {
+        return itemRepository.searchRanked(text, PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+    }
+
+    public List<Item> search(String text, LocalDateTime start, LocalDateTime end, Pageable pageable) {
+        return itemRepository.searchRankedAvailableBetween(text, start, end, LocalDateTime.now(),
+                PageRequest.of(pageable.getPageNumber(), pageable.getPageSize()));
+    }
+}
@@ -0,0 +1,291 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.common.util.TransactionUtils;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Sorted array of available item names for prefix autocompletion. All names starting with a prefix form one
+ * contiguous range of the array, found by binary search. Changes are collected in a small pending set and merged
+ * into a new array in one linear pass, either before the next lookup or once enough of them pile up.
+ * <p>
+ * At most {@code max-entries} items are suggested; rebuilding reads the items in id order, so the items with the
+ * lowest ids are kept once the limit is reached.
+ */
+@Slf4j
+@Component
+public class ItemNameSuggester {
+
+    private static final int REBUILD_BATCH_SIZE = 1000;
+    private static final int MAX_PENDING_CHANGES = 1024;
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final int maxEntries;
+
+    private Entry[] entries = new Entry[0];
+    private final Map<Long, Entry> entriesByItemId = new HashMap<>();
+    private final NavigableSet<Entry> pendingEntries = new TreeSet<>(Entry.ORDER);
+    private final Set<Long> pendingRemovals = new HashSet<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public ItemNameSuggester(ItemRepository itemRepository,
+                             @Value("${shareit.search.suggest.enabled:true}") boolean enabled,
+                             @Value("${shareit.search.suggest.max-entries:100000}") int maxEntries) {
+        this.itemRepository = itemRepository;
+        this.enabled = enabled;
+        this.maxEntries = maxEntries;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            entries = new Entry[0];
+            entriesByItemId.clear();
+            pendingEntries.clear();
+            pendingRemovals.clear();
+
+            PageRequest pageRequest = PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("id"));
+            Page<Item> page;
+
+            do {
+                page = itemRepository.findByOwnerDeletedAtIsNull(pageRequest);
+                page.forEach(item -> put(item.getId(), item.getName(), Boolean.TRUE.equals(item.getAvailable()),
+                        item.getOwner() == null ? null : item.getOwner().getId()));
+                pageRequest = pageRequest.next();
+            } while (page.hasNext() && entriesByItemId.size() < maxEntries);
+
+            mergePending();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Индекс подсказок по названиям вещей перестроен: {} вещей", entries.length);
+    }
+
+    /**
+     * Adds, renames or removes the item once the surrounding transaction commits; unavailable items are not
+     * suggested.
+     */
+    public void index(Item item) {
+        if (!enabled) {
+            return;
+        }
+
+        Long itemId = item.getId();
+        String name = item.getName();
+        boolean available = Boolean.TRUE.equals(item.getAvailable());
+        Long ownerId = item.getOwner() == null ? null : item.getOwner().getId();
+
+        TransactionUtils.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                put(itemId, name, available, ownerId);
+                mergePendingIfFull();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Removes the items of the owner once the surrounding transaction commits.
+     */
+    public void removeByOwner(Long ownerId) {
+        if (!enabled) {
+            return;
+        }
+
+        TransactionUtils.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                entriesByItemId.values().removeIf(entry -> {
+                    if (ownerId.equals(entry.ownerId)) {
+                        removePending(entry);
+                        return true;
+                    }
+                    return false;
+                });
+                mergePendingIfFull();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Returns up to {@code limit} available items whose name starts with the prefix, ignoring case, ordered by
+     * name and id.
+     */
+    public List<ItemSuggestionDto> suggest(String prefix, int limit) {
+        String from = normalize(prefix);
+
+        lock.readLock().lock();
+        try {
+            if (pendingEntries.isEmpty() && pendingRemovals.isEmpty()) {
+                return find(from, limit);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        lock.writeLock().lock();
+        try {
+            mergePending();
+            return find(from, limit);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private List<ItemSuggestionDto> find(String from, int limit) {
+        List<ItemSuggestionDto> result = new ArrayList<>(Math.min(limit, 16));
+
+        for (int i = lowerBound(from); i < entries.length && result.size() < limit; i++) {
+            if (!entries[i].key.startsWith(from)) {
+                break;
+            }
+            result.add(new ItemSuggestionDto(entries[i].itemId, entries[i].name));
+        }
+
+        return result;
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = entries.length;
+
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (entries[middle].key.compareTo(key) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+
+        return low;
+    }
+
+    private void put(Long itemId, String name, boolean available, Long ownerId) {
+        Entry oldEntry = entriesByItemId.remove(itemId);
+        if (oldEntry != null) {
+            removePending(oldEntry);
+        }
+
+        if (!available || name == null) {
+            return;
+        }
+
+        if (entriesByItemId.size() >= maxEntries) {
+            log.debug("Вещь с id = {} не добавлена в подсказки: достигнут лимит в {} вещей", itemId, maxEntries);
+            return;
+        }
+
+        Entry entry = new Entry(itemId, name, ownerId);
+        entriesByItemId.put(itemId, entry);
+        pendingEntries.add(entry);
+    }
+
+    /**
+     * Drops the entry from the pending set, or marks its row of the array as stale if it was merged already.
+     */
+    private void removePending(Entry entry) {
+        if (!pendingEntries.remove(entry)) {
+            pendingRemovals.add(entry.itemId);
+        }
+    }
+
+    private void mergePendingIfFull() {
+        if (pendingEntries.size() + pendingRemovals.size() >= MAX_PENDING_CHANGES) {
+            mergePending();
+        }
+    }
+
+    private void mergePending() {
+        if (pendingEntries.isEmpty() && pendingRemovals.isEmpty()) {
+            return;
+        }
+
+        List<Entry> merged = new ArrayList<>(entriesByItemId.size());
+        Iterator<Entry> pending = pendingEntries.iterator();
+        Entry next = pending.hasNext() ? pending.next() : null;
+
+        for (Entry entry : entries) {
+            if (pendingRemovals.contains(entry.itemId)) {
+                continue;
+            }
+            while (next != null && Entry.ORDER.compare(next, entry) < 0) {
+                merged.add(next);
+                next = pending.hasNext() ? pending.next() : null;
+            }
+            merged.add(entry);
+        }
+        while (next != null) {
+            merged.add(next);
+            next = pending.hasNext() ? pending.next() : null;
+        }
+
+        entries = merged.toArray(new Entry[0]);
+        pendingEntries.clear();
+        pendingRemovals.clear();
+    }
+
+    private static String normalize(String value) {
+        return value.toUpperCase(Locale.ROOT);
+    }
+
+    private static final class Entry {
+
+        private static final Comparator<Entry> ORDER = Comparator.<Entry, String>comparing(entry -> entry.key)
+                .thenComparingLong(entry -> entry.itemId);
+
+        private final long itemId;
+        private final String key;
+        private final String name;
+        private final Long ownerId;
+
+        private Entry(long itemId, String name, Long ownerId) {
+            String key = normalize(name);
+
+            this.itemId = itemId;
+            this.key = key.equals(name) ? name : key;
+            this.name = name;
+            this.ownerId = ownerId;
+        }
+    }
+}
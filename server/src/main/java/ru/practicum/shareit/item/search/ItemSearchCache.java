@@ -0,0 +1,272 @@
+package ru.practicum.shareit.item.search;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.common.util.TransactionUtils;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU cache of item search results keyed by the normalized search text and the page window.
+ * Entries expire after a fixed time to live. A changed item only drops the entries whose text occurs in the
+ * item's old or new name or description, plus the entries that contain the item itself.
+ */
+@Component
+public class ItemSearchCache {
+
+    private final boolean enabled;
+    private final int maxSize;
+    private final long ttlNanos;
+
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Key>> keysByText = new HashMap<>();
+    private final Map<Long, Set<Key>> keysByItemId = new HashMap<>();
+    private long version;
+
+    private final Counter hits;
+    private final Counter misses;
+    private final Counter sizeEvictions;
+    private final Counter expirations;
+    private final Counter invalidations;
+
+    @Autowired
+    public ItemSearchCache(MeterRegistry meterRegistry,
+                           @Value("${shareit.search.cache.enabled:true}") boolean enabled,
+                           @Value("${shareit.search.cache.max-size:1000}") int maxSize,
+                           @Value("${shareit.search.cache.ttl:PT1M}") Duration ttl) {
+        this.enabled = enabled;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+
+        hits = meterRegistry.counter("shareit.item.search.cache.requests", "result", "hit");
+        misses = meterRegistry.counter("shareit.item.search.cache.requests", "result", "miss");
+        sizeEvictions = meterRegistry.counter("shareit.item.search.cache.evictions", "cause", "size");
+        expirations = meterRegistry.counter("shareit.item.search.cache.evictions", "cause", "expired");
+        invalidations = meterRegistry.counter("shareit.item.search.cache.evictions", "cause", "invalidated");
+        Gauge.builder("shareit.item.search.cache.size", this, ItemSearchCache::size).register(meterRegistry);
+    }
+
+    /**
+     * Returns the cached result for the text and window or computes and caches it. A result computed while an
+     * invalidation happened is returned but not cached, since it may predate the change.
+     */
+    public List<ItemDto> get(String text, long offset, int size, Supplier<List<ItemDto>> search) {
+        if (!enabled) {
+            return search.get();
+        }
+
+        Key key = new Key(normalize(text), offset, size);
+        long searchVersion;
+
+        synchronized (this) {
+            Entry entry = entries.get(key);
+
+            if (entry != null && System.nanoTime() - entry.created <= ttlNanos) {
+                hits.increment();
+                return new ArrayList<>(entry.items);
+            }
+
+            if (entry != null) {
+                remove(key);
+                expirations.increment();
+            }
+
+            misses.increment();
+            searchVersion = version;
+        }
+
+        List<ItemDto> items = search.get();
+
+        synchronized (this) {
+            if (searchVersion == version) {
+                put(key, items);
+            }
+        }
+
+        return new ArrayList<>(items);
+    }
+
+    /**
+     * Once the surrounding transaction commits, drops the entries that contain the item and the entries whose
+     * text occurs in one of the given texts, i.e. the item's name and description before and after the change.
+     */
+    public void invalidate(Long itemId, String... texts) {
+        if (!enabled) {
+            return;
+        }
+
+        List<String> normalizedTexts = new ArrayList<>();
+        for (String text : texts) {
+            if (text != null) {
+                normalizedTexts.add(normalize(text));
+            }
+        }
+
+        TransactionUtils.afterCommit(() -> invalidate(Set.of(itemId), normalizedTexts));
+    }
+
+    /**
+     * Same as {@link #invalidate(Long, String...)} for a batch of new items.
+     */
+    public void invalidate(Collection<Item> items) {
+        if (!enabled) {
+            return;
+        }
+
+        Set<Long> itemIds = new HashSet<>();
+        List<String> normalizedTexts = new ArrayList<>();
+        for (Item item : items) {
+            itemIds.add(item.getId());
+            normalizedTexts.add(normalize(item.getName()));
+            normalizedTexts.add(normalize(item.getDescription()));
+        }
+
+        TransactionUtils.afterCommit(() -> invalidate(itemIds, normalizedTexts));
+    }
+
+    public void invalidateAll() {
+        if (!enabled) {
+            return;
+        }
+
+        TransactionUtils.afterCommit(() -> {
+            synchronized (this) {
+                version++;
+                invalidations.increment(entries.size());
+
+                entries.clear();
+                keysByText.clear();
+                keysByItemId.clear();
+            }
+        });
+    }
+
+    private synchronized void invalidate(Set<Long> itemIds, List<String> normalizedTexts) {
+        version++;
+
+        Set<Key> affectedKeys = new HashSet<>();
+        for (Long itemId : itemIds) {
+            affectedKeys.addAll(keysByItemId.getOrDefault(itemId, Set.of()));
+        }
+
+        keysByText.forEach((text, keys) -> {
+            if (normalizedTexts.stream().anyMatch(value -> value.contains(text))) {
+                affectedKeys.addAll(keys);
+            }
+        });
+
+        affectedKeys.forEach(this::remove);
+        invalidations.increment(affectedKeys.size());
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void put(Key key, List<ItemDto> items) {
+        remove(key);
+        entries.put(key, new Entry(List.copyOf(items), System.nanoTime()));
+        keysByText.computeIfAbsent(key.text, text -> new HashSet<>()).add(key);
+        for (ItemDto itemDto : items) {
+            keysByItemId.computeIfAbsent(itemDto.getId(), itemId -> new HashSet<>()).add(key);
+        }
+
+        Iterator<Map.Entry<Key, Entry>> eldest = entries.entrySet().iterator();
+        while (entries.size() > maxSize) {
+            Map.Entry<Key, Entry> eldestEntry = eldest.next();
+            eldest.remove();
+            unlink(eldestEntry.getKey(), eldestEntry.getValue());
+            sizeEvictions.increment();
+        }
+    }
+
+    private void remove(Key key) {
+        Entry entry = entries.remove(key);
+        if (entry != null) {
+            unlink(key, entry);
+        }
+    }
+
+    private void unlink(Key key, Entry entry) {
+        Set<Key> textKeys = keysByText.get(key.text);
+        if (textKeys != null) {
+            textKeys.remove(key);
+            if (textKeys.isEmpty()) {
+                keysByText.remove(key.text);
+            }
+        }
+
+        for (ItemDto itemDto : entry.items) {
+            Set<Key> itemKeys = keysByItemId.get(itemDto.getId());
+            if (itemKeys != null) {
+                itemKeys.remove(key);
+                if (itemKeys.isEmpty()) {
+                    keysByItemId.remove(itemDto.getId());
+                }
+            }
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toUpperCase(Locale.ROOT);
+    }
+
+    private static final class Key {
+
+        private final String text;
+        private final long offset;
+        private final int size;
+
+        private Key(String text, long offset, int size) {
+            this.text = text;
+            this.offset = offset;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return offset == key.offset && size == key.size && text.equals(key.text);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(text, offset, size);
+        }
+    }
+
+    private static final class Entry {
+
+        private final List<ItemDto> items;
+        private final long created;
+
+        private Entry(List<ItemDto> items, long created) {
+            this.items = items;
+            this.created = created;
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package ru.practicum.shareit.item.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.common.util.TransactionUtils;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+/**
+ * In-memory inverted index of character trigrams over item names and descriptions.
+ * Answers the same "available items whose name or description contains the text" question as
+ * {@link ItemRepository#search}, ordered by item id.
+ * <p>
+ * Texts shorter than a trigram are answered from id-ordered postings of their own one- and two-character
+ * substrings, walked only until the requested slice is filled, so a short query never scans or sorts the whole
+ * index.
+ */
+@Slf4j
+@Component
+public class ItemSearchIndex {
+
+    static final int GRAM_SIZE = 3;
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final ItemRepository itemRepository;
+    private final boolean enabled;
+    private final boolean verifyEnabled;
+
+    private final Map<Long, IndexedItem> items = new HashMap<>();
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    private final Map<String, NavigableSet<Long>> shortPostings = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    @Autowired
+    public ItemSearchIndex(ItemRepository itemRepository,
+                           @Value("${shareit.search.index.enabled:false}") boolean enabled,
+                           @Value("${shareit.search.index.verify:false}") boolean verifyEnabled) {
+        this.itemRepository = itemRepository;
+        this.enabled = enabled;
+        this.verifyEnabled = verifyEnabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public boolean isVerifyEnabled() {
+        return verifyEnabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        lock.writeLock().lock();
+        try {
+            items.clear();
+            postings.clear();
+            shortPostings.clear();
+
+            PageRequest pageRequest = PageRequest.of(0, REBUILD_BATCH_SIZE, Sort.by("id"));
+            Page<Item> page;
+
+            do {
+                page = itemRepository.findByOwnerDeletedAtIsNull(pageRequest);
+                page.forEach(this::put);
+                pageRequest = pageRequest.next();
+            } while (page.hasNext());
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Индекс поиска вещей перестроен: {} вещей, {} триграмм", items.size(), postings.size());
+    }
+
+    /**
+     * Adds or replaces the item in the index once the surrounding transaction commits.
+     */
+    public void index(Item item) {
+        if (!enabled) {
+            return;
+        }
+
+        Long itemId = item.getId();
+        IndexedItem indexedItem = new IndexedItem(normalize(item.getName()), normalize(item.getDescription()),
+                Boolean.TRUE.equals(item.getAvailable()));
+
+        TransactionUtils.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                put(itemId, indexedItem);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void remove(Long itemId) {
+        if (!enabled) {
+            return;
+        }
+
+        TransactionUtils.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                removeIndexed(itemId);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Returns ids of the available items matching the text, sorted by id and sliced by offset and size.
+     */
+    public List<Long> search(String text, long offset, int size) {
+        String query = normalize(text);
+
+        lock.readLock().lock();
+        try {
+            if (query.length() < GRAM_SIZE) {
+                return shortPostings.getOrDefault(query, Collections.emptyNavigableSet()).stream()
+                        .filter(itemId -> items.get(itemId).matches(query))
+                        .skip(offset)
+                        .limit(size)
+                        .collect(Collectors.toList());
+            }
+
+            return findCandidates(query).stream()
+                    .filter(itemId -> items.get(itemId).matches(query))
+                    .sorted()
+                    .skip(offset)
+                    .limit(size)
+                    .collect(Collectors.toList());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Collection<Long> findCandidates(String query) {
+        List<Set<Long>> queryPostings = new ArrayList<>();
+        for (String gram : grams(query, GRAM_SIZE)) {
+            Set<Long> itemIds = postings.get(gram);
+            if (itemIds == null) {
+                return List.of();
+            }
+            queryPostings.add(itemIds);
+        }
+
+        queryPostings.sort(Comparator.comparingInt(Set::size));
+        Set<Long> smallest = queryPostings.get(0);
+        List<Set<Long>> others = queryPostings.subList(1, queryPostings.size());
+
+        return smallest.stream()
+                .filter(itemId -> others.stream().allMatch(itemIds -> itemIds.contains(itemId)))
+                .collect(Collectors.toList());
+    }
+
+    private void put(Item item) {
+        put(item.getId(), new IndexedItem(normalize(item.getName()), normalize(item.getDescription()),
+                Boolean.TRUE.equals(item.getAvailable())));
+    }
+
+    private void put(Long itemId, IndexedItem indexedItem) {
+        removeIndexed(itemId);
+        items.put(itemId, indexedItem);
+
+        for (String gram : indexedItem.grams(GRAM_SIZE)) {
+            postings.computeIfAbsent(gram, key -> new HashSet<>()).add(itemId);
+        }
+        for (String gram : indexedItem.shortGrams()) {
+            shortPostings.computeIfAbsent(gram, key -> new TreeSet<>()).add(itemId);
+        }
+    }
+
+    private void removeIndexed(Long itemId) {
+        IndexedItem indexedItem = items.remove(itemId);
+        if (indexedItem == null) {
+            return;
+        }
+
+        for (String gram : indexedItem.grams(GRAM_SIZE)) {
+            removePosting(postings, gram, itemId);
+        }
+        for (String gram : indexedItem.shortGrams()) {
+            removePosting(shortPostings, gram, itemId);
+        }
+    }
+
+    private static <S extends Set<Long>> void removePosting(Map<String, S> postings, String gram, Long itemId) {
+        Set<Long> itemIds = postings.get(gram);
+        itemIds.remove(itemId);
+        if (itemIds.isEmpty()) {
+            postings.remove(gram);
+        }
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toUpperCase(Locale.ROOT);
+    }
+
+    private static Set<String> grams(String value, int gramSize) {
+        Set<String> grams = new HashSet<>();
+        for (int i = 0; i + gramSize <= value.length(); i++) {
+            grams.add(value.substring(i, i + gramSize));
+        }
+        return grams;
+    }
+
+    private static final class IndexedItem {
+
+        private final String name;
+        private final String description;
+        private final boolean available;
+
+        private IndexedItem(String name, String description, boolean available) {
+            this.name = name;
+            this.description = description;
+            this.available = available;
+        }
+
+        private boolean matches(String query) {
+            return available && (name.contains(query) || description.contains(query));
+        }
+
+        private Set<String> grams(int gramSize) {
+            Set<String> grams = ItemSearchIndex.grams(name, gramSize);
+            grams.addAll(ItemSearchIndex.grams(description, gramSize));
+            return grams;
+        }
+
+        private Set<String> shortGrams() {
+            Set<String> grams = new HashSet<>();
+            for (int gramSize = 1; gramSize < GRAM_SIZE; gramSize++) {
+                grams.addAll(grams(gramSize));
+            }
+            return grams;
+        }
+    }
+}
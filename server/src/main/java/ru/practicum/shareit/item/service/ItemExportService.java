@@ -0,0 +1,117 @@
+package ru.practicum.shareit.item.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.booking.archive.BookingArchive;
+import ru.practicum.shareit.booking.dto.BookingExportDto;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.common.service.ConsistencyService;
+import ru.practicum.shareit.common.service.NdjsonExporter;
+import ru.practicum.shareit.item.dto.ItemExportDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
+import ru.practicum.shareit.item.repository.ItemRepository;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Writes all items of an owner as newline-delimited JSON, one item per line, optionally with its bookings,
+ * archived ones included. Items, live bookings and archived bookings are read from forward-only cursors ordered by
+ * item id and merged on the fly, so memory use does not depend on the size of the catalog.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ItemExportService {
+
+    private final ConsistencyService consistencyService;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final BookingArchive bookingArchive;
+    private final ItemMapper itemMapper;
+    private final NdjsonExporter ndjsonExporter;
+
+    /**
+     * Checks the owner right away and returns the body that streams the export when the web layer starts writing
+     * the response.
+     */
+    public StreamingResponseBody export(Long userId, boolean includeBookings) {
+        consistencyService.checkUserExistence(userId);
+
+        return ndjsonExporter.export(ItemExportDto.class, () -> streamItems(userId, includeBookings),
+                count -> log.info("Пользователю с id = {} выгружено {} вещей", userId, count));
+    }
+
+    private Stream<ItemExportDto> streamItems(Long userId, boolean includeBookings) {
+        Stream<ItemExportDto> items = itemRepository.streamByOwnerId(userId)
+                .map(ndjsonExporter.detaching(itemMapper::toItemExportDto));
+
+        if (!includeBookings) {
+            return items;
+        }
+
+        Stream<BookingExportDto> bookings = bookingRepository.streamExportBookingsByOwnerId(userId);
+        Stream<BookingExportDto> archivedBookings = bookingArchive.streamExportBookingsByOwnerId(userId);
+        BookingMerge bookingMerge = new BookingMerge(List.of(new PendingBookings(bookings.iterator()),
+                new PendingBookings(archivedBookings.iterator())));
+
+        return items
+                .map(item -> {
+                    item.setBookings(bookingMerge.takeBookings(item.getId()));
+                    return item;
+                })
+                .onClose(bookings::close)
+                .onClose(archivedBookings::close);
+    }
+
+    /**
+     * Walks the live and archived bookings in item id order alongside the items.
+     */
+    private static final class BookingMerge {
+
+        private static final Comparator<BookingExportDto> ORDER = Comparator.comparing(BookingExportDto::getStart)
+                .thenComparing(BookingExportDto::getId);
+
+        private final List<PendingBookings> sources;
+
+        private BookingMerge(List<PendingBookings> sources) {
+            this.sources = sources;
+        }
+
+        private List<BookingExportDto> takeBookings(Long itemId) {
+            List<BookingExportDto> itemBookings = new ArrayList<>();
+
+            for (PendingBookings source : sources) {
+                source.takeBookings(itemId, itemBookings);
+            }
+            itemBookings.sort(ORDER);
+
+            return itemBookings;
+        }
+    }
+
+    private static final class PendingBookings {
+
+        private final Iterator<BookingExportDto> bookings;
+        private BookingExportDto pending;
+
+        private PendingBookings(Iterator<BookingExportDto> bookings) {
+            this.bookings = bookings;
+            this.pending = bookings.hasNext() ? bookings.next() : null;
+        }
+
+        private void takeBookings(Long itemId, List<BookingExportDto> itemBookings) {
+            while (pending != null && pending.getItemId() <= itemId) {
+                if (pending.getItemId().equals(itemId)) {
+                    itemBookings.add(pending);
+                }
+                pending = bookings.hasNext() ? bookings.next() : null;
+            }
+        }
+    }
+}
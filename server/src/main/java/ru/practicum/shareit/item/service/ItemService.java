@@ -2,8 +2,12 @@ package ru.practicum.shareit.item.service;
 
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Service
@@ -11,13 +15,24 @@ public interface ItemService {
 
     ItemDto add(ItemDto itemDto, Long userId);
 
+    List<ItemBatchResultDto> addAll(List<ItemDto> itemDtos, Long userId);
+
     ItemDto edit(ItemDto itemDto, Long itemId, Long userId);
 
     ItemDto get(Long itemId, Long userId);
 
+    ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to, boolean includeWaiting,
+                                        Long userId);
+
     List<ItemDto> getAll(Integer from, Integer size, Long userId);
 
     List<ItemDto> search(String text, Integer from, Integer size);
 
+    List<ItemDto> search(String text, LocalDateTime start, LocalDateTime end, Integer from, Integer size);
+
+    List<ItemSuggestionDto> suggest(String prefix, Integer size);
+
     CommentDto addComment(CommentDto comment, Long itemId, Long userId);
+
+    List<CommentDto> getComments(Long itemId, Integer from, Integer size, Long userId);
 }
@@ -6,45 +6,78 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.archive.BookingArchive;
+import ru.practicum.shareit.booking.dto.BookingShortDto;
 import ru.practicum.shareit.booking.mapper.BookingMapper;
 import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingTimeline;
 import ru.practicum.shareit.common.service.ConsistencyService;
 import ru.practicum.shareit.common.util.PageRequestUtils;
 import ru.practicum.shareit.exception.ItemNotFoundException;
 import ru.practicum.shareit.exception.NotEnoughRightsException;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
+import ru.practicum.shareit.item.dto.ItemCommentCount;
+import ru.practicum.shareit.item.dto.ItemCommentView;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
 import ru.practicum.shareit.item.mapper.CommentMapper;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.model.Comment;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.item.repository.CommentRepository;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemFullTextSearch;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.ValidationException;
+import javax.validation.Validator;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
-import static ru.practicum.shareit.booking.model.Status.APPROVED;
-
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ItemServiceImpl implements ItemService {
 
     private static final Sort ID_SORT = Sort.by("id");
+    private static final Sort COMMENTS_SORT = Sort.by(Sort.Direction.DESC, "created", "id");
+    private static final int RECENT_COMMENTS_LIMIT = 10;
+    private static final int DEFAULT_SUGGESTIONS_LIMIT = 10;
+    private static final int MAX_SUGGESTIONS_LIMIT = 50;
+    private static final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
     private final ConsistencyService consistencyService;
     private final CommentRepository commentRepository;
     private final BookingRepository bookingRepository;
+    private final BookingTimeline bookingTimeline;
     private final ItemRepository itemRepository;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemNameSuggester itemNameSuggester;
+    private final ItemFullTextSearch itemFullTextSearch;
+    private final ItemRequestRepository itemRequestRepository;
     private final UserRepository userRepository;
     private final CommentMapper commentMapper;
     private final BookingMapper bookingMapper;
     private final ItemMapper itemMapper;
+    private final BookingArchive bookingArchive;
 
     @Transactional
     @Override
@@ -54,16 +87,71 @@ public class ItemServiceImpl implements ItemService {
         Item item = itemMapper.toItem(itemDto);
         item.setOwner(userRepository.getReferenceById(userId));
 
-        return itemMapper.toItemDto(itemRepository.save(item));
+        Item savedItem = itemRepository.save(item);
+        itemSearchIndex.index(savedItem);
+        itemSearchCache.invalidate(savedItem.getId(), savedItem.getName(), savedItem.getDescription());
+        itemNameSuggester.index(savedItem);
+
+        return itemMapper.toItemDto(savedItem);
     }
 
     @Transactional
     @Override
-    public ItemDto edit(ItemDto itemDto, Long itemId, Long userId) {
+    public List<ItemBatchResultDto> addAll(List<ItemDto> itemDtos, Long userId) {
         consistencyService.checkUserExistence(userId);
-        consistencyService.checkItemExistence(itemId);
 
-        Item item = itemRepository.getReferenceById(itemId);
+        if (itemDtos == null || itemDtos.isEmpty()) {
+            String errorMessage = "Список вещей для создания не должен быть пустым!";
+            log.warn(errorMessage);
+            throw new ValidationException(errorMessage);
+        }
+
+        Set<Long> requestIds = itemDtos.stream()
+                .map(ItemDto::getRequestId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet());
+        Set<Long> existingRequestIds = requestIds.isEmpty() ? Set.of()
+                : itemRequestRepository.findExistingIds(requestIds);
+
+        List<ItemBatchResultDto> results = new ArrayList<>(itemDtos.size());
+        List<ItemBatchResultDto> acceptedResults = new ArrayList<>();
+        List<Item> items = new ArrayList<>();
+
+        for (int i = 0; i < itemDtos.size(); i++) {
+            ItemDto itemDto = itemDtos.get(i);
+            ItemBatchResultDto result = new ItemBatchResultDto(i, null, validateBatchItem(itemDto,
+                    existingRequestIds));
+
+            if (result.getError() == null) {
+                items.add(itemMapper.toItem(itemDto));
+                acceptedResults.add(result);
+            }
+
+            results.add(result);
+        }
+
+        if (!items.isEmpty()) {
+            List<Long> ids = itemRepository.insertAll(items, userId);
+
+            for (int i = 0; i < items.size(); i++) {
+                acceptedResults.get(i).setId(ids.get(i));
+                itemSearchIndex.index(items.get(i));
+                itemNameSuggester.index(items.get(i));
+            }
+
+            itemSearchCache.invalidate(items);
+        }
+
+        log.info("Пользователь с id = {} создал {} вещей из {}", userId, items.size(), itemDtos.size());
+
+        return results;
+    }
+
+    @Transactional
+    @Override
+    public ItemDto edit(ItemDto itemDto, Long itemId, Long userId) {
+        consistencyService.checkUserExistence(userId);
+        Item item = consistencyService.getItem(itemId);
 
         if (!userId.equals(item.getOwner().getId())) {
             String errorMessage = String.format("У пользователя c id = %d нет вещи с id = %d!", userId, itemId);
@@ -71,6 +159,9 @@ public class ItemServiceImpl implements ItemService {
             throw new ItemNotFoundException(errorMessage);
         }
 
+        String oldName = item.getName();
+        String oldDescription = item.getDescription();
+
         if (itemDto.getName() != null) {
             item.setName(itemDto.getName());
         }
@@ -83,54 +174,121 @@ public class ItemServiceImpl implements ItemService {
             item.setAvailable(itemDto.getAvailable());
         }
 
-        return itemMapper.toItemDto(itemRepository.save(item));
+        Item savedItem = itemRepository.save(item);
+        itemSearchIndex.index(savedItem);
+        itemSearchCache.invalidate(itemId, oldName, oldDescription, savedItem.getName(), savedItem.getDescription());
+        itemNameSuggester.index(savedItem);
+
+        return itemMapper.toItemDto(savedItem);
     }
 
     @Transactional(readOnly = true)
     @Override
     public ItemDto get(Long itemId, Long userId) {
-        consistencyService.checkItemExistence(itemId);
-
-        Item item = itemRepository.getReferenceById(itemId);
+        Item item = consistencyService.getItem(itemId);
         ItemDto itemDto = itemMapper.toItemDto(item);
 
-        if (isOwner(userId, itemId)) {
+        if (userId.equals(item.getOwner().getId())) {
             LocalDateTime dateTime = LocalDateTime.now();
 
-            itemDto.setLastBooking(bookingMapper.toBookingShortDto(getLastBooking(itemId, dateTime)));
-            itemDto.setNextBooking(bookingMapper.toBookingShortDto(getNextBooking(itemId, dateTime)));
+            itemDto.setLastBooking(bookingTimeline.getLastBooking(itemId, dateTime));
+            itemDto.setNextBooking(bookingTimeline.getNextBooking(itemId, dateTime));
         }
 
+        addComments(List.of(itemDto));
+
         return itemDto;
     }
 
+    /**
+     * Returns the busy and free periods of the item within the window. The taken bookings come from one range query
+     * ordered by start and are merged into disjoint periods in a single pass; the archive is read only when the
+     * window reaches back past its cutoff.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public ItemAvailabilityDto getAvailability(Long itemId, LocalDateTime from, LocalDateTime to,
+                                               boolean includeWaiting, Long userId) {
+        consistencyService.checkUserExistence(userId);
+        consistencyService.checkItemExistence(itemId);
+
+        if (!from.isBefore(to)) {
+            String errorMessage = "Параметр from должен быть раньше to!";
+            log.warn(errorMessage);
+            throw new ValidationException(errorMessage);
+        }
+
+        List<Status> statuses = includeWaiting ? List.of(Status.APPROVED, Status.WAITING) : List.of(Status.APPROVED);
+        List<AvailabilityIntervalDto> bookings = bookingRepository.findBusyIntervalsByItemIdOverlapping(itemId, from,
+                to, statuses, LocalDateTime.now());
+
+        if (from.isBefore(bookingArchive.getCutoff())) {
+            bookings = new ArrayList<>(bookings);
+            bookings.addAll(bookingArchive.findBusyIntervals(itemId, from, to, statuses));
+            bookings.sort(Comparator.comparing(AvailabilityIntervalDto::getStart));
+        }
+
+        List<AvailabilityIntervalDto> busy = new ArrayList<>();
+        List<AvailabilityIntervalDto> free = new ArrayList<>();
+        LocalDateTime freeFrom = from;
+
+        for (AvailabilityIntervalDto booking : bookings) {
+            LocalDateTime start = booking.getStart().isBefore(from) ? from : booking.getStart();
+            LocalDateTime end = booking.getEnd().isAfter(to) ? to : booking.getEnd();
+
+            if (start.isAfter(freeFrom)) {
+                free.add(new AvailabilityIntervalDto(freeFrom, start));
+                busy.add(new AvailabilityIntervalDto(start, end));
+            } else if (busy.isEmpty()) {
+                busy.add(new AvailabilityIntervalDto(start, end));
+            } else if (end.isAfter(freeFrom)) {
+                busy.get(busy.size() - 1).setEnd(end);
+            }
+
+            if (end.isAfter(freeFrom)) {
+                freeFrom = end;
+            }
+        }
+
+        if (freeFrom.isBefore(to)) {
+            free.add(new AvailabilityIntervalDto(freeFrom, to));
+        }
+
+        return new ItemAvailabilityDto(itemId, from, to, busy, free);
+    }
+
     @Transactional(readOnly = true)
     @Override
     public List<ItemDto> getAll(Integer from, Integer size, Long userId) {
         consistencyService.checkUserExistence(userId);
 
         PageRequest pageRequest = PageRequestUtils.getPageRequest(from, size, ID_SORT);
+        List<Item> items = itemRepository.findByOwnerId(userId, pageRequest).getContent();
 
-        List<ItemDto> allItems = itemRepository.findByOwnerId(userId, pageRequest).stream()
-                .map(itemMapper::toItemDto)
-                .sorted(Comparator.comparing(ItemDto::getId))
+        if (items.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> itemIds = items.stream()
+                .map(Item::getId)
                 .collect(Collectors.toList());
 
         LocalDateTime dateTime = LocalDateTime.now();
+        Map<Long, BookingShortDto> lastBookings = getLastBookings(itemIds, dateTime);
+        Map<Long, BookingShortDto> nextBookings = getNextBookings(itemIds, dateTime);
 
-        for (ItemDto itemDto : allItems) {
-            Booking lastBooking = getLastBooking(itemDto.getId(), dateTime);
-            Booking nextBooking = getNextBooking(itemDto.getId(), dateTime);
+        List<ItemDto> allItems = new ArrayList<>();
 
-            itemDto.setLastBooking(lastBooking != null ? bookingMapper.toBookingShortDto(lastBooking) : null);
-            itemDto.setNextBooking(nextBooking != null ? bookingMapper.toBookingShortDto(nextBooking) : null);
+        for (Item item : items) {
+            ItemDto itemDto = itemMapper.toItemDto(item);
 
-            itemDto.setComments(commentRepository.findCommentsByItemId(itemDto.getId()).stream()
-                    .map(commentMapper::toCommentDto)
-                    .collect(Collectors.toList()));
+            itemDto.setLastBooking(lastBookings.get(item.getId()));
+            itemDto.setNextBooking(nextBookings.get(item.getId()));
+
+            allItems.add(itemDto);
         }
 
-        return allItems;
+        return addComments(allItems);
     }
 
     @Transactional(readOnly = true)
@@ -142,9 +300,51 @@ public class ItemServiceImpl implements ItemService {
 
         PageRequest pageRequest = PageRequestUtils.getPageRequest(from, size, ID_SORT);
 
-        return itemRepository.search(text.toLowerCase(), pageRequest).stream()
+        return itemSearchCache.get(text, pageRequest.getOffset(), pageRequest.getPageSize(),
+                () -> searchUncached(text, pageRequest));
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<ItemDto> search(String text, LocalDateTime start, LocalDateTime end, Integer from, Integer size) {
+        if (start == null && end == null) {
+            return search(text, from, size);
+        }
+
+        if (start == null || end == null || !start.isBefore(end)) {
+            String errorMessage = "Параметры start и end должны быть указаны вместе, и start должен быть раньше end!";
+            log.warn(errorMessage);
+            throw new ValidationException(errorMessage);
+        }
+
+        if (text.isBlank()) {
+            return new ArrayList<>();
+        }
+
+        PageRequest pageRequest = PageRequestUtils.getPageRequest(from, size, ID_SORT);
+        List<Item> items = itemFullTextSearch.isEnabled()
+                ? itemFullTextSearch.search(text, start, end, pageRequest)
+                : itemRepository.searchAvailableBetween(text.toLowerCase(), start, end, LocalDateTime.now(),
+                        pageRequest).getContent();
+
+        return addComments(items.stream()
                 .map(itemMapper::toItemDto)
-                .collect(Collectors.toList());
+                .collect(Collectors.toList()));
+    }
+
+    @Override
+    public List<ItemSuggestionDto> suggest(String prefix, Integer size) {
+        if (size != null && size <= 0) {
+            log.warn("Параметр size должен быть больше 0 или равен null!");
+            throw new ValidationException("Параметр size должен быть больше 0 или равен null!");
+        }
+
+        if (prefix.isBlank() || !itemNameSuggester.isEnabled()) {
+            return new ArrayList<>();
+        }
+
+        return itemNameSuggester.suggest(prefix, size == null ? DEFAULT_SUGGESTIONS_LIMIT
+                : Math.min(size, MAX_SUGGESTIONS_LIMIT));
     }
 
     @Transactional
@@ -156,7 +356,7 @@ public class ItemServiceImpl implements ItemService {
         List<Booking> bookings = bookingRepository.findPastAndCurrentActiveBookingsByBookerIdAndItemId(userId, itemId,
                 dateTime);
 
-        if (bookings.isEmpty()) {
+        if (bookings.isEmpty() && !bookingArchive.hasApprovedBooking(userId, itemId)) {
             String errorMessage = String.format("Пользователь с id = %d никогда не бронировал вещь с id = %d!", userId,
                     itemId);
             log.warn(errorMessage);
@@ -168,32 +368,138 @@ public class ItemServiceImpl implements ItemService {
         comment.setAuthor(userRepository.getReferenceById(userId));
         comment.setCreated(dateTime);
 
-        return commentMapper.toCommentDto(commentRepository.save(comment));
+        Comment savedComment = commentRepository.save(comment);
+        itemSearchCache.invalidate(itemId);
+
+        return commentMapper.toCommentDto(savedComment);
+    }
+
+    @Transactional(readOnly = true)
+    @Override
+    public List<CommentDto> getComments(Long itemId, Integer from, Integer size, Long userId) {
+        consistencyService.checkUserExistence(userId);
+        consistencyService.checkItemExistence(itemId);
+
+        return commentRepository.findCommentsByItemId(itemId, PageRequestUtils.getPageRequest(from, size,
+                COMMENTS_SORT));
+    }
+
+    private String validateBatchItem(ItemDto itemDto, Set<Long> existingRequestIds) {
+        if (itemDto == null) {
+            return "Вещь не должна быть пустой!";
+        }
+
+        Set<ConstraintViolation<ItemDto>> violations = validator.validate(itemDto);
+        if (!violations.isEmpty()) {
+            return violations.iterator().next().getMessage();
+        }
+
+        if (itemDto.getRequestId() != null && !existingRequestIds.contains(itemDto.getRequestId())) {
+            return String.format("Запрос c id = %d не найден!", itemDto.getRequestId());
+        }
+
+        return null;
     }
 
-    private boolean isOwner(Long userId, Long itemId) {
-        return itemRepository.getReferenceById(itemId).getOwner().getId().equals(userId);
+    private List<ItemDto> addComments(List<ItemDto> items) {
+        if (items.isEmpty()) {
+            return items;
+        }
+
+        List<Long> itemIds = items.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+
+        Map<Long, List<CommentDto>> comments = commentRepository.findRecentCommentsByItemIds(itemIds,
+                        RECENT_COMMENTS_LIMIT).stream()
+                .collect(Collectors.groupingBy(ItemCommentView::getItemId,
+                        Collectors.mapping(commentMapper::toCommentDto, Collectors.toList())));
+        Map<Long, Long> commentCounts = commentRepository.countCommentsByItemIds(itemIds).stream()
+                .collect(Collectors.toMap(ItemCommentCount::getItemId, ItemCommentCount::getCommentCount));
+
+        for (ItemDto itemDto : items) {
+            itemDto.setComments(comments.getOrDefault(itemDto.getId(), new ArrayList<>()));
+            itemDto.setCommentCount(commentCounts.getOrDefault(itemDto.getId(), 0L));
+        }
+
+        return items;
+    }
+
+    private List<ItemDto> searchUncached(String text, PageRequest pageRequest) {
+        List<ItemDto> foundItems;
+
+        if (itemSearchIndex.isEnabled()) {
+            foundItems = searchInIndex(text, pageRequest);
+        } else if (itemFullTextSearch.isEnabled()) {
+            foundItems = itemFullTextSearch.search(text, pageRequest).stream()
+                    .map(itemMapper::toItemDto)
+                    .collect(Collectors.toList());
+        } else {
+            foundItems = searchInRepository(text, pageRequest);
+        }
+
+        return addComments(foundItems);
+    }
+
+    private List<ItemDto> searchInIndex(String text, PageRequest pageRequest) {
+        List<Long> itemIds = itemSearchIndex.search(text, pageRequest.getOffset(), pageRequest.getPageSize());
+        Map<Long, Item> itemsById = itemRepository.findAllActiveById(itemIds).stream()
+                .collect(Collectors.toMap(Item::getId, Function.identity()));
+
+        List<ItemDto> foundItems = itemIds.stream()
+                .map(itemsById::get)
+                .filter(Objects::nonNull)
+                .map(itemMapper::toItemDto)
+                .collect(Collectors.toList());
+
+        if (itemSearchIndex.isVerifyEnabled()) {
+            List<ItemDto> expectedItems = searchInRepository(text, pageRequest);
+
+            if (!expectedItems.equals(foundItems)) {
+                log.warn("Результаты поиска по индексу и по БД для text = '{}' (offset = {}, size = {}) расходятся: " +
+                        "{} и {}", text, pageRequest.getOffset(), pageRequest.getPageSize(), getIds(foundItems),
+                        getIds(expectedItems));
+                return expectedItems;
+            }
+        }
+
+        return foundItems;
     }
 
-    private Booking getLastBooking(Long itemId, LocalDateTime dateTime) {
-        List<Booking> approvedItemBookings = bookingRepository.findAllBookingsByItemId(itemId).stream()
-                .filter(booking -> APPROVED.equals(booking.getStatus()))
+    private List<ItemDto> searchInRepository(String text, PageRequest pageRequest) {
+        return itemRepository.search(text.toLowerCase(), pageRequest).stream()
+                .map(itemMapper::toItemDto)
                 .collect(Collectors.toList());
+    }
 
-        return approvedItemBookings.stream()
-                .filter(booking -> booking.getStart().isBefore(dateTime))
-                .max(Comparator.comparing(Booking::getStart))
-                .orElse(null);
+    private List<Long> getIds(List<ItemDto> items) {
+        return items.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
     }
 
-    private Booking getNextBooking(Long itemId, LocalDateTime dateTime) {
-        List<Booking> approvedItemBookings = bookingRepository.findAllBookingsByItemId(itemId).stream()
-                .filter(booking -> APPROVED.equals(booking.getStatus()))
+    private Map<Long, BookingShortDto> getLastBookings(List<Long> itemIds, LocalDateTime dateTime) {
+        Map<Long, BookingShortDto> lastBookings = bookingRepository.findLastApprovedBookingsByItemIds(itemIds,
+                        dateTime).stream()
+                .collect(Collectors.toMap(booking -> booking.getItem().getId(), bookingMapper::toBookingShortDto,
+                        (first, second) -> first));
+
+        List<Long> itemIdsWithoutLastBooking = itemIds.stream()
+                .filter(itemId -> !lastBookings.containsKey(itemId))
                 .collect(Collectors.toList());
 
-        return approvedItemBookings.stream()
-                .filter(booking -> booking.getStart().isAfter(dateTime))
-                .min(Comparator.comparing(Booking::getStart))
-                .orElse(null);
+        if (!itemIdsWithoutLastBooking.isEmpty()) {
+            bookingArchive.findLastApprovedBookings(itemIdsWithoutLastBooking)
+                    .forEach(booking -> lastBookings.putIfAbsent(booking.getItem().getId(),
+                            bookingMapper.toBookingShortDto(booking)));
+        }
+
+        return lastBookings;
+    }
+
+    private Map<Long, BookingShortDto> getNextBookings(List<Long> itemIds, LocalDateTime dateTime) {
+        return bookingRepository.findNextApprovedBookingsByItemIds(itemIds, dateTime).stream()
+                .collect(Collectors.toMap(booking -> booking.getItem().getId(), bookingMapper::toBookingShortDto,
+                        (first, second) -> first));
     }
 }
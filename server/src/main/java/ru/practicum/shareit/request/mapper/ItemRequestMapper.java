@@ -1,6 +1,7 @@
 package ru.practicum.shareit.request.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.request.dto.ItemRequestDto;
 import ru.practicum.shareit.request.model.ItemRequest;
@@ -9,6 +10,7 @@ import ru.practicum.shareit.user.mapper.UserMapper;
 @Mapper(componentModel = "spring", uses = {UserMapper.class, ItemMapper.class})
 public interface ItemRequestMapper {
 
+    @Mapping(target = "requester.deletedAt", ignore = true)
     ItemRequest toItemRequest(ItemRequestDto itemRequestDto);
 
     ItemRequestDto toItemRequestDto(ItemRequest itemRequest);
@@ -1,6 +1,7 @@
 package ru.practicum.shareit.request.model;
 
 import lombok.Data;
+import org.hibernate.annotations.Where;
 import ru.practicum.shareit.item.model.Item;
 import ru.practicum.shareit.user.model.User;
 
@@ -34,6 +35,10 @@ public class ItemRequest {
 
     private LocalDateTime created;
 
+    /**
+     * Items created in answer to the request, without those of deleted owners.
+     */
+    @Where(clause = "owner_id in (select u.id from users u where u.deleted_at is null)")
     @OneToMany(mappedBy = "requestId", fetch = FetchType.LAZY)
     private List<Item> items;
 }
@@ -1,13 +1,34 @@
 package ru.practicum.shareit.request.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.request.model.ItemRequest;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 
 @Repository
 public interface ItemRequestRepository extends JpaRepository<ItemRequest, Long> {
 
     List<ItemRequest> findAllByRequesterId(Long userId);
+
+    List<ItemRequest> findByRequesterDeletedAtIsNull(Pageable pageable);
+
+    @Query("select r from ItemRequest r where r.id = ?1 and r.requester.deletedAt is null")
+    Optional<ItemRequest> findActiveById(Long requestId);
+
+    @Query("select r.id from ItemRequest r where r.id in ?1 and r.requester.deletedAt is null")
+    Set<Long> findExistingIds(Collection<Long> ids);
+
+    @Query("select r.id from ItemRequest r where r.requester.id = ?1")
+    List<Long> findIdsByRequesterId(Long requesterId, Pageable pageable);
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from ItemRequest r where r.id in ?1")
+    int deleteAllByIds(Collection<Long> requestIds);
 }
@@ -58,7 +58,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
         Sort sort = Sort.by(Sort.Direction.DESC, "created");
         PageRequest pageRequest = PageRequestUtils.getPageRequest(from, size, sort);
 
-        return itemRequestRepository.findAll(pageRequest).stream()
+        return itemRequestRepository.findByRequesterDeletedAtIsNull(pageRequest).stream()
                 .filter(itemRequest -> !itemRequest.getRequester().getId().equals(userId))
                 .map(itemRequestMapper::toItemRequestDto)
                 .collect(Collectors.toList());
@@ -68,8 +68,7 @@ public class ItemRequestServiceImpl implements ItemRequestService {
     @Override
     public ItemRequestDto getById(Long requestId, Long userId) {
         consistencyService.checkUserExistence(userId);
-        consistencyService.checkItemRequestExistence(requestId);
 
-        return itemRequestMapper.toItemRequestDto(itemRequestRepository.getReferenceById(requestId));
+        return itemRequestMapper.toItemRequestDto(consistencyService.getItemRequest(requestId));
     }
 }
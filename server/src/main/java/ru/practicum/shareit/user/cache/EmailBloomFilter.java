@@ -0,0 +1,234 @@
+package ru.practicum.shareit.user.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.common.util.TransactionUtils;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of the registered e-mails. A miss means the e-mail is definitely free, so registration skips the
+ * uniqueness probe and only a possible hit goes to the unique index. The filter is built from the users table at
+ * startup and gets every e-mail saved afterwards. E-mails of deleted or changed users cannot be removed and only
+ * cause false positives; the filter is rebuilt when they make up too large a share.
+ * <p>
+ * E-mails saved by other instances are not seen until the next rebuild, so the unique index stays the final check.
+ */
+@Slf4j
+@Component
+public class EmailBloomFilter {
+
+    private final UserRepository userRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final long expectedInsertions;
+    private final double falsePositiveProbability;
+    private final double staleRatio;
+
+    private volatile Bits bits;
+    private volatile Bits rebuilding;
+    private final AtomicLong stale = new AtomicLong();
+
+    private final Counter definiteMisses;
+    private final Counter possibleHits;
+
+    @Autowired
+    public EmailBloomFilter(UserRepository userRepository,
+                            PlatformTransactionManager transactionManager,
+                            MeterRegistry meterRegistry,
+                            @Value("${shareit.user.email-filter.enabled:true}") boolean enabled,
+                            @Value("${shareit.user.email-filter.expected-insertions:1000000}") long expectedInsertions,
+                            @Value("${shareit.user.email-filter.false-positive-probability:0.01}")
+                            double falsePositiveProbability,
+                            @Value("${shareit.user.email-filter.stale-ratio:0.1}") double staleRatio) {
+        this.userRepository = userRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.expectedInsertions = expectedInsertions;
+        this.falsePositiveProbability = falsePositiveProbability;
+        this.staleRatio = staleRatio;
+
+        definiteMisses = meterRegistry.counter("shareit.user.email-filter.requests", "result", "miss");
+        possibleHits = meterRegistry.counter("shareit.user.email-filter.requests", "result", "possible-hit");
+    }
+
+    /**
+     * Returns {@code false} only when no user has the e-mail. Until the filter is built every e-mail is a possible
+     * hit.
+     */
+    public boolean mightContain(String email) {
+        if (!enabled) {
+            return true;
+        }
+
+        Bits current = bits;
+
+        if (current == null || current.mightContain(normalize(email))) {
+            possibleHits.increment();
+            return true;
+        }
+
+        definiteMisses.increment();
+        return false;
+    }
+
+    /**
+     * Adds the e-mail right away, so a registration rolled back later only leaves a false positive, and once more
+     * after the surrounding transaction commits: a rebuild that has read the table before the commit gets the
+     * e-mail then.
+     */
+    public void add(String email) {
+        if (!enabled) {
+            return;
+        }
+
+        String normalizedEmail = normalize(email);
+
+        put(normalizedEmail);
+        TransactionUtils.afterCommit(() -> put(normalizedEmail));
+    }
+
+    /**
+     * Counts an e-mail that is no longer registered but stays in the filter.
+     */
+    public void markRemoved() {
+        if (enabled) {
+            TransactionUtils.afterCommit(stale::incrementAndGet);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        if (!enabled) {
+            return;
+        }
+
+        long count = userRepository.count();
+        Bits next = new Bits(Math.max(expectedInsertions, 2 * count), falsePositiveProbability);
+
+        rebuilding = next;
+        stale.set(0);
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                try (Stream<String> emails = userRepository.streamAllEmails()) {
+                    emails.forEach(email -> next.put(normalize(email)));
+                }
+            });
+            bits = next;
+        } finally {
+            rebuilding = null;
+        }
+
+        log.info("Фильтр зарегистрированных e-mail перестроен: {} пользователей, {} бит", count, next.size);
+    }
+
+    @Scheduled(fixedDelayString = "${shareit.user.email-filter.check-interval:PT1M}")
+    public void rebuildIfStale() {
+        Bits current = bits;
+
+        if (current != null && stale.get() > staleRatio * Math.max(1, current.insertions.get())) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Puts the e-mail into the rebuild in progress before the current filter, so a rebuild that completes in
+     * between still has it.
+     */
+    private void put(String normalizedEmail) {
+        Bits next = rebuilding;
+        if (next != null) {
+            next.put(normalizedEmail);
+        }
+
+        Bits current = bits;
+        if (current != null && current != next) {
+            current.put(normalizedEmail);
+        }
+    }
+
+    private static String normalize(String email) {
+        return email.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Bit array of the filter. The probed positions come from two 64-bit hashes of the e-mail by double hashing.
+     */
+    private static final class Bits {
+
+        private final AtomicLongArray words;
+        private final long size;
+        private final int hashCount;
+        private final AtomicLong insertions = new AtomicLong();
+
+        private Bits(long expectedInsertions, double falsePositiveProbability) {
+            long bitCount = (long) Math.ceil(-expectedInsertions * Math.log(falsePositiveProbability)
+                    / (Math.log(2) * Math.log(2)));
+
+            words = new AtomicLongArray((int) Math.max(1, (bitCount + 63) >>> 6));
+            size = (long) words.length() << 6;
+            hashCount = Math.max(1, (int) Math.round((double) size / Math.max(1, expectedInsertions) * Math.log(2)));
+        }
+
+        private void put(String email) {
+            long hash1 = hash(email);
+            long hash2 = mix(hash1) | 1;
+
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, size);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+
+                long value = words.get(word);
+                while ((value & mask) == 0 && !words.compareAndSet(word, value, value | mask)) {
+                    value = words.get(word);
+                }
+            }
+
+            insertions.incrementAndGet();
+        }
+
+        private boolean mightContain(String email) {
+            long hash1 = hash(email);
+            long hash2 = mix(hash1) | 1;
+
+            for (int i = 0; i < hashCount; i++) {
+                long bit = Math.floorMod(hash1 + i * hash2, size);
+                if ((words.get((int) (bit >>> 6)) & 1L << bit) == 0) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        private static long hash(String value) {
+            long hash = 0xcbf29ce484222325L;
+            for (int i = 0; i < value.length(); i++) {
+                hash = (hash ^ value.charAt(i)) * 0x100000001b3L;
+            }
+            return mix(hash);
+        }
+
+        private static long mix(long value) {
+            value = (value ^ value >>> 30) * 0xbf58476d1ce4e5b9L;
+            value = (value ^ value >>> 27) * 0x94d049bb133111ebL;
+            return value ^ value >>> 31;
+        }
+    }
+}
@@ -0,0 +1,207 @@
+package ru.practicum.shareit.user.cache;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.practicum.shareit.common.util.TransactionUtils;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Near-cache of the user ids known to exist, so the existence check behind every {@code X-Sharer-User-Id} does not
+ * go to the database each time. The ids are kept in a fixed-size open-addressing table of primitive longs: each id
+ * may sit in one of two adjacent slots of its bucket and a full bucket overwrites one of them, so the cache is
+ * bounded without locks or boxing. Ids are added only after the transaction that saw the user commits and are
+ * dropped after a deleting transaction commits.
+ * <p>
+ * A transaction that read the user before the deletion committed may commit after it and add the id back. Deleted
+ * ids are therefore kept as tombstones for a time well above the longest transaction, and an id is added only if it
+ * has no tombstone. The tombstone is written before the deleting transaction commits and checked after the id is
+ * written, so a late add either sees it or is undone by the removal that follows the commit.
+ * <p>
+ * Unknown ids may be remembered for a short time as well, which keeps repeated requests with a wrong header off
+ * the database. Such an entry is not dropped when a user gets that id, so the time to live should stay short.
+ */
+@Component
+public class UserIdCache {
+
+    private static final long EMPTY = 0;
+
+    private final boolean enabled;
+    private final int mask;
+    private final AtomicLongArray knownIds;
+    private final AtomicLongArray unknownIds;
+    private final AtomicLongArray unknownExpirations;
+    private final long negativeTtlNanos;
+    private final Map<Long, Long> tombstoneExpirations = new ConcurrentHashMap<>();
+    private final long tombstoneTtlNanos;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Counter negativeHits;
+
+    @Autowired
+    public UserIdCache(MeterRegistry meterRegistry,
+                       @Value("${shareit.user.id-cache.enabled:true}") boolean enabled,
+                       @Value("${shareit.user.id-cache.capacity:65536}") int capacity,
+                       @Value("${shareit.user.id-cache.negative-ttl:PT0S}") Duration negativeTtl,
+                       @Value("${shareit.user.id-cache.tombstone-ttl:PT10M}") Duration tombstoneTtl) {
+        int size = Math.max(2, Integer.highestOneBit(Math.max(1, capacity - 1)) << 1);
+
+        this.enabled = enabled;
+        this.mask = size - 2;
+        this.knownIds = new AtomicLongArray(size);
+        this.unknownIds = new AtomicLongArray(negativeTtl.isZero() ? 0 : size);
+        this.unknownExpirations = new AtomicLongArray(negativeTtl.isZero() ? 0 : size);
+        this.negativeTtlNanos = negativeTtl.toNanos();
+        this.tombstoneTtlNanos = tombstoneTtl.toNanos();
+
+        FunctionCounter.builder("shareit.user.id-cache.requests", hits, LongAdder::sum)
+                .tag("result", "hit")
+                .register(meterRegistry);
+        FunctionCounter.builder("shareit.user.id-cache.requests", misses, LongAdder::sum)
+                .tag("result", "miss")
+                .register(meterRegistry);
+        negativeHits = meterRegistry.counter("shareit.user.id-cache.requests", "result", "negative-hit");
+        Gauge.builder("shareit.user.id-cache.hit-ratio", this, UserIdCache::getHitRatio)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Returns {@code true} when the user is known to exist.
+     */
+    public boolean isKnown(long userId) {
+        if (!enabled) {
+            return false;
+        }
+
+        int bucket = bucket(userId);
+
+        if (knownIds.get(bucket) == userId || knownIds.get(bucket + 1) == userId) {
+            hits.increment();
+            return true;
+        }
+
+        misses.increment();
+        return false;
+    }
+
+    /**
+     * Returns {@code true} when the user was recently found not to exist.
+     */
+    public boolean isUnknown(long userId) {
+        if (!enabled || negativeTtlNanos == 0) {
+            return false;
+        }
+
+        int bucket = bucket(userId);
+
+        for (int slot = bucket; slot < bucket + 2; slot++) {
+            if (unknownIds.get(slot) == userId && unknownExpirations.get(slot) - System.nanoTime() > 0
+                    && unknownIds.get(slot) == userId) {
+                negativeHits.increment();
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    /**
+     * Remembers the user once the surrounding transaction commits.
+     */
+    public void addKnown(long userId) {
+        if (enabled) {
+            TransactionUtils.afterCommit(() -> putKnown(userId));
+        }
+    }
+
+    /**
+     * Remembers for a short time that the user does not exist.
+     */
+    public void addUnknown(long userId) {
+        if (!enabled || negativeTtlNanos == 0) {
+            return;
+        }
+
+        int slot = put(unknownIds, userId);
+        unknownExpirations.set(slot, System.nanoTime() + negativeTtlNanos);
+    }
+
+    /**
+     * Forgets the user once the surrounding transaction commits, after it was deleted. The tombstone is written at
+     * once; if the transaction rolls back, it only keeps the user out of the cache until it expires.
+     */
+    public void invalidate(long userId) {
+        if (!enabled) {
+            return;
+        }
+
+        long now = System.nanoTime();
+        tombstoneExpirations.values().removeIf(expiration -> expiration - now <= 0);
+        tombstoneExpirations.put(userId, now + tombstoneTtlNanos);
+
+        TransactionUtils.afterCommit(() -> {
+            remove(knownIds, userId);
+
+            if (negativeTtlNanos != 0) {
+                remove(unknownIds, userId);
+            }
+        });
+    }
+
+    public double getHitRatio() {
+        long hitCount = hits.sum();
+        long total = hitCount + misses.sum();
+
+        return total == 0 ? 0 : (double) hitCount / total;
+    }
+
+    private void putKnown(long userId) {
+        put(knownIds, userId);
+
+        if (isTombstoned(userId)) {
+            remove(knownIds, userId);
+        }
+    }
+
+    private boolean isTombstoned(long userId) {
+        Long expiration = tombstoneExpirations.get(userId);
+        return expiration != null && expiration - System.nanoTime() > 0;
+    }
+
+    private int put(AtomicLongArray ids, long userId) {
+        int bucket = bucket(userId);
+
+        for (int slot = bucket; slot < bucket + 2; slot++) {
+            long current = ids.get(slot);
+            if (current == userId || current == EMPTY && ids.compareAndSet(slot, EMPTY, userId)) {
+                return slot;
+            }
+        }
+
+        int slot = bucket + (int) (userId >>> 1 & 1);
+        ids.set(slot, userId);
+        return slot;
+    }
+
+    private void remove(AtomicLongArray ids, long userId) {
+        int bucket = bucket(userId);
+
+        ids.compareAndSet(bucket, userId, EMPTY);
+        ids.compareAndSet(bucket + 1, userId, EMPTY);
+    }
+
+    private int bucket(long userId) {
+        long hash = userId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ hash >>> 32) & mask;
+    }
+}
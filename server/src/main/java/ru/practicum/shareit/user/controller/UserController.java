@@ -1,6 +1,7 @@
 package ru.practicum.shareit.user.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -9,10 +10,14 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.practicum.shareit.exception.EmailAlreadyExistsException;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserPageDto;
 import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.service.UserExportService;
 import ru.practicum.shareit.user.service.UserService;
 
 import javax.validation.Valid;
@@ -23,7 +28,10 @@ import java.util.List;
 @RequiredArgsConstructor
 public class UserController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     private final UserService userService;
+    private final UserExportService userExportService;
 
     @PostMapping
     public ResponseEntity<UserDto> createUser(@Valid @RequestBody User user) throws EmailAlreadyExistsException {
@@ -41,8 +49,20 @@ public class UserController {
     }
 
     @GetMapping
-    public ResponseEntity<List<UserDto>> getAllUsers() {
-        return ResponseEntity.ok().body(userService.getAll());
+    public ResponseEntity<List<UserDto>> getAllUsers(@RequestParam(name = "from", required = false) Integer from,
+                                                     @RequestParam(name = "size", required = false) Integer size) {
+        return ResponseEntity.ok().body(userService.getAll(from, size));
+    }
+
+    @GetMapping(params = "cursor")
+    public ResponseEntity<UserPageDto> getUsersPage(@RequestParam(name = "cursor") String cursor,
+                                                    @RequestParam(name = "size", required = false) Integer size) {
+        return ResponseEntity.ok().body(userService.getPage(cursor, size));
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportUsers() {
+        return ResponseEntity.ok().contentType(NDJSON).body(userExportService.export());
     }
 
     @DeleteMapping("/{userId}")
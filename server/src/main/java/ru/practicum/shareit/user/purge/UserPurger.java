@@ -0,0 +1,216 @@
+package ru.practicum.shareit.user.purge;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.practicum.shareit.booking.repository.ArchivedBookingRepository;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.item.repository.CommentRepository;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.request.repository.ItemRequestRepository;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Removes deleted users together with everything that refers to them. Deleting a user only marks the row, so the
+ * user disappears from reads at once; this job then deletes the dependent rows step by step, leaves first, in
+ * batches of ids that each commit in their own transaction, so no batch holds locks on the booking tables for
+ * long. A run stops after a fixed number of batches and the next run picks up where it stopped: a finished step
+ * finds no rows left, so the progress lives in the tables themselves and survives a restart.
+ * <p>
+ * Items that other users created in answer to a request of the deleted user are still removed by the foreign key
+ * cascade of the request.
+ */
+@Slf4j
+@Component
+public class UserPurger {
+
+    private final UserRepository userRepository;
+    private final ItemSearchCache itemSearchCache;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int batchSize;
+    private final int maxBatchesPerRun;
+    private final List<Step> steps;
+
+    private final AtomicLong pendingUsers = new AtomicLong();
+    private final Counter purgedUsers;
+
+    @Autowired
+    public UserPurger(UserRepository userRepository,
+                      BookingRepository bookingRepository,
+                      ArchivedBookingRepository archivedBookingRepository,
+                      CommentRepository commentRepository,
+                      ItemRepository itemRepository,
+                      ItemRequestRepository itemRequestRepository,
+                      ItemSearchIndex itemSearchIndex,
+                      ItemSearchCache itemSearchCache,
+                      PlatformTransactionManager transactionManager,
+                      MeterRegistry meterRegistry,
+                      @Value("${shareit.user.purge.enabled:true}") boolean enabled,
+                      @Value("${shareit.user.purge.batch-size:500}") int batchSize,
+                      @Value("${shareit.user.purge.max-batches-per-run:20}") int maxBatchesPerRun) {
+        this.userRepository = userRepository;
+        this.itemSearchCache = itemSearchCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.enabled = enabled;
+        this.batchSize = batchSize;
+        this.maxBatchesPerRun = maxBatchesPerRun;
+
+        steps = List.of(
+                new Step("bookings", meterRegistry, bookingRepository::findIdsByBookerId,
+                        bookingRepository::deleteAllByIds),
+                new Step("bookings", meterRegistry, bookingRepository::findIdsByOwnerId,
+                        bookingRepository::deleteAllByIds),
+                new Step("bookings_archive", meterRegistry, archivedBookingRepository::findIdsByBookerId,
+                        archivedBookingRepository::deleteAllByIds),
+                new Step("bookings_archive", meterRegistry, archivedBookingRepository::findIdsByOwnerId,
+                        archivedBookingRepository::deleteAllByIds),
+                new Step("comments", meterRegistry, commentRepository::findIdsByAuthorId,
+                        commentRepository::deleteAllByIds),
+                new Step("comments", meterRegistry, commentRepository::findIdsByOwnerId,
+                        commentRepository::deleteAllByIds),
+                new Step("items", meterRegistry, itemRepository::findIdsByOwnerId, itemIds -> {
+                    itemIds.forEach(itemSearchIndex::remove);
+                    return itemRepository.deleteAllByIds(itemIds);
+                }),
+                new Step("requests", meterRegistry, itemRequestRepository::findIdsByRequesterId,
+                        itemRequestRepository::deleteAllByIds));
+
+        purgedUsers = meterRegistry.counter("shareit.user.purge.users");
+        Gauge.builder("shareit.user.purge.pending", pendingUsers, AtomicLong::get).register(meterRegistry);
+    }
+
+    /**
+     * Runs up to the configured number of non-empty batches over the deleted users, oldest deletion first, and
+     * returns how many rows were removed.
+     */
+    @Scheduled(fixedDelayString = "${shareit.user.purge.interval:PT5S}",
+            initialDelayString = "${shareit.user.purge.interval:PT5S}")
+    public int purge() {
+        if (!enabled) {
+            return 0;
+        }
+
+        Long pending = transactionTemplate.execute(status -> userRepository.countByDeletedAtIsNotNull());
+        pendingUsers.set(pending == null ? 0 : pending);
+
+        int batches = 0;
+        int total = 0;
+
+        while (batches < maxBatchesPerRun) {
+            List<Long> userIds = transactionTemplate.execute(status ->
+                    userRepository.findDeletedIds(PageRequest.of(0, 1)));
+
+            if (userIds == null || userIds.isEmpty()) {
+                break;
+            }
+
+            Long userId = userIds.get(0);
+            Progress progress = purgeUser(userId, maxBatchesPerRun - batches);
+            batches += progress.batches;
+            total += progress.rows;
+
+            if (!progress.finished) {
+                break;
+            }
+        }
+
+        if (total > 0) {
+            log.info("Удаление пользователей: за {} пакетов удалено {} строк, ожидают удаления {} пользователей",
+                    batches, total, pendingUsers.get());
+        }
+
+        return total;
+    }
+
+    private Progress purgeUser(Long userId, int batchBudget) {
+        Progress progress = new Progress();
+
+        for (Step step : steps) {
+            Integer deleted;
+
+            do {
+                if (progress.batches == batchBudget) {
+                    log.info("Удаление пользователя с id = {} приостановлено на таблице {}: удалено {} строк",
+                            userId, step.table, progress.rows);
+                    return progress;
+                }
+
+                deleted = transactionTemplate.execute(status -> step.deleteBatch(userId, PageRequest.of(0,
+                        batchSize)));
+
+                if (deleted != null && deleted > 0) {
+                    progress.batches++;
+                    progress.rows += deleted;
+                }
+            } while (deleted != null && deleted == batchSize);
+        }
+
+        Integer deletedUsers = transactionTemplate.execute(status -> userRepository.deleteMarked(userId));
+
+        if (deletedUsers != null && deletedUsers > 0) {
+            progress.rows += deletedUsers;
+            purgedUsers.increment();
+            pendingUsers.decrementAndGet();
+            itemSearchCache.invalidateAll();
+            log.info("Пользователь с id = {} удалён окончательно", userId);
+        }
+
+        progress.finished = true;
+
+        return progress;
+    }
+
+    private static final class Step {
+
+        private final String table;
+        private final BiFunction<Long, Pageable, List<Long>> findIds;
+        private final Function<Collection<Long>, Integer> deleteByIds;
+        private final Counter deletedRows;
+
+        private Step(String table, MeterRegistry meterRegistry, BiFunction<Long, Pageable, List<Long>> findIds,
+                     Function<Collection<Long>, Integer> deleteByIds) {
+            this.table = table;
+            this.findIds = findIds;
+            this.deleteByIds = deleteByIds;
+            deletedRows = meterRegistry.counter("shareit.user.purge.deleted", "table", table);
+        }
+
+        private int deleteBatch(Long userId, Pageable pageable) {
+            List<Long> ids = findIds.apply(userId, pageable);
+
+            if (ids.isEmpty()) {
+                return 0;
+            }
+
+            int deleted = deleteByIds.apply(ids);
+            deletedRows.increment(deleted);
+
+            return deleted;
+        }
+    }
+
+    private static final class Progress {
+
+        private int batches;
+        private int rows;
+        private boolean finished;
+    }
+}
@@ -1,11 +1,63 @@
 package ru.practicum.shareit.user.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import ru.practicum.shareit.user.model.User;
 
+import javax.persistence.QueryHint;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
 
     boolean existsByEmail(String email);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "1000"))
+    @Query("select u.email from User u")
+    Stream<String> streamAllEmails();
+
+    @Query("select u from User u where u.id = ?1 and u.deletedAt is null")
+    Optional<User> findActiveById(Long id);
+
+    List<User> findByDeletedAtIsNull(Pageable pageable);
+
+    List<User> findByIdGreaterThanAndDeletedAtIsNullOrderById(Long id, Pageable pageable);
+
+    @QueryHints({@QueryHint(name = HINT_FETCH_SIZE, value = "500"), @QueryHint(name = HINT_READONLY, value = "true")})
+    @Query("select u from User u where u.deletedAt is null order by u.id")
+    Stream<User> streamAll();
+
+    /**
+     * Marks the user as deleted and replaces the e-mail, which frees the address before the row is purged.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("update User u " +
+            "set u.deletedAt = ?2, " +
+            "    u.email = ?3 " +
+            "where u.id = ?1 " +
+            "  and u.deletedAt is null")
+    int markDeleted(Long userId, LocalDateTime dateTime, String email);
+
+    @Query("select u.id from User u " +
+            "where u.deletedAt is not null " +
+            "order by u.deletedAt, u.id")
+    List<Long> findDeletedIds(Pageable pageable);
+
+    long countByDeletedAtIsNotNull();
+
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("delete from User u " +
+            "where u.id = ?1 " +
+            "  and u.deletedAt is not null")
+    int deleteMarked(Long userId);
 }
@@ -0,0 +1,41 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.extern.slf4j.Slf4j;
+import ru.practicum.shareit.user.model.User;
+
+import javax.validation.ValidationException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in the user list ordered by id. Clients get it as an opaque URL-safe string and pass it back to
+ * continue the list right after the user it was made from.
+ */
+@Slf4j
+final class UserCursor {
+
+    private UserCursor() {
+    }
+
+    static String encode(User user) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(user.getId().toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns the id the next page starts after; an empty cursor points before the first user.
+     */
+    static long decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+
+        try {
+            return Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+        } catch (IllegalArgumentException e) {
+            String errorMessage = String.format("Некорректное значение параметра cursor: %s!", cursor);
+            log.warn(errorMessage);
+            throw new ValidationException(errorMessage);
+        }
+    }
+}
@@ -0,0 +1,29 @@
+package ru.practicum.shareit.user.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.practicum.shareit.common.service.NdjsonExporter;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.mapper.UserMapper;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+/**
+ * Writes all users as newline-delimited JSON, one user per line, in id order.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class UserExportService {
+
+    private final UserRepository userRepository;
+    private final UserMapper userMapper;
+    private final NdjsonExporter ndjsonExporter;
+
+    public StreamingResponseBody export() {
+        return ndjsonExporter.export(UserDto.class,
+                () -> userRepository.streamAll().map(ndjsonExporter.detaching(userMapper::toUserDto)),
+                count -> log.info("Выгружено {} пользователей", count));
+    }
+}
@@ -3,6 +3,7 @@ package ru.practicum.shareit.user.service;
 import org.springframework.stereotype.Service;
 import ru.practicum.shareit.exception.EmailAlreadyExistsException;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserPageDto;
 import ru.practicum.shareit.user.model.User;
 
 import java.util.List;
@@ -16,7 +17,9 @@ public interface UserService {
 
     UserDto get(Long userId);
 
-    List<UserDto> getAll();
+    List<UserDto> getAll(Integer from, Integer size);
+
+    UserPageDto getPage(String cursor, Integer size);
 
     void delete(Long userId);
 }
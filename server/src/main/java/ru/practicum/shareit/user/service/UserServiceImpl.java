@@ -3,11 +3,23 @@ package ru.practicum.shareit.user.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.timeline.BookingTimeline;
 import ru.practicum.shareit.common.service.ConsistencyService;
+import ru.practicum.shareit.common.util.PageRequestUtils;
 import ru.practicum.shareit.exception.EmailAlreadyExistsException;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+import ru.practicum.shareit.user.cache.EmailBloomFilter;
+import ru.practicum.shareit.user.cache.UserIdCache;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserPageDto;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
@@ -16,6 +28,7 @@ import javax.validation.ConstraintViolation;
 import javax.validation.Validation;
 import javax.validation.ValidationException;
 import javax.validation.Validator;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Set;
 import java.util.stream.Collectors;
@@ -27,66 +40,134 @@ public class UserServiceImpl implements UserService {
 
     private final UserMapper userMapper;
     private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
     private final ConsistencyService consistencyService;
+    private final ItemSearchIndex itemSearchIndex;
+    private final ItemSearchCache itemSearchCache;
+    private final ItemNameSuggester itemNameSuggester;
+    private final UserIdCache userIdCache;
+    private final EmailBloomFilter emailBloomFilter;
+    private final BookingTimeline bookingTimeline;
+    private static final String DELETED_EMAIL_PREFIX = "deleted:";
     private static final Validator validator = Validation.buildDefaultValidatorFactory().getValidator();
 
     @Transactional
     @Override
     public UserDto create(User user) throws EmailAlreadyExistsException {
+        if (user.getEmail() != null && emailBloomFilter.mightContain(user.getEmail())
+                && userRepository.existsByEmail(user.getEmail())) {
+            throw emailAlreadyRegistered(user.getEmail());
+        }
+
         try {
-            return userMapper.toUserDto(userRepository.save(user));
-        } catch (DataIntegrityViolationException e) { // ?
-            String errorMessage = String.format("Пользователь с e-mail = '%s' уже зарегистрирован!", user.getEmail());
-            log.warn(errorMessage);
-            throw new EmailAlreadyExistsException(errorMessage);
+            UserDto userDto = userMapper.toUserDto(userRepository.save(user));
+            emailBloomFilter.add(user.getEmail());
+
+            return userDto;
+        } catch (DataIntegrityViolationException e) {
+            throw emailAlreadyRegistered(user.getEmail());
         }
     }
 
     @Transactional
     @Override
     public UserDto update(User user, Long userId) {
-        consistencyService.checkUserExistence(userId);
+        User oldUser = consistencyService.getUser(userId);
 
         validateUser(user);
 
-        if (userRepository.existsByEmail(user.getEmail()) && !get(userId).getEmail().equals(user.getEmail())) {
-            String errorMessage = String.format("E-mail '%s' занят другим пользователем!", user.getEmail());
-            log.warn(errorMessage);
-            throw new EmailAlreadyExistsException(errorMessage);
-        }
+        boolean emailChanged = user.getEmail() != null && !oldUser.getEmail().equals(user.getEmail());
 
-        User oldUser = userRepository.getReferenceById(userId);
+        if (emailChanged && emailBloomFilter.mightContain(user.getEmail())
+                && userRepository.existsByEmail(user.getEmail())) {
+            throw emailTaken(user.getEmail());
+        }
 
         if (user.getName() != null) {
             oldUser.setName(user.getName());
         }
 
-        if (user.getEmail() != null) {
+        if (emailChanged) {
             oldUser.setEmail(user.getEmail());
+            emailBloomFilter.add(user.getEmail());
+            emailBloomFilter.markRemoved();
         }
 
-        return userMapper.toUserDto(userRepository.save(oldUser));
+        try {
+            return userMapper.toUserDto(userRepository.saveAndFlush(oldUser));
+        } catch (DataIntegrityViolationException e) {
+            throw emailTaken(user.getEmail());
+        }
     }
 
     @Transactional(readOnly = true)
     @Override
     public UserDto get(Long userId) {
-        consistencyService.checkUserExistence(userId);
-        return userMapper.toUserDto(userRepository.getReferenceById(userId));
+        return userMapper.toUserDto(consistencyService.getUser(userId));
     }
 
     @Transactional(readOnly = true)
     @Override
-    public List<UserDto> getAll() {
-        return userRepository.findAll().stream()
+    public List<UserDto> getAll(Integer from, Integer size) {
+        return userRepository.findByDeletedAtIsNull(PageRequestUtils.getPageRequest(from, size, Sort.by("id"))).stream()
                 .map(userMapper::toUserDto)
                 .collect(Collectors.toList());
     }
 
+    /**
+     * Users are fetched one above the page size, so the extra row tells whether a next page exists without a
+     * count query.
+     */
+    @Transactional(readOnly = true)
+    @Override
+    public UserPageDto getPage(String cursor, Integer size) {
+        int pageSize = PageRequestUtils.getPageSize(size);
+        List<User> users = userRepository.findByIdGreaterThanAndDeletedAtIsNullOrderById(UserCursor.decode(cursor),
+                PageRequest.of(0, pageSize + 1));
+        String nextCursor = null;
+
+        if (users.size() > pageSize) {
+            users = users.subList(0, pageSize);
+            nextCursor = UserCursor.encode(users.get(pageSize - 1));
+        }
+
+        return new UserPageDto(users.stream()
+                .map(userMapper::toUserDto)
+                .collect(Collectors.toList()), nextCursor);
+    }
+
+    /**
+     * Only marks the user as deleted, so the request does not wait for the removal of everything the user owns;
+     * {@link ru.practicum.shareit.user.purge.UserPurger} removes the rows in the background. Reads skip the user's
+     * items, bookings and requests from now on, and the e-mail is replaced with a value that is not a valid address,
+     * so it can be registered again at once.
+     */
     @Transactional
     @Override
     public void delete(Long userId) {
-        userRepository.deleteById(userId);
+        consistencyService.checkUserExistence(userId);
+        userRepository.markDeleted(userId, LocalDateTime.now(), DELETED_EMAIL_PREFIX + userId);
+        userIdCache.invalidate(userId);
+        emailBloomFilter.markRemoved();
+        itemSearchCache.invalidateAll();
+        itemNameSuggester.removeByOwner(userId);
+        bookingTimeline.removeBooker(userId);
+
+        if (itemSearchIndex.isEnabled()) {
+            itemRepository.findIdsByOwnerId(userId, Pageable.unpaged()).forEach(itemSearchIndex::remove);
+        }
+    }
+
+    private EmailAlreadyExistsException emailAlreadyRegistered(String email) {
+        String errorMessage = String.format("Пользователь с e-mail = '%s' уже зарегистрирован!", email);
+        log.warn(errorMessage);
+        return new EmailAlreadyExistsException(errorMessage);
+    }
+
+    private EmailAlreadyExistsException emailTaken(String email) {
+        String errorMessage = String.format("E-mail '%s' занят другим пользователем!", email);
+        log.warn(errorMessage);
+        return new EmailAlreadyExistsException(errorMessage);
     }
 
     private void validateUser(User user) {
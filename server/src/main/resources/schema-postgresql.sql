@@ -0,0 +1,59 @@
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+ALTER TABLE items
+    ADD COLUMN IF NOT EXISTS search_vector TSVECTOR
+        GENERATED ALWAYS AS (setweight(to_tsvector('simple', name), 'A') ||
+                             setweight(to_tsvector('simple', description), 'B')) STORED;
+
+CREATE INDEX IF NOT EXISTS idx_items_search_vector ON items USING GIN (search_vector);
+
+CREATE INDEX IF NOT EXISTS idx_items_name_trgm ON items USING GIN (name gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS idx_items_description_trgm ON items USING GIN (description gin_trgm_ops);
+
+SELECT setval('items_seq', (SELECT MAX(id) FROM items))
+ WHERE (SELECT MAX(id) FROM items) >= (SELECT last_value FROM items_seq);
+
+DO '
+BEGIN
+    IF NOT EXISTS (SELECT 1 FROM pg_partitioned_table WHERE partrelid = ''bookings''::regclass) THEN
+        ALTER TABLE bookings RENAME TO bookings_unpartitioned;
+
+        CREATE SEQUENCE IF NOT EXISTS bookings_partitioned_id_seq;
+
+        CREATE TABLE bookings
+        (
+            id         BIGINT      NOT NULL DEFAULT nextval(''bookings_partitioned_id_seq''),
+            start_date TIMESTAMP   NOT NULL,
+            end_date   TIMESTAMP   NOT NULL,
+            item_id    BIGINT      NOT NULL,
+            booker_id  BIGINT      NOT NULL,
+            status     VARCHAR(15) NOT NULL,
+            version    BIGINT      NOT NULL DEFAULT 0,
+            hold_until TIMESTAMP,
+            CONSTRAINT pk_booking_partitioned PRIMARY KEY (id, end_date),
+            FOREIGN KEY (item_id) REFERENCES items (id) ON DELETE CASCADE,
+            FOREIGN KEY (booker_id) REFERENCES users (id) ON DELETE CASCADE
+        ) PARTITION BY RANGE (end_date);
+
+        CREATE TABLE bookings_default PARTITION OF bookings DEFAULT;
+
+        INSERT INTO bookings (id, start_date, end_date, item_id, booker_id, status, version, hold_until)
+        SELECT id, start_date, end_date, item_id, booker_id, status, version, hold_until
+          FROM bookings_unpartitioned;
+
+        PERFORM setval(''bookings_partitioned_id_seq'',
+                       GREATEST((SELECT COALESCE(MAX(id), 0) FROM bookings_unpartitioned),
+                                (SELECT COALESCE(MAX(id), 0) FROM bookings_archive)) + 1, false);
+
+        DROP TABLE bookings_unpartitioned;
+
+        ALTER SEQUENCE bookings_partitioned_id_seq OWNED BY bookings.id;
+
+        CREATE INDEX idx_bookings_item_start ON bookings (item_id, start_date, end_date);
+        CREATE INDEX idx_bookings_booker_start ON bookings (booker_id, start_date, id);
+        CREATE INDEX idx_bookings_item_status_start ON bookings (item_id, status, start_date);
+        CREATE INDEX idx_bookings_end ON bookings (end_date);
+    END IF;
+END
+';
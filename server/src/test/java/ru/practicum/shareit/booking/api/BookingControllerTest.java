@@ -5,11 +5,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.common.service.IdempotencyService;
 import ru.practicum.shareit.booking.controller.BookingController;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -23,15 +31,21 @@ import java.util.List;
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = BookingController.class)
+@Import(IdempotencyService.class)
 public class BookingControllerTest {
 
     private static final String USER_ID_HEADER = "X-Sharer-User-Id";
@@ -78,6 +92,24 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.status", is(bookingDto.getStatus().toString())));
     }
 
+    @Test
+    void holdBookingTest() throws Exception {
+        when(bookingService.hold(any(), any(Long.class)))
+                .thenReturn(bookingDto);
+
+        mvc.perform(post("/bookings")
+                        .param("hold", "true")
+                        .content(mapper.writeValueAsString(bookingInputDto))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(USER_ID_HEADER, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.id", is(bookingDto.getId()), Long.class));
+
+        verify(bookingService, never()).add(any(), any(Long.class));
+    }
+
     @Test
     void getBookingByIdTest() throws Exception {
         when(bookingService.get(any(Long.class), any(Long.class)))
@@ -146,6 +178,78 @@ public class BookingControllerTest {
                 .andExpect(jsonPath("$.[0].status", is(bookingDto.getStatus().toString())));
     }
 
+    @Test
+    void getBookingsPageByUserIdTest() throws Exception {
+        when(bookingService.getBookingsPageByUserId(any(String.class), any(String.class), nullable(Integer.class),
+                any(Long.class)))
+                .thenReturn(new BookingPageDto(List.of(bookingDto), "next"));
+
+        mvc.perform(get("/bookings?cursor=&size=1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(USER_ID_HEADER, 1))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.bookings[0].id", is(bookingDto.getId()), Long.class))
+                .andExpect(jsonPath("$.nextCursor", is("next")));
+    }
+
+    @Test
+    void getBookingsPageForUserItemsTest() throws Exception {
+        when(bookingService.getBookingsPageForUserItems(any(String.class), any(String.class), nullable(Integer.class),
+                any(Long.class)))
+                .thenReturn(new BookingPageDto(List.of(bookingDto), null));
+
+        mvc.perform(get("/bookings/owner?cursor=abc")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(USER_ID_HEADER, 1))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.bookings[0].id", is(bookingDto.getId()), Long.class))
+                .andExpect(jsonPath("$.nextCursor").doesNotExist());
+    }
+
+    @Test
+    void updateBookingStatusConflictTest() throws Exception {
+        when(bookingService.updateStatus(any(Long.class), any(Boolean.class), any(Long.class)))
+                .thenThrow(new OptimisticLockingFailureException("Row was updated by another transaction"));
+
+        mvc.perform(patch("/bookings/1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(USER_ID_HEADER, 1)
+                        .queryParam("approved", "true"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error", is("Данные были изменены другим запросом, повторите попытку!")));
+    }
+
+    @Test
+    void updateBookingStatusLockTimeoutTest() throws Exception {
+        when(bookingService.updateStatus(any(Long.class), any(Boolean.class), any(Long.class)))
+                .thenThrow(new CannotAcquireLockException("Блокировка вещей не получена за 5000 мс"));
+
+        mvc.perform(patch("/bookings/1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(USER_ID_HEADER, 1)
+                        .queryParam("approved", "true"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.error", is("Данные были изменены другим запросом, повторите попытку!")));
+    }
+
+    @Test
+    void subscribeToBookingEventsTest() throws Exception {
+        when(bookingService.subscribeToBookingEvents(any(Long.class)))
+                .thenReturn(new SseEmitter());
+
+        mvc.perform(get("/bookings/owner/events")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .header(USER_ID_HEADER, 1))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+    }
+
     @Test
     void updateBookingStatusTest() throws Exception {
         when(bookingService.updateStatus(any(Long.class), any(Boolean.class), any(Long.class)))
@@ -166,4 +270,49 @@ public class BookingControllerTest {
                         is(bookingDto.getEnd().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))))
                 .andExpect(jsonPath("$.status", is(bookingDto.getStatus().toString())));
     }
-}
\ No newline at end of file
+
+    @Test
+    void updateBookingStatusesTest() throws Exception {
+        when(bookingService.updateStatuses(any(), any(Long.class)))
+                .thenReturn(List.of(new BookingBatchResultDto(1L, Status.APPROVED, null),
+                        new BookingBatchResultDto(2L, null, "Бронирование с id = 2 не найдено!")));
+
+        mvc.perform(patch("/bookings/batch")
+                        .content(mapper.writeValueAsString(List.of(new BookingStatusUpdateDto(1L, true),
+                                new BookingStatusUpdateDto(2L, false))))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(USER_ID_HEADER, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].bookingId", is(1L), Long.class))
+                .andExpect(jsonPath("$[0].status", is(Status.APPROVED.toString())))
+                .andExpect(jsonPath("$[1].status").doesNotExist())
+                .andExpect(jsonPath("$[1].error", is("Бронирование с id = 2 не найдено!")));
+
+        verify(bookingService, times(1)).updateStatuses(any(), any(Long.class));
+    }
+
+    @Test
+    void addBookingWithIdempotencyKey() throws Exception {
+        when(bookingService.add(any(), any(Long.class)))
+                .thenReturn(bookingDto);
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/bookings")
+                            .content(mapper.writeValueAsString(bookingInputDto))
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header(USER_ID_HEADER, 1)
+                            .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "key"))
+                    .andExpect(status().isOk())
+                    .andExpect(i == 0
+                            ? header().doesNotExist(IdempotencyService.REPLAYED_HEADER)
+                            : header().string(IdempotencyService.REPLAYED_HEADER, "true"))
+                    .andExpect(jsonPath("$.id", is(bookingDto.getId()), Long.class));
+        }
+
+        verify(bookingService, times(1)).add(any(), any(Long.class));
+    }
+}
@@ -11,8 +11,12 @@ import ru.practicum.shareit.booking.service.BookingService;
 import ru.practicum.shareit.booking.service.BookingServiceImpl;
 import ru.practicum.shareit.common.service.ConsistencyService;
 import ru.practicum.shareit.exception.BookingNotFoundException;
+import ru.practicum.shareit.user.cache.UserIdCache;
+import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
@@ -28,19 +32,22 @@ public class BookingServiceImplTest {
     @Mock
     private UserRepository mockUserRepository;
 
+    @Mock
+    private UserIdCache mockUserIdCache;
+
     @Mock
     private BookingRepository mockBookingRepository;
 
     @Test
     void shouldExceptionWhenUpdateStatusOfNotExistingBooking() {
-        BookingService bookingService = new BookingServiceImpl(mockBookingRepository, null, null, null,
-                consistencyService);
+        BookingService bookingService = new BookingServiceImpl(mockBookingRepository, null, null,
+                consistencyService, null, null, null, null, null);
 
-        when(mockUserRepository.existsById(any(Long.class)))
-                .thenReturn(true);
+        when(mockUserRepository.findActiveById(any(Long.class)))
+                .thenReturn(Optional.of(new User(2L, "user", "user@user.ru")));
 
-        when(mockBookingRepository.existsById(any(Long.class)))
-                .thenReturn(false);
+        when(mockBookingRepository.findActiveById(any(Long.class)))
+                .thenReturn(Optional.empty());
 
         Long bookingId = 1L;
 
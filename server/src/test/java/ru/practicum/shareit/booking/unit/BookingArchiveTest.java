@@ -0,0 +1,203 @@
+package ru.practicum.shareit.booking.unit;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.archive.BookingArchive;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemExportService;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@SpringBootTest
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingArchiveTest {
+
+    private final BookingArchive bookingArchive;
+    private final BookingService bookingService;
+    private final BookingRepository bookingRepository;
+    private final ItemRepository itemRepository;
+    private final UserRepository userRepository;
+    private final ItemService itemService;
+    private final UserService userService;
+    private final ItemExportService itemExportService;
+    private final ObjectMapper objectMapper;
+    private final MeterRegistry meterRegistry;
+
+    private final User owner = new User(600L, "owner", "archive-owner@user.ru");
+    private final User booker = new User(601L, "booker", "archive-booker@user.ru");
+
+    private final ItemDto itemDto = new ItemDto(600L, "item", "description", true, null, null);
+
+    @Test
+    void shouldListArchivedBookingsTogetherWithLiveOnes() {
+        UserDto ownerDto = userService.create(owner);
+        UserDto bookerDto = userService.create(booker);
+        ItemDto item = itemService.add(itemDto, ownerDto.getId());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        Booking archived = saveBooking(item.getId(), bookerDto.getId(), now.minusMonths(13), now.minusMonths(12));
+        Booking longPast = saveBooking(item.getId(), bookerDto.getId(), now.minusMonths(24), now.minusMonths(1));
+
+        assertEquals(1, bookingArchive.archive());
+        assertFalse(bookingRepository.existsById(archived.getId()));
+
+        assertEquals(List.of(archived.getId(), longPast.getId()),
+                getIds(bookingService.getAllBookingsByUserId("PAST", null, null, bookerDto.getId())));
+        assertEquals(List.of(longPast.getId()),
+                getIds(bookingService.getAllBookingsByUserId("ALL", 1, 1, bookerDto.getId())));
+
+        BookingPageDto firstPage = bookingService.getBookingsPageForUserItems("PAST", "", 1, ownerDto.getId());
+        assertEquals(List.of(archived.getId()), getIds(firstPage.getBookings()));
+
+        BookingPageDto secondPage = bookingService.getBookingsPageForUserItems("PAST", firstPage.getNextCursor(), 1,
+                ownerDto.getId());
+        assertEquals(List.of(longPast.getId()), getIds(secondPage.getBookings()));
+        assertNull(secondPage.getNextCursor());
+
+        assertEquals(Status.APPROVED, bookingService.get(archived.getId(), bookerDto.getId()).getStatus());
+    }
+
+    @Test
+    void shouldNotReadArchiveWhenPageEndsAfterCutoff() {
+        UserDto ownerDto = userService.create(owner);
+        UserDto bookerDto = userService.create(booker);
+        ItemDto item = itemService.add(itemDto, ownerDto.getId());
+
+        bookingService.add(new BookingInputDto(item.getId(),
+                LocalDateTime.of(2030, 12, 25, 12, 0, 0),
+                LocalDateTime.of(2030, 12, 26, 12, 0, 0)), bookerDto.getId());
+        bookingService.add(new BookingInputDto(item.getId(),
+                LocalDateTime.of(2030, 12, 27, 12, 0, 0),
+                LocalDateTime.of(2030, 12, 28, 12, 0, 0)), bookerDto.getId());
+
+        double reads = getArchiveReads();
+
+        assertEquals(1, bookingService.getAllBookingsByUserId("ALL", 0, 1, bookerDto.getId()).size());
+        assertEquals(reads, getArchiveReads());
+
+        assertEquals(2, bookingService.getAllBookingsByUserId("ALL", 0, 5, bookerDto.getId()).size());
+        assertEquals(reads + 1, getArchiveReads());
+    }
+
+    @Test
+    void shouldPageOffsetListsAcrossLiveAndArchivedBookings() {
+        UserDto ownerDto = userService.create(owner);
+        UserDto bookerDto = userService.create(booker);
+        ItemDto item = itemService.add(itemDto, ownerDto.getId());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        List<Booking> bookings = new ArrayList<>();
+
+        for (int months = 1; months <= 3; months++) {
+            bookings.add(saveBooking(item.getId(), bookerDto.getId(), now.minusMonths(months),
+                    now.minusMonths(months).plusDays(1)));
+        }
+        for (int months = 13; months <= 33; months += 4) {
+            bookings.add(saveBooking(item.getId(), bookerDto.getId(), now.minusMonths(months),
+                    now.minusMonths(months).plusDays(1)));
+        }
+        bookings.add(saveBooking(item.getId(), bookerDto.getId(), now.minusMonths(15), now.minusMonths(1)));
+        bookings.add(saveBooking(item.getId(), bookerDto.getId(), now.minusMonths(27), now.minusMonths(2)));
+
+        assertEquals(6, bookingArchive.archive());
+
+        List<Long> expected = bookings.stream()
+                .sorted(Comparator.comparing(Booking::getStart).reversed())
+                .map(Booking::getId)
+                .collect(Collectors.toList());
+
+        assertEquals(expected, getIds(bookingService.getAllBookingsByUserId("ALL", null, null,
+                bookerDto.getId())));
+        for (int size = 1; size <= 4; size++) {
+            for (int from = 0; from < expected.size() + size; from += size) {
+                List<Long> page = expected.subList(Math.min(from, expected.size()),
+                        Math.min(from + size, expected.size()));
+
+                assertEquals(page, getIds(bookingService.getAllBookingsByUserId("ALL", from, size,
+                        bookerDto.getId())));
+                assertEquals(page, getIds(bookingService.getAllBookingsForUserItems("PAST", from, size,
+                        ownerDto.getId())));
+            }
+        }
+    }
+
+    @Test
+    void shouldExportAndShowArchivedBookings() throws IOException {
+        UserDto ownerDto = userService.create(owner);
+        UserDto bookerDto = userService.create(booker);
+        ItemDto item = itemService.add(itemDto, ownerDto.getId());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        Booking archived = saveBooking(item.getId(), bookerDto.getId(), now.minusMonths(13), now.minusMonths(12));
+        Booking live = saveBooking(item.getId(), bookerDto.getId(), now.plusDays(1), now.plusDays(2));
+
+        assertEquals(1, bookingArchive.archive());
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        itemExportService.export(ownerDto.getId(), true).writeTo(outputStream);
+        JsonNode exportedBookings = objectMapper.readTree(outputStream.toString(StandardCharsets.UTF_8))
+                .get("bookings");
+
+        assertEquals(2, exportedBookings.size());
+        assertEquals(archived.getId(), exportedBookings.get(0).get("id").asLong());
+        assertEquals(live.getId(), exportedBookings.get(1).get("id").asLong());
+
+        ItemDto ownerView = itemService.get(item.getId(), ownerDto.getId());
+        assertEquals(archived.getId(), ownerView.getLastBooking().getId());
+        assertEquals(live.getId(), ownerView.getNextBooking().getId());
+        assertEquals(archived.getId(), itemService.getAll(null, null, ownerDto.getId()).get(0)
+                .getLastBooking().getId());
+    }
+
+    private Booking saveBooking(Long itemId, Long bookerId, LocalDateTime start, LocalDateTime end) {
+        Booking booking = new Booking();
+        booking.setItem(itemRepository.getReferenceById(itemId));
+        booking.setBooker(userRepository.getReferenceById(bookerId));
+        booking.setStart(start);
+        booking.setEnd(end);
+        booking.setStatus(Status.APPROVED);
+
+        return bookingRepository.save(booking);
+    }
+
+    private double getArchiveReads() {
+        return meterRegistry.counter("shareit.booking.archive.reads").count();
+    }
+
+    private static List<Long> getIds(List<BookingDto> bookings) {
+        return bookings.stream()
+                .map(BookingDto::getId)
+                .collect(Collectors.toList());
+    }
+}
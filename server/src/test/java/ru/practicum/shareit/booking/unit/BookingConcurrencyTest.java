@@ -0,0 +1,187 @@
+package ru.practicum.shareit.booking.unit;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.OptimisticLockingFailureException;
+import ru.practicum.shareit.booking.dto.BookingDto;
+import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.NotAvailableForBookingException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.purge.UserPurger;
+import ru.practicum.shareit.user.service.UserService;
+
+import javax.validation.ValidationException;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@Slf4j
+@SpringBootTest
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+public class BookingConcurrencyTest {
+
+    private static final int REQUESTS = 200;
+    private static final int THREADS = 32;
+    private static final LocalDateTime START = LocalDateTime.of(2040, 1, 1, 12, 0, 0);
+
+    private final BookingService bookingService;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final UserPurger userPurger;
+
+    private UserDto ownerDto;
+    private UserDto bookerDto;
+    private ItemDto itemDto;
+
+    @BeforeEach
+    void setUp() {
+        ownerDto = userService.create(new User(null, "owner", "concurrency-owner@user.ru"));
+        bookerDto = userService.create(new User(null, "booker", "concurrency-booker@user.ru"));
+        itemDto = itemService.add(new ItemDto(null, "item", "description", true, null, null), ownerDto.getId());
+    }
+
+    @AfterEach
+    void tearDown() {
+        userService.delete(bookerDto.getId());
+        userService.delete(ownerDto.getId());
+        userPurger.purge();
+    }
+
+    @Test
+    void shouldApproveOnlyOneOfParallelOverlappingBookings() throws Exception {
+        List<Throwable> failures = bookAndApproveInParallel(i -> new BookingInputDto(itemDto.getId(),
+                START.plusHours(i % 3), START.plusDays(1).plusHours(i % 5)));
+
+        assertEquals(REQUESTS - 1, failures.size());
+        for (Throwable failure : failures) {
+            assertInstanceOf(NotAvailableForBookingException.class, failure);
+        }
+        assertEquals(1, countApprovedBookings());
+    }
+
+    @Test
+    void shouldApproveAllOfParallelDisjointBookings() throws Exception {
+        List<Throwable> failures = bookAndApproveInParallel(i -> new BookingInputDto(itemDto.getId(),
+                START.plusDays(i), START.plusDays(i + 1)));
+
+        assertEquals(List.of(), failures);
+        assertEquals(REQUESTS, countApprovedBookings());
+    }
+
+    @Test
+    void shouldApplyOnlyOneOfParallelStatusChanges() throws Exception {
+        BookingDto bookingDto = bookingService.add(new BookingInputDto(itemDto.getId(), START, START.plusDays(1)),
+                bookerDto.getId());
+
+        List<Throwable> failures = runInParallel(i ->
+                () -> bookingService.updateStatus(bookingDto.getId(), i % 2 == 0, ownerDto.getId()));
+
+        assertEquals(REQUESTS - 1, failures.size());
+        for (Throwable failure : failures) {
+            assertTrue(failure instanceof OptimisticLockingFailureException
+                    || failure instanceof ValidationException, failure.toString());
+        }
+    }
+
+    /**
+     * Contention benchmark: the same number of approvals either queue on one item or spread over many items,
+     * where the lock stripes let them run in parallel.
+     */
+    @Test
+    void shouldApproveFasterWhenBookingsAreSpreadOverItems() throws Exception {
+        int itemCount = THREADS;
+        List<ItemDto> itemDtos = new ArrayList<>();
+        for (int i = 0; i < itemCount; i++) {
+            itemDtos.add(itemService.add(new ItemDto(null, "item", "description", true, null, null),
+                    ownerDto.getId()));
+        }
+
+        long startNanos = System.nanoTime();
+        List<Throwable> failures = bookAndApproveInParallel(i -> new BookingInputDto(itemDto.getId(),
+                START.plusDays(i), START.plusDays(i + 1)));
+        long oneItemNanos = System.nanoTime() - startNanos;
+        assertEquals(List.of(), failures);
+
+        startNanos = System.nanoTime();
+        failures = bookAndApproveInParallel(i -> new BookingInputDto(itemDtos.get(i % itemCount).getId(),
+                START.plusDays(i), START.plusDays(i + 1)));
+        long manyItemsNanos = System.nanoTime() - startNanos;
+        assertEquals(List.of(), failures);
+
+        log.info("{} approvals on 1 item: {} ms, on {} items: {} ms", REQUESTS, oneItemNanos / 1_000_000,
+                itemCount, manyItemsNanos / 1_000_000);
+        assertEquals(2 * REQUESTS, countApprovedBookings());
+    }
+
+    private List<Throwable> bookAndApproveInParallel(IntFunction<BookingInputDto> bookingInputDtos)
+            throws Exception {
+        return runInParallel(i -> {
+            BookingInputDto bookingInputDto = bookingInputDtos.apply(i);
+
+            return () -> {
+                BookingDto bookingDto = bookingService.add(bookingInputDto, bookerDto.getId());
+                return bookingService.updateStatus(bookingDto.getId(), true, ownerDto.getId());
+            };
+        });
+    }
+
+    private List<Throwable> runInParallel(IntFunction<Callable<?>> tasks) throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch startSignal = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < REQUESTS; i++) {
+                Callable<?> task = tasks.apply(i);
+
+                futures.add(executorService.submit(() -> {
+                    startSignal.await();
+                    return task.call();
+                }));
+            }
+
+            startSignal.countDown();
+
+            List<Throwable> failures = new ArrayList<>();
+            for (Future<?> future : futures) {
+                try {
+                    future.get(1, TimeUnit.MINUTES);
+                } catch (ExecutionException e) {
+                    failures.add(e.getCause());
+                }
+            }
+            return failures;
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private long countApprovedBookings() {
+        return bookingService.getAllBookingsForUserItems("ALL", null, null, ownerDto.getId()).stream()
+                .filter(bookingDto -> Status.APPROVED.equals(bookingDto.getStatus()))
+                .count();
+    }
+}
@@ -0,0 +1,242 @@
+package ru.practicum.shareit.booking.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.practicum.shareit.booking.dto.BookingEventDto;
+import ru.practicum.shareit.booking.event.BookingEventPublisher;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingEventType;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class BookingEventPublisherTest {
+
+    private static final int BUFFER_SIZE = 3;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final BookingEventPublisher bookingEventPublisher = new BookingEventPublisher(meterRegistry, BUFFER_SIZE,
+            Duration.ofMinutes(1), 2, Duration.ofMinutes(1));
+
+    private final User owner = new User(1L, "owner", "owner@user.ru");
+    private final User booker = new User(2L, "booker", "booker@user.ru");
+    private final Item item = new Item(1L, "item", "description", true, owner, null);
+
+    @AfterEach
+    void tearDown() {
+        bookingEventPublisher.shutdown();
+    }
+
+    @Test
+    void shouldSendEventsOnlyToSubscribersOfItemOwner() throws Exception {
+        RecordingEmitter ownerEmitter = new RecordingEmitter(2);
+        RecordingEmitter otherEmitter = new RecordingEmitter(1);
+        bookingEventPublisher.subscribe(owner.getId(), ownerEmitter);
+        bookingEventPublisher.subscribe(booker.getId(), otherEmitter);
+
+        bookingEventPublisher.publish(booking(1L, Status.WAITING), BookingEventType.CREATED);
+
+        assertTrue(ownerEmitter.await());
+        assertTrue(otherEmitter.await());
+        assertEquals(List.of(1L), ownerEmitter.bookingIds());
+        assertEquals(List.of(), otherEmitter.bookingIds());
+        assertEquals(BookingEventType.CREATED, ownerEmitter.events().get(0).getType());
+    }
+
+    @Test
+    void shouldDropOldestEventsWhenSubscriberFallsBehind() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingEmitter emitter = new RecordingEmitter(1 + BUFFER_SIZE) {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                sending.countDown();
+                awaitQuietly(release);
+                super.send(builder);
+            }
+        };
+        bookingEventPublisher.subscribe(owner.getId(), emitter);
+        assertTrue(sending.await(10, TimeUnit.SECONDS));
+
+        for (long bookingId = 1; bookingId <= 5; bookingId++) {
+            bookingEventPublisher.publish(booking(bookingId, Status.WAITING), BookingEventType.CREATED);
+        }
+        release.countDown();
+
+        assertTrue(emitter.await());
+        assertEquals(List.of(3L, 4L, 5L), emitter.bookingIds());
+        assertEquals(2.0, meterRegistry.counter("shareit.booking.events.dropped").count());
+    }
+
+    @Test
+    void shouldRemoveSubscriberWhenSendFails() throws Exception {
+        CountDownLatch failed = new CountDownLatch(1);
+        bookingEventPublisher.subscribe(owner.getId(), new SseEmitter() {
+            @Override
+            public void send(SseEventBuilder builder) throws IOException {
+                failed.countDown();
+                throw new IOException("Broken pipe");
+            }
+        });
+
+        assertTrue(failed.await(10, TimeUnit.SECONDS));
+        for (int i = 0; i < 100 && bookingEventPublisher.getSubscriberCount() > 0; i++) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, bookingEventPublisher.getSubscriberCount());
+    }
+
+    @Test
+    void shouldKeepSubscribersAddedWhileOthersOfSameOwnerAreRemoved() throws Exception {
+        List<RecordingEmitter> emitters = new ArrayList<>();
+
+        for (int i = 0; i < 200; i++) {
+            bookingEventPublisher.subscribe(owner.getId(), new SseEmitter() {
+                @Override
+                public void send(SseEventBuilder builder) throws IOException {
+                    throw new IOException("Broken pipe");
+                }
+            });
+            RecordingEmitter emitter = new RecordingEmitter(2);
+            bookingEventPublisher.subscribe(owner.getId(), emitter);
+            emitters.add(emitter);
+        }
+        for (int i = 0; i < 100 && bookingEventPublisher.getSubscriberCount() > emitters.size(); i++) {
+            Thread.sleep(10);
+        }
+
+        bookingEventPublisher.publish(booking(1L, Status.WAITING), BookingEventType.CREATED);
+
+        for (RecordingEmitter emitter : emitters) {
+            assertTrue(emitter.await());
+            assertEquals(List.of(1L), emitter.bookingIds());
+        }
+        assertEquals(emitters.size(), bookingEventPublisher.getSubscriberCount());
+    }
+
+    @Test
+    void shouldNotDelayOtherSubscribersWhenOneStalls() throws Exception {
+        BookingEventPublisher publisher = new BookingEventPublisher(meterRegistry, BUFFER_SIZE,
+                Duration.ofMinutes(1), 1, Duration.ofMinutes(1));
+        CountDownLatch stalled = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try {
+            publisher.subscribe(owner.getId(), new SseEmitter() {
+                @Override
+                public void send(SseEventBuilder builder) {
+                    stalled.countDown();
+                    awaitQuietly(release);
+                }
+            });
+            assertTrue(stalled.await(10, TimeUnit.SECONDS));
+
+            RecordingEmitter emitter = new RecordingEmitter(2);
+            publisher.subscribe(owner.getId(), emitter);
+            publisher.publish(booking(1L, Status.WAITING), BookingEventType.CREATED);
+
+            assertTrue(emitter.await());
+            assertEquals(List.of(1L), emitter.bookingIds());
+        } finally {
+            release.countDown();
+            publisher.shutdown();
+        }
+    }
+
+    @Test
+    void shouldCloseSubscriberWhenSendTimesOut() throws Exception {
+        BookingEventPublisher publisher = new BookingEventPublisher(meterRegistry, BUFFER_SIZE,
+                Duration.ofMinutes(1), 1, Duration.ofMillis(100));
+        CountDownLatch interrupted = new CountDownLatch(1);
+
+        try {
+            publisher.subscribe(owner.getId(), new SseEmitter() {
+                @Override
+                public void send(SseEventBuilder builder) {
+                    try {
+                        new CountDownLatch(1).await(10, TimeUnit.SECONDS);
+                    } catch (InterruptedException e) {
+                        interrupted.countDown();
+                    }
+                }
+            });
+
+            assertTrue(interrupted.await(10, TimeUnit.SECONDS));
+            for (int i = 0; i < 100 && publisher.getSubscriberCount() > 0; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(0, publisher.getSubscriberCount());
+        } finally {
+            publisher.shutdown();
+        }
+    }
+
+    private Booking booking(Long id, Status status) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setStart(LocalDateTime.of(2030, 1, 1, 12, 0));
+        booking.setEnd(LocalDateTime.of(2030, 1, 2, 12, 0));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(status);
+        return booking;
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static class RecordingEmitter extends SseEmitter {
+
+        private final List<Object> data = new CopyOnWriteArrayList<>();
+        private final CountDownLatch sent;
+
+        private RecordingEmitter(int expectedSends) {
+            sent = new CountDownLatch(expectedSends);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            builder.build().stream()
+                    .map(DataWithMediaType::getData)
+                    .forEach(data::add);
+            sent.countDown();
+        }
+
+        private boolean await() throws InterruptedException {
+            return sent.await(10, TimeUnit.SECONDS);
+        }
+
+        private List<BookingEventDto> events() {
+            return data.stream()
+                    .filter(BookingEventDto.class::isInstance)
+                    .map(BookingEventDto.class::cast)
+                    .collect(Collectors.toList());
+        }
+
+        private List<Long> bookingIds() {
+            return events().stream()
+                    .map(BookingEventDto::getBookingId)
+                    .collect(Collectors.toList());
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package ru.practicum.shareit.booking.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.booking.event.BookingEventPublisher;
+import ru.practicum.shareit.booking.hold.BookingHolds;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.BookingEventType;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BookingHoldsTest {
+
+    private static final Duration TICK = Duration.ofMillis(10);
+
+    private final BookingRepository bookingRepository = mock(BookingRepository.class);
+    private final BookingEventPublisher bookingEventPublisher = mock(BookingEventPublisher.class);
+    private final BookingHolds bookingHolds = new BookingHolds(bookingRepository, bookingEventPublisher,
+            mock(PlatformTransactionManager.class), new SimpleMeterRegistry(), Duration.ofMinutes(15), TICK, 8, 2);
+
+    @Test
+    void shouldExpireOnlyDueHoldsWhenWheelAdvances() throws InterruptedException {
+        Booking due = createHold(1L, LocalDateTime.now().minusSeconds(1));
+        Booking later = createHold(2L, LocalDateTime.now().plusHours(1));
+
+        when(bookingRepository.findAllWithItemByIdIn(List.of(1L)))
+                .thenReturn(List.of(due));
+
+        bookingHolds.schedule(due);
+        bookingHolds.schedule(later);
+        Thread.sleep(TICK.toMillis() * 3);
+        bookingHolds.advance();
+
+        assertEquals(Status.EXPIRED, due.getStatus());
+        assertEquals(Status.HOLD, later.getStatus());
+        assertEquals(1, bookingHolds.size());
+        verify(bookingEventPublisher, times(1)).publish(due, BookingEventType.EXPIRED);
+        verify(bookingEventPublisher, never()).publish(later, BookingEventType.EXPIRED);
+    }
+
+    @Test
+    void shouldRestoreHoldsFromDatabaseAndSkipDecidedOnes() throws InterruptedException {
+        Booking due = createHold(1L, LocalDateTime.now().minusMinutes(1));
+        Booking decided = createHold(2L, LocalDateTime.now().minusMinutes(1));
+        Booking untouched = createHold(3L, LocalDateTime.now().minusMinutes(1));
+
+        when(bookingRepository.findAllByStatus(Status.HOLD))
+                .thenReturn(List.of(due, decided, untouched));
+        when(bookingRepository.findAllWithItemByIdIn(any()))
+                .thenAnswer(invocation -> List.of(due, decided, untouched).stream()
+                        .filter(booking -> invocation.<List<Long>>getArgument(0).contains(booking.getId()))
+                        .collect(Collectors.toList()));
+
+        bookingHolds.rebuild();
+        decided.setStatus(Status.APPROVED);
+        Thread.sleep(TICK.toMillis() * 3);
+        bookingHolds.advance();
+
+        assertEquals(Status.EXPIRED, due.getStatus());
+        assertEquals(Status.APPROVED, decided.getStatus());
+        assertEquals(Status.EXPIRED, untouched.getStatus());
+        assertEquals(0, bookingHolds.size());
+        verify(bookingRepository, times(2)).findAllWithItemByIdIn(any());
+    }
+
+    private static Booking createHold(Long id, LocalDateTime holdUntil) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setStart(LocalDateTime.now().plusDays(1));
+        booking.setEnd(LocalDateTime.now().plusDays(2));
+        booking.setStatus(Status.HOLD);
+        booking.setHoldUntil(holdUntil);
+        return booking;
+    }
+}
@@ -5,10 +5,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingBatchResultDto;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.booking.dto.BookingPageDto;
+import ru.practicum.shareit.booking.dto.BookingStatusUpdateDto;
 import ru.practicum.shareit.booking.model.Status;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.common.util.QueryBudget;
 import ru.practicum.shareit.exception.BookingNotFoundException;
 import ru.practicum.shareit.exception.NotAvailableForBookingException;
 import ru.practicum.shareit.item.dto.ItemDto;
@@ -17,11 +21,16 @@ import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
+import javax.persistence.EntityManager;
 import javax.validation.ValidationException;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SpringBootTest
@@ -32,6 +41,7 @@ public class BookingServiceTest {
     private final BookingService bookingService;
     private final UserService userService;
     private final ItemService itemService;
+    private final EntityManager entityManager;
 
     private final User user1 = new User(300L, "user1", "first@user.ru");
     private final User user2 = new User(301L, "user2", "second@user.ru");
@@ -128,6 +138,67 @@ public class BookingServiceTest {
                 exp.getMessage());
     }
 
+    @Test
+    void shouldReturnResultPerBookingWhenUpdateStatusesByOwner() {
+        UserDto ownerDto = userService.create(user1);
+        UserDto bookerDto = userService.create(user2);
+        UserDto otherOwnerDto = userService.create(user3);
+        ItemDto itemDto = itemService.add(itemDto1, ownerDto.getId());
+        ItemDto secondItemDto = itemService.add(new ItemDto(302L, "item2", "description2", true, null, null),
+                ownerDto.getId());
+        ItemDto otherItemDto = itemService.add(new ItemDto(303L, "item3", "description3", true, null, null),
+                otherOwnerDto.getId());
+
+        BookingDto approved = bookingService.add(new BookingInputDto(itemDto.getId(),
+                LocalDateTime.of(2030, 12, 25, 12, 0, 0),
+                LocalDateTime.of(2030, 12, 26, 12, 0, 0)), bookerDto.getId());
+        BookingDto overlapping = bookingService.add(new BookingInputDto(itemDto.getId(),
+                LocalDateTime.of(2030, 12, 26, 0, 0, 0),
+                LocalDateTime.of(2030, 12, 27, 12, 0, 0)), bookerDto.getId());
+        BookingDto rejected = bookingService.add(new BookingInputDto(secondItemDto.getId(),
+                LocalDateTime.of(2030, 12, 25, 12, 0, 0),
+                LocalDateTime.of(2030, 12, 26, 12, 0, 0)), bookerDto.getId());
+        BookingDto foreign = bookingService.add(new BookingInputDto(otherItemDto.getId(),
+                LocalDateTime.of(2030, 12, 25, 12, 0, 0),
+                LocalDateTime.of(2030, 12, 26, 12, 0, 0)), bookerDto.getId());
+
+        List<BookingBatchResultDto> results = bookingService.updateStatuses(List.of(
+                new BookingStatusUpdateDto(overlapping.getId(), true),
+                new BookingStatusUpdateDto(approved.getId(), true),
+                new BookingStatusUpdateDto(rejected.getId(), false),
+                new BookingStatusUpdateDto(foreign.getId(), true),
+                new BookingStatusUpdateDto(Long.MAX_VALUE, true),
+                new BookingStatusUpdateDto(rejected.getId(), true)), ownerDto.getId());
+
+        assertEquals(6, results.size());
+        assertEquals(Status.WAITING, results.get(0).getStatus());
+        assertEquals(String.format("Вещь с id = %d уже забронирована с %s по %s!", itemDto.getId(),
+                approved.getStart(), approved.getEnd()), results.get(0).getError());
+        assertEquals(Status.APPROVED, results.get(1).getStatus());
+        assertNull(results.get(1).getError());
+        assertEquals(Status.REJECTED, results.get(2).getStatus());
+        assertNull(results.get(2).getError());
+        assertEquals(String.format("Статус бронирования может изменить только владелец вещи с id = %d!",
+                otherItemDto.getId()), results.get(3).getError());
+        assertEquals(String.format("Бронирование с id = %d не найдено!", Long.MAX_VALUE), results.get(4).getError());
+        assertEquals(String.format("Бронирование с id = %d указано в запросе несколько раз!", rejected.getId()),
+                results.get(5).getError());
+
+        assertEquals(Status.APPROVED, bookingService.get(approved.getId(), ownerDto.getId()).getStatus());
+        assertEquals(Status.WAITING, bookingService.get(overlapping.getId(), ownerDto.getId()).getStatus());
+        assertEquals(Status.REJECTED, bookingService.get(rejected.getId(), ownerDto.getId()).getStatus());
+        assertEquals(Status.WAITING, bookingService.get(foreign.getId(), otherOwnerDto.getId()).getStatus());
+    }
+
+    @Test
+    void shouldExceptionWhenUpdateStatusesWithEmptyList() {
+        UserDto ownerDto = userService.create(user1);
+
+        ValidationException exp = assertThrows(ValidationException.class,
+                () -> bookingService.updateStatuses(List.of(), ownerDto.getId()));
+        assertEquals("Список бронирований для изменения статуса не должен быть пустым!", exp.getMessage());
+    }
+
     @Test
     void shouldExceptionWhenGetBookingByNotOwnerOrNotBooker() {
         UserDto ownerDto = userService.create(user1);
@@ -495,6 +566,7 @@ public class BookingServiceTest {
         UserDto ownerDto = userService.create(user1);
         UserDto bookerDto = userService.create(user2);
         ItemDto itemDto = itemService.add(itemDto1, ownerDto.getId());
+        ItemDto otherItemDto = itemService.add(itemDto1, ownerDto.getId());
 
         BookingInputDto bookingInputDto = new BookingInputDto(
                 itemDto.getId(),
@@ -503,7 +575,7 @@ public class BookingServiceTest {
         BookingDto bookingDto = bookingService.add(bookingInputDto, bookerDto.getId());
 
         BookingInputDto bookingInputDto1 = new BookingInputDto(
-                itemDto.getId(),
+                otherItemDto.getId(),
                 LocalDateTime.now().minusMonths(1),
                 LocalDateTime.now().plusMinutes(50));
         BookingDto bookingDto1 = bookingService.add(bookingInputDto1, bookerDto.getId());
@@ -520,6 +592,7 @@ public class BookingServiceTest {
         UserDto ownerDto = userService.create(user1);
         UserDto bookerDto = userService.create(user2);
         ItemDto itemDto = itemService.add(itemDto1, ownerDto.getId());
+        ItemDto otherItemDto = itemService.add(itemDto1, ownerDto.getId());
 
         BookingInputDto bookingInputDto = new BookingInputDto(
                 itemDto.getId(),
@@ -528,7 +601,7 @@ public class BookingServiceTest {
         BookingDto bookingDto = bookingService.add(bookingInputDto, bookerDto.getId());
 
         BookingInputDto bookingInputDto1 = new BookingInputDto(
-                itemDto.getId(),
+                otherItemDto.getId(),
                 LocalDateTime.now().minusMonths(1),
                 LocalDateTime.now().plusMinutes(50));
         BookingDto bookingDto1 = bookingService.add(bookingInputDto1, bookerDto.getId());
@@ -545,6 +618,7 @@ public class BookingServiceTest {
         UserDto ownerDto = userService.create(user1);
         UserDto bookerDto = userService.create(user2);
         ItemDto itemDto = itemService.add(itemDto1, ownerDto.getId());
+        ItemDto otherItemDto = itemService.add(itemDto1, ownerDto.getId());
 
         BookingInputDto bookingInputDto = new BookingInputDto(
                 itemDto.getId(),
@@ -553,7 +627,7 @@ public class BookingServiceTest {
         BookingDto bookingDto = bookingService.add(bookingInputDto, bookerDto.getId());
 
         BookingInputDto bookingInputDto1 = new BookingInputDto(
-                itemDto.getId(),
+                otherItemDto.getId(),
                 LocalDateTime.now().minusMonths(1),
                 LocalDateTime.now().minusDays(1));
         BookingDto bookingDto1 = bookingService.add(bookingInputDto1, bookerDto.getId());
@@ -570,6 +644,7 @@ public class BookingServiceTest {
         UserDto ownerDto = userService.create(user1);
         UserDto bookerDto = userService.create(user2);
         ItemDto itemDto = itemService.add(itemDto1, ownerDto.getId());
+        ItemDto otherItemDto = itemService.add(itemDto1, ownerDto.getId());
 
         BookingInputDto bookingInputDto = new BookingInputDto(
                 itemDto.getId(),
@@ -578,7 +653,7 @@ public class BookingServiceTest {
         BookingDto bookingDto = bookingService.add(bookingInputDto, bookerDto.getId());
 
         BookingInputDto bookingInputDto1 = new BookingInputDto(
-                itemDto.getId(),
+                otherItemDto.getId(),
                 LocalDateTime.now().minusMonths(1),
                 LocalDateTime.now().plusMinutes(50));
         BookingDto bookingDto1 = bookingService.add(bookingInputDto1, bookerDto.getId());
@@ -590,6 +665,52 @@ public class BookingServiceTest {
         assertEquals(1, listBookings.size());
     }
 
+    @Test
+    void shouldReturnFullPageWhenGetAllBookingsForUserItemsAndStatePastAndNewerBookingsAreNotPast() {
+        UserDto ownerDto = userService.create(user1);
+        UserDto bookerDto = userService.create(user2);
+        ItemDto itemDto = itemService.add(itemDto1, ownerDto.getId());
+
+        BookingInputDto pastBookingInputDto = new BookingInputDto(
+                itemDto.getId(),
+                LocalDateTime.now().minusDays(10),
+                LocalDateTime.now().minusDays(5));
+        BookingDto pastBookingDto = bookingService.add(pastBookingInputDto, bookerDto.getId());
+        bookingService.updateStatus(pastBookingDto.getId(), true, ownerDto.getId());
+
+        BookingInputDto currentBookingInputDto = new BookingInputDto(
+                itemDto.getId(),
+                LocalDateTime.now().minusDays(1),
+                LocalDateTime.now().plusDays(1));
+        BookingDto currentBookingDto = bookingService.add(currentBookingInputDto, bookerDto.getId());
+        bookingService.updateStatus(currentBookingDto.getId(), true, ownerDto.getId());
+
+        List<BookingDto> listBookings = bookingService.getAllBookingsForUserItems("PAST", 0, 1, ownerDto.getId());
+        assertEquals(1, listBookings.size());
+        assertEquals(pastBookingDto.getId(), listBookings.get(0).getId());
+    }
+
+    @Test
+    void shouldReturnSecondPageWhenGetAllBookingsForUserItemsAndStateFuture() {
+        UserDto ownerDto = userService.create(user1);
+        UserDto bookerDto = userService.create(user2);
+        ItemDto itemDto = itemService.add(itemDto1, ownerDto.getId());
+
+        bookingService.add(new BookingInputDto(itemDto.getId(), LocalDateTime.now().minusDays(2),
+                LocalDateTime.now().minusDays(1)), bookerDto.getId());
+        BookingDto laterBookingDto = bookingService.add(new BookingInputDto(itemDto.getId(),
+                LocalDateTime.now().plusDays(3), LocalDateTime.now().plusDays(4)), bookerDto.getId());
+        BookingDto earlierBookingDto = bookingService.add(new BookingInputDto(itemDto.getId(),
+                LocalDateTime.now().plusDays(1), LocalDateTime.now().plusDays(2)), bookerDto.getId());
+
+        List<BookingDto> firstPage = bookingService.getAllBookingsForUserItems("FUTURE", 0, 1, ownerDto.getId());
+        List<BookingDto> secondPage = bookingService.getAllBookingsForUserItems("FUTURE", 1, 1, ownerDto.getId());
+        assertEquals(1, firstPage.size());
+        assertEquals(laterBookingDto.getId(), firstPage.get(0).getId());
+        assertEquals(1, secondPage.size());
+        assertEquals(earlierBookingDto.getId(), secondPage.get(0).getId());
+    }
+
     @Test
     void shouldReturnBookingsWhenGetAllBookingsForUserItemsAndStateFutureAndSizeIsNull() {
         UserDto ownerDto = userService.create(user1);
@@ -722,6 +843,97 @@ public class BookingServiceTest {
         assertEquals(0, listBookings.size());
     }
 
+    @Test
+    void shouldStayWithinQueryBudgetWhenAddGetAndApproveBooking() {
+        UserDto ownerDto = userService.create(user1);
+        UserDto bookerDto = userService.create(user2);
+        ItemDto itemDto = itemService.add(itemDto1, ownerDto.getId());
+
+        BookingInputDto bookingInputDto = new BookingInputDto(
+                itemDto.getId(),
+                LocalDateTime.of(2030, 12, 25, 12, 0, 0),
+                LocalDateTime.of(2030, 12, 26, 12, 0, 0));
+
+        BookingDto bookingDto = QueryBudget.assertAtMost(6, entityManager,
+                () -> bookingService.add(bookingInputDto, bookerDto.getId()));
+        QueryBudget.assertAtMost(4, entityManager, () -> bookingService.get(bookingDto.getId(), ownerDto.getId()));
+        BookingDto approvedBookingDto = QueryBudget.assertAtMost(8, entityManager,
+                () -> bookingService.updateStatus(bookingDto.getId(), true, ownerDto.getId()));
+
+        assertEquals(Status.APPROVED, approvedBookingDto.getStatus());
+    }
+
+    @Test
+    void shouldExceptionWhenBookingOverlapsApprovedBooking() {
+        UserDto ownerDto = userService.create(user1);
+        UserDto bookerDto = userService.create(user2);
+        ItemDto itemDto = itemService.add(itemDto1, ownerDto.getId());
+
+        BookingDto approvedBookingDto = bookingService.add(new BookingInputDto(itemDto.getId(),
+                LocalDateTime.of(2030, 12, 25, 12, 0, 0),
+                LocalDateTime.of(2030, 12, 27, 12, 0, 0)), bookerDto.getId());
+        bookingService.updateStatus(approvedBookingDto.getId(), true, ownerDto.getId());
+
+        BookingInputDto overlappingInputDto = new BookingInputDto(itemDto.getId(),
+                LocalDateTime.of(2030, 12, 26, 12, 0, 0),
+                LocalDateTime.of(2030, 12, 28, 12, 0, 0));
+
+        assertThrows(NotAvailableForBookingException.class,
+                () -> bookingService.add(overlappingInputDto, bookerDto.getId()));
+
+        BookingDto adjacentBookingDto = bookingService.add(new BookingInputDto(itemDto.getId(),
+                LocalDateTime.of(2030, 12, 27, 12, 0, 0),
+                LocalDateTime.of(2030, 12, 28, 12, 0, 0)), bookerDto.getId());
+
+        assertEquals(Status.APPROVED,
+                bookingService.updateStatus(adjacentBookingDto.getId(), true, ownerDto.getId()).getStatus());
+    }
+
+    @Test
+    void shouldExceptionWhenBookingOverlapsActiveHoldAndApproveHoldByOwner() {
+        UserDto ownerDto = userService.create(user1);
+        UserDto bookerDto = userService.create(user2);
+        UserDto otherBookerDto = userService.create(user3);
+        ItemDto itemDto = itemService.add(itemDto1, ownerDto.getId());
+
+        BookingDto holdDto = bookingService.hold(new BookingInputDto(itemDto.getId(),
+                LocalDateTime.of(2030, 12, 25, 12, 0, 0),
+                LocalDateTime.of(2030, 12, 27, 12, 0, 0)), bookerDto.getId());
+
+        assertEquals(Status.HOLD, holdDto.getStatus());
+        assertNotNull(holdDto.getHoldUntil());
+
+        BookingInputDto overlappingInputDto = new BookingInputDto(itemDto.getId(),
+                LocalDateTime.of(2030, 12, 26, 12, 0, 0),
+                LocalDateTime.of(2030, 12, 28, 12, 0, 0));
+
+        assertThrows(NotAvailableForBookingException.class,
+                () -> bookingService.add(overlappingInputDto, otherBookerDto.getId()));
+        assertEquals(Status.APPROVED,
+                bookingService.updateStatus(holdDto.getId(), true, ownerDto.getId()).getStatus());
+    }
+
+    @Test
+    void shouldExceptionWhenApproveBookingOverlappingApprovedBooking() {
+        UserDto ownerDto = userService.create(user1);
+        UserDto bookerDto = userService.create(user2);
+        ItemDto itemDto = itemService.add(itemDto1, ownerDto.getId());
+
+        BookingDto firstBookingDto = bookingService.add(new BookingInputDto(itemDto.getId(),
+                LocalDateTime.of(2030, 12, 25, 12, 0, 0),
+                LocalDateTime.of(2030, 12, 27, 12, 0, 0)), bookerDto.getId());
+        BookingDto secondBookingDto = bookingService.add(new BookingInputDto(itemDto.getId(),
+                LocalDateTime.of(2030, 12, 20, 12, 0, 0),
+                LocalDateTime.of(2030, 12, 30, 12, 0, 0)), bookerDto.getId());
+
+        bookingService.updateStatus(firstBookingDto.getId(), true, ownerDto.getId());
+
+        assertThrows(NotAvailableForBookingException.class,
+                () -> bookingService.updateStatus(secondBookingDto.getId(), true, ownerDto.getId()));
+        assertEquals(Status.REJECTED,
+                bookingService.updateStatus(secondBookingDto.getId(), false, ownerDto.getId()).getStatus());
+    }
+
     @Test
     void shouldExceptionWhenItemIsNotAvailableForBooking() {
         UserDto ownerDto = userService.create(user1);
@@ -775,6 +987,69 @@ public class BookingServiceTest {
                 exp.getMessage());
     }
 
+    @Test
+    void shouldWalkAllBookingsWhenGetBookingsPageByUserIdWithCursor() {
+        UserDto ownerDto = userService.create(user1);
+        UserDto bookerDto = userService.create(user2);
+        ItemDto itemDto = itemService.add(itemDto1, ownerDto.getId());
+        LocalDateTime start = LocalDateTime.of(2030, 12, 25, 12, 0, 0);
+
+        BookingDto firstBookingDto = bookingService.add(new BookingInputDto(itemDto.getId(), start,
+                start.plusDays(1)), bookerDto.getId());
+        BookingDto secondBookingDto = bookingService.add(new BookingInputDto(itemDto.getId(), start,
+                start.plusDays(2)), bookerDto.getId());
+        BookingDto thirdBookingDto = bookingService.add(new BookingInputDto(itemDto.getId(), start.minusDays(1),
+                start), bookerDto.getId());
+
+        BookingPageDto firstPage = bookingService.getBookingsPageByUserId("ALL", "", 2, bookerDto.getId());
+        assertEquals(List.of(secondBookingDto.getId(), firstBookingDto.getId()), firstPage.getBookings().stream()
+                .map(BookingDto::getId)
+                .collect(Collectors.toList()));
+
+        BookingPageDto secondPage = bookingService.getBookingsPageByUserId("ALL", firstPage.getNextCursor(), 2,
+                bookerDto.getId());
+        assertEquals(1, secondPage.getBookings().size());
+        assertEquals(thirdBookingDto.getId(), secondPage.getBookings().get(0).getId());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void shouldReturnFilteredPagesWhenGetBookingsPageForUserItemsWithCursor() {
+        UserDto ownerDto = userService.create(user1);
+        UserDto bookerDto = userService.create(user2);
+        ItemDto itemDto = itemService.add(itemDto1, ownerDto.getId());
+        ItemDto otherItemDto = itemService.add(itemDto1, ownerDto.getId());
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+
+        BookingDto pastBookingDto = bookingService.add(new BookingInputDto(itemDto.getId(),
+                now.minusDays(10), now.minusDays(5)), bookerDto.getId());
+        BookingDto otherPastBookingDto = bookingService.add(new BookingInputDto(otherItemDto.getId(),
+                now.minusDays(20), now.minusDays(15)), bookerDto.getId());
+        BookingDto futureBookingDto = bookingService.add(new BookingInputDto(itemDto.getId(),
+                now.plusDays(1), now.plusDays(2)), bookerDto.getId());
+        bookingService.updateStatus(pastBookingDto.getId(), true, ownerDto.getId());
+        bookingService.updateStatus(otherPastBookingDto.getId(), true, ownerDto.getId());
+        bookingService.updateStatus(futureBookingDto.getId(), true, ownerDto.getId());
+
+        BookingPageDto firstPage = bookingService.getBookingsPageForUserItems("PAST", "", 1, ownerDto.getId());
+        assertEquals(pastBookingDto.getId(), firstPage.getBookings().get(0).getId());
+
+        BookingPageDto secondPage = bookingService.getBookingsPageForUserItems("PAST", firstPage.getNextCursor(), 1,
+                ownerDto.getId());
+        assertEquals(1, secondPage.getBookings().size());
+        assertEquals(otherPastBookingDto.getId(), secondPage.getBookings().get(0).getId());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void shouldExceptionWhenGetBookingsPageByUserIdWithMalformedCursor() {
+        UserDto bookerDto = userService.create(user2);
+
+        ValidationException exp = assertThrows(ValidationException.class,
+                () -> bookingService.getBookingsPageByUserId("ALL", "not-a-cursor", 2, bookerDto.getId()));
+        assertEquals("Некорректное значение параметра cursor: not-a-cursor!", exp.getMessage());
+    }
+
     @Test
     void shouldWhenGetAllBookingsForUserItemsAndFromIsNegative() {
         UserDto ownerDto = userService.create(user1);
@@ -0,0 +1,183 @@
+package ru.practicum.shareit.booking.unit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import ru.practicum.shareit.booking.archive.BookingArchive;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.timeline.BookingTimeline;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.user.model.User;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class BookingTimelineTest {
+
+    @Mock
+    private BookingRepository mockBookingRepository;
+
+    @Mock
+    private BookingArchive mockBookingArchive;
+
+    private final LocalDateTime now = LocalDateTime.of(2030, 1, 10, 12, 0);
+    private final Item item = new Item(1L, "item", "description", true, null, null);
+    private final User booker = new User(2L, "booker", "booker@user.ru");
+
+    @Test
+    void shouldReturnNearestApprovedBookingsAroundDate() {
+        BookingTimeline bookingTimeline = new BookingTimeline(mockBookingRepository, mockBookingArchive, 10, 0,
+                Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        when(mockBookingRepository.findApprovedBookingsByItemIds(List.of(1L)))
+                .thenReturn(List.of(
+                        booking(1L, now.minusDays(5), Status.APPROVED),
+                        booking(2L, now.minusDays(1), Status.APPROVED),
+                        booking(3L, now.plusDays(2), Status.APPROVED),
+                        booking(4L, now.plusDays(7), Status.APPROVED)));
+
+        assertEquals(2L, bookingTimeline.getLastBooking(1L, now).getId());
+        assertEquals(3L, bookingTimeline.getNextBooking(1L, now).getId());
+        assertEquals(2L, bookingTimeline.getLastBooking(1L, now).getBookerId());
+        assertNull(bookingTimeline.getLastBooking(1L, now.minusDays(6)));
+        assertNull(bookingTimeline.getNextBooking(1L, now.plusDays(7)));
+        verify(mockBookingRepository, times(1)).findApprovedBookingsByItemIds(List.of(1L));
+    }
+
+    @Test
+    void shouldTakeLastBookingFromArchiveWhenNoLiveBookingStartedBefore() {
+        BookingTimeline bookingTimeline = new BookingTimeline(mockBookingRepository, mockBookingArchive, 10, 0,
+                Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        when(mockBookingRepository.findApprovedBookingsByItemIds(List.of(1L)))
+                .thenReturn(List.of(booking(3L, now.plusDays(2), Status.APPROVED)));
+        when(mockBookingArchive.findLastApprovedBookings(List.of(1L)))
+                .thenReturn(List.of(booking(1L, now.minusYears(1), Status.APPROVED)));
+
+        assertEquals(1L, bookingTimeline.getLastBooking(1L, now).getId());
+        assertEquals(3L, bookingTimeline.getNextBooking(1L, now).getId());
+    }
+
+    @Test
+    void shouldApplyStatusTransitionsToLoadedTimeline() {
+        BookingTimeline bookingTimeline = new BookingTimeline(mockBookingRepository, mockBookingArchive, 10, 0,
+                Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        when(mockBookingRepository.findApprovedBookingsByItemIds(List.of(1L)))
+                .thenReturn(new ArrayList<>());
+
+        assertNull(bookingTimeline.getNextBooking(1L, now));
+
+        bookingTimeline.update(booking(5L, now.plusDays(1), Status.WAITING));
+        assertNull(bookingTimeline.getNextBooking(1L, now));
+
+        bookingTimeline.update(booking(5L, now.plusDays(1), Status.APPROVED));
+        assertEquals(5L, bookingTimeline.getNextBooking(1L, now).getId());
+
+        bookingTimeline.update(booking(5L, now.plusDays(1), Status.CANCELED));
+        assertNull(bookingTimeline.getNextBooking(1L, now));
+    }
+
+    @Test
+    void shouldReloadTimelineAfterIdleEviction() {
+        BookingTimeline bookingTimeline = new BookingTimeline(mockBookingRepository, mockBookingArchive, 10, 0,
+                Duration.ZERO, Duration.ofMinutes(1));
+
+        when(mockBookingRepository.findApprovedBookingsByItemIds(List.of(1L)))
+                .thenReturn(List.of(booking(1L, now.minusDays(1), Status.APPROVED)));
+
+        bookingTimeline.getLastBooking(1L, now);
+        bookingTimeline.evictIdle();
+        bookingTimeline.getLastBooking(1L, now);
+
+        verify(mockBookingRepository, times(2)).findApprovedBookingsByItemIds(List.of(1L));
+    }
+
+    @Test
+    void shouldReloadTimelineOnceTimeToLiveExpires() {
+        BookingTimeline bookingTimeline = new BookingTimeline(mockBookingRepository, mockBookingArchive, 10, 0,
+                Duration.ofMinutes(1), Duration.ZERO);
+
+        when(mockBookingRepository.findApprovedBookingsByItemIds(List.of(1L)))
+                .thenReturn(List.of(booking(1L, now.minusDays(1), Status.APPROVED)))
+                .thenReturn(List.of(booking(2L, now.minusHours(1), Status.APPROVED)));
+
+        assertEquals(1L, bookingTimeline.getLastBooking(1L, now).getId());
+        assertEquals(2L, bookingTimeline.getLastBooking(1L, now).getId());
+    }
+
+    @Test
+    void shouldReloadTimelineWhenStatusChangedWhileLoading() {
+        BookingTimeline bookingTimeline = new BookingTimeline(mockBookingRepository, mockBookingArchive, 10, 0,
+                Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        when(mockBookingRepository.findApprovedBookingsByItemIds(List.of(1L)))
+                .thenAnswer(invocation -> {
+                    bookingTimeline.update(booking(5L, now.plusDays(1), Status.APPROVED));
+                    return new ArrayList<>();
+                })
+                .thenReturn(List.of(booking(5L, now.plusDays(1), Status.APPROVED)));
+
+        assertNull(bookingTimeline.getNextBooking(1L, now));
+        assertEquals(5L, bookingTimeline.getNextBooking(1L, now).getId());
+        assertEquals(5L, bookingTimeline.getNextBooking(1L, now).getId());
+        verify(mockBookingRepository, times(2)).findApprovedBookingsByItemIds(List.of(1L));
+    }
+
+    @Test
+    void shouldReloadTimelinesHoldingBookingsOfRemovedBooker() {
+        BookingTimeline bookingTimeline = new BookingTimeline(mockBookingRepository, mockBookingArchive, 10, 0,
+                Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        when(mockBookingRepository.findApprovedBookingsByItemIds(List.of(1L)))
+                .thenReturn(List.of(booking(1L, now.plusDays(1), Status.APPROVED)))
+                .thenReturn(new ArrayList<>());
+
+        assertEquals(1L, bookingTimeline.getNextBooking(1L, now).getId());
+
+        bookingTimeline.removeBooker(booker.getId());
+
+        assertNull(bookingTimeline.getNextBooking(1L, now));
+        verify(mockBookingRepository, times(2)).findApprovedBookingsByItemIds(List.of(1L));
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedTimelinesOverLimit() {
+        BookingTimeline bookingTimeline = new BookingTimeline(mockBookingRepository, mockBookingArchive, 1, 0,
+                Duration.ofMinutes(1), Duration.ofMinutes(1));
+
+        when(mockBookingRepository.findApprovedBookingsByItemIds(List.of(1L)))
+                .thenReturn(new ArrayList<>());
+        when(mockBookingRepository.findApprovedBookingsByItemIds(List.of(2L)))
+                .thenReturn(new ArrayList<>());
+
+        bookingTimeline.getLastBooking(1L, now);
+        bookingTimeline.getLastBooking(2L, now);
+        bookingTimeline.getLastBooking(1L, now);
+
+        verify(mockBookingRepository, times(2)).findApprovedBookingsByItemIds(List.of(1L));
+    }
+
+    private Booking booking(Long id, LocalDateTime start, Status status) {
+        Booking booking = new Booking();
+        booking.setId(id);
+        booking.setStart(start);
+        booking.setEnd(start.plusDays(1));
+        booking.setItem(item);
+        booking.setBooker(booker);
+        booking.setStatus(status);
+        return booking;
+    }
+}
@@ -0,0 +1,54 @@
+package ru.practicum.shareit.booking.unit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.booking.service.ItemLocks;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ItemLocksTest {
+
+    private final ItemLocks itemLocks = new ItemLocks(4, Duration.ofMillis(100));
+
+    @Test
+    void shouldFailWhenStripeIsHeldLongerThanTimeout() throws InterruptedException {
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> {
+            TransactionSynchronizationManager.initSynchronization();
+            try {
+                itemLocks.lock(1L);
+                locked.countDown();
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } finally {
+                TransactionSynchronizationManager.getSynchronizations()
+                        .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+                TransactionSynchronizationManager.clearSynchronization();
+            }
+        });
+        holder.start();
+        assertTrue(locked.await(5, TimeUnit.SECONDS));
+
+        try {
+            assertThrows(CannotAcquireLockException.class, () -> itemLocks.lock(5L));
+            assertThrows(CannotAcquireLockException.class, () -> itemLocks.lockAll(List.of(2L, 1L)));
+            assertDoesNotThrow(() -> itemLocks.lock(2L));
+        } finally {
+            release.countDown();
+            holder.join();
+        }
+
+        assertDoesNotThrow(() -> itemLocks.lock(5L));
+    }
+}
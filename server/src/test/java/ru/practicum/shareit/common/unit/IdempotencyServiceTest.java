@@ -0,0 +1,158 @@
+package ru.practicum.shareit.common.unit;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.ResponseEntity;
+import ru.practicum.shareit.common.service.IdempotencyService;
+import ru.practicum.shareit.exception.IdempotencyKeyReusedException;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IdempotencyServiceTest {
+
+    private static final Map<String, String> BODY = Map.of("name", "item");
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final IdempotencyService idempotencyService = new IdempotencyService(objectMapper, 2,
+            Duration.ofHours(1), Duration.ofSeconds(10));
+    private final AtomicInteger executions = new AtomicInteger();
+
+    @Test
+    void shouldReplayFirstResponseForSameKey() {
+        ResponseEntity<Integer> first = idempotencyService.execute("add", 1L, "key", BODY, this::execute);
+        ResponseEntity<Integer> second = idempotencyService.execute("add", 1L, "key", BODY, this::execute);
+
+        assertEquals(1, executions.get());
+        assertEquals(first.getBody(), second.getBody());
+        assertNull(first.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+        assertEquals("true", second.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER));
+    }
+
+    @Test
+    void shouldExecuteEveryRequestWithoutKeyOrWithKeyOfOtherUser() {
+        idempotencyService.execute("add", 1L, null, BODY, this::execute);
+        idempotencyService.execute("add", 1L, null, BODY, this::execute);
+        idempotencyService.execute("add", 1L, "key", BODY, this::execute);
+        idempotencyService.execute("add", 2L, "key", BODY, this::execute);
+        idempotencyService.execute("edit", 1L, "key", BODY, this::execute);
+
+        assertEquals(5, executions.get());
+    }
+
+    @Test
+    void shouldNotRememberFailedRequest() {
+        assertThrows(IllegalStateException.class, () -> idempotencyService.execute("add", 1L, "key", BODY, () -> {
+            throw new IllegalStateException();
+        }));
+
+        assertEquals(1, idempotencyService.execute("add", 1L, "key", BODY, this::execute).getBody());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void shouldNotRememberRequestFailedWithError() {
+        assertThrows(AssertionError.class, () -> idempotencyService.execute("add", 1L, "key", BODY, () -> {
+            throw new AssertionError();
+        }));
+
+        assertEquals(0, idempotencyService.size());
+        assertEquals(1, idempotencyService.execute("add", 1L, "key", BODY, this::execute).getBody());
+    }
+
+    @Test
+    void shouldRejectSameKeyWithOtherBody() {
+        idempotencyService.execute("add", 1L, "key", BODY, this::execute);
+
+        assertThrows(IdempotencyKeyReusedException.class, () -> idempotencyService.execute("add", 1L, "key",
+                Map.of("name", "other"), this::execute));
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void shouldWaitForRequestInProgress() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<ResponseEntity<Integer>> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("add", 1L, "key", BODY, () -> {
+                    started.countDown();
+                    await(release);
+                    return execute();
+                }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        CompletableFuture<ResponseEntity<Integer>> second = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("add", 1L, "key", BODY, this::execute));
+        release.countDown();
+
+        assertEquals(first.get(10, TimeUnit.SECONDS).getBody(), second.get(10, TimeUnit.SECONDS).getBody());
+        assertEquals(1, executions.get());
+    }
+
+    @Test
+    void shouldExecuteAgainWhenResponseExpired() {
+        IdempotencyService expiringService = new IdempotencyService(objectMapper, 2, Duration.ZERO,
+                Duration.ofSeconds(10));
+
+        expiringService.execute("add", 1L, "key", BODY, this::execute);
+        expiringService.execute("add", 1L, "key", BODY, this::execute);
+
+        assertEquals(2, executions.get());
+    }
+
+    @Test
+    void shouldEvictEldestResponseWhenFull() {
+        idempotencyService.execute("add", 1L, "first", BODY, this::execute);
+        idempotencyService.execute("add", 1L, "second", BODY, this::execute);
+        idempotencyService.execute("add", 1L, "third", BODY, this::execute);
+        idempotencyService.execute("add", 1L, "first", BODY, this::execute);
+
+        assertEquals(2, idempotencyService.size());
+        assertEquals(4, executions.get());
+    }
+
+    @Test
+    void shouldNotEvictRequestInProgressWhenFull() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        CompletableFuture<ResponseEntity<Integer>> first = CompletableFuture.supplyAsync(() ->
+                idempotencyService.execute("add", 1L, "first", BODY, () -> {
+                    started.countDown();
+                    await(release);
+                    return execute();
+                }));
+        assertTrue(started.await(10, TimeUnit.SECONDS));
+
+        idempotencyService.execute("add", 1L, "second", BODY, this::execute);
+        idempotencyService.execute("add", 1L, "third", BODY, this::execute);
+        release.countDown();
+        first.get(10, TimeUnit.SECONDS);
+
+        assertEquals(first.get().getBody(), idempotencyService.execute("add", 1L, "first", BODY, this::execute)
+                .getBody());
+        assertEquals(3, executions.get());
+    }
+
+    private ResponseEntity<Integer> execute() {
+        return ResponseEntity.ok(executions.incrementAndGet());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
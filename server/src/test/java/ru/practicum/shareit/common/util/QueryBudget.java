@@ -0,0 +1,46 @@
+package ru.practicum.shareit.common.util;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManager;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Counts the statements a service call sends to the database. The persistence context is flushed and cleared
+ * first, so the call starts cold like a new request instead of reusing the entities the test has just created.
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static long count(EntityManager entityManager, Runnable action) {
+        entityManager.flush();
+        entityManager.clear();
+
+        Statistics statistics = entityManager.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        statistics.setStatisticsEnabled(true);
+
+        try {
+            action.run();
+            return statistics.getPrepareStatementCount();
+        } finally {
+            statistics.setStatisticsEnabled(false);
+        }
+    }
+
+    public static <T> T assertAtMost(long maxQueries, EntityManager entityManager, Supplier<T> action) {
+        AtomicReference<T> result = new AtomicReference<>();
+        long queries = count(entityManager, () -> result.set(action.get()));
+
+        assertTrue(queries <= maxQueries, String.format("Expected at most %d queries, but %d were executed",
+                maxQueries, queries));
+
+        return result.get();
+    }
+}
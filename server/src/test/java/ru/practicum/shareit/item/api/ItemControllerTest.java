@@ -5,11 +5,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.practicum.shareit.common.service.IdempotencyService;
 import ru.practicum.shareit.item.controller.ItemController;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.service.ItemExportService;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.dto.UserDto;
 
@@ -20,16 +28,23 @@ import java.util.List;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
 import static org.mockito.ArgumentMatchers.nullable;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(controllers = ItemController.class)
+@Import(IdempotencyService.class)
 public class ItemControllerTest {
 
     @Autowired
@@ -38,6 +53,9 @@ public class ItemControllerTest {
     @MockBean
     private ItemService itemService;
 
+    @MockBean
+    private ItemExportService itemExportService;
+
     @Autowired
     private MockMvc mvc;
 
@@ -123,7 +141,8 @@ public class ItemControllerTest {
 
     @Test
     void searchItem() throws Exception {
-        when(itemService.search(any(String.class), nullable(Integer.class), nullable(Integer.class)))
+        when(itemService.search(any(String.class), nullable(LocalDateTime.class), nullable(LocalDateTime.class),
+                nullable(Integer.class), nullable(Integer.class)))
                 .thenReturn(List.of(itemDto));
 
         mvc.perform(get("/items/search?text=description")
@@ -139,6 +158,58 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.[0].available", is(itemDto.getAvailable())));
     }
 
+    @Test
+    void searchItemAvailableBetween() throws Exception {
+        LocalDateTime start = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime end = LocalDateTime.of(2030, 1, 2, 10, 0);
+
+        when(itemService.search("description", start, end, null, null))
+                .thenReturn(List.of(itemDto));
+
+        mvc.perform(get("/items/search?text=description&start=2030-01-01T10:00:00&end=2030-01-02T10:00:00")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(USER_ID_HEADER, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id", is(itemDto.getId()), Long.class));
+    }
+
+    @Test
+    void getItemAvailability() throws Exception {
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 10, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 5, 10, 0);
+        AvailabilityIntervalDto busy = new AvailabilityIntervalDto(from.plusDays(1), from.plusDays(2));
+
+        when(itemService.getAvailability(1L, from, to, true, 1L))
+                .thenReturn(new ItemAvailabilityDto(1L, from, to, List.of(busy),
+                        List.of(new AvailabilityIntervalDto(from, busy.getStart()),
+                                new AvailabilityIntervalDto(busy.getEnd(), to))));
+
+        mvc.perform(get("/items/1/availability?from=2030-01-01T10:00:00&to=2030-01-05T10:00:00&waiting=true")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(USER_ID_HEADER, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.itemId", is(1L), Long.class))
+                .andExpect(jsonPath("$.busy.length()", is(1)))
+                .andExpect(jsonPath("$.busy[0].start", is("2030-01-02T10:00:00")))
+                .andExpect(jsonPath("$.free.length()", is(2)));
+    }
+
+    @Test
+    void suggestItems() throws Exception {
+        when(itemService.suggest("it", 5))
+                .thenReturn(List.of(new ItemSuggestionDto(itemDto.getId(), itemDto.getName())));
+
+        mvc.perform(get("/items/suggest?prefix=it&size=5")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(USER_ID_HEADER, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id", is(itemDto.getId()), Long.class))
+                .andExpect(jsonPath("$.[0].name", is(itemDto.getName())));
+    }
+
     @Test
     void addComment() throws Exception {
         when(itemService.addComment(any(), any(Long.class), any(Long.class)))
@@ -157,4 +228,98 @@ public class ItemControllerTest {
                 .andExpect(jsonPath("$.created",
                         is(commentDto.getCreated().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME))));
     }
-}
\ No newline at end of file
+
+    @Test
+    void getComments() throws Exception {
+        when(itemService.getComments(any(Long.class), nullable(Integer.class), nullable(Integer.class),
+                any(Long.class)))
+                .thenReturn(List.of(commentDto));
+
+        mvc.perform(get("/items/1/comments?from=0&size=5")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(USER_ID_HEADER, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].id", is(commentDto.getId()), Long.class))
+                .andExpect(jsonPath("$.[0].text", is(commentDto.getText())))
+                .andExpect(jsonPath("$.[0].authorName", is(commentDto.getAuthorName())));
+    }
+
+    @Test
+    void createItems() throws Exception {
+        when(itemService.addAll(any(), any(Long.class)))
+                .thenReturn(List.of(new ItemBatchResultDto(0, 1L, null),
+                        new ItemBatchResultDto(1, null, "Запрос c id = 99 не найден!")));
+
+        mvc.perform(post("/items/batch")
+                        .content(mapper.writeValueAsString(List.of(itemDto, itemDto)))
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .accept(MediaType.APPLICATION_JSON)
+                        .header(USER_ID_HEADER, 1))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[0].index", is(0)))
+                .andExpect(jsonPath("$.[0].id", is(1L), Long.class))
+                .andExpect(jsonPath("$.[1].id").doesNotExist())
+                .andExpect(jsonPath("$.[1].error", is("Запрос c id = 99 не найден!")));
+    }
+
+    @Test
+    void exportItems() throws Exception {
+        when(itemExportService.export(any(Long.class), anyBoolean()))
+                .thenReturn(outputStream -> outputStream.write("{\"id\":1}\n{\"id\":2}\n".getBytes()));
+
+        MvcResult mvcResult = mvc.perform(get("/items/export?bookings=true")
+                        .header(USER_ID_HEADER, 1))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
+    @Test
+    void createItemWithIdempotencyKey() throws Exception {
+        when(itemService.add(any(), any(Long.class)))
+                .thenReturn(itemDto);
+
+        for (int i = 0; i < 2; i++) {
+            mvc.perform(post("/items")
+                            .content(mapper.writeValueAsString(itemDto))
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header(USER_ID_HEADER, 1)
+                            .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "key"))
+                    .andExpect(status().isOk())
+                    .andExpect(i == 0
+                            ? header().doesNotExist(IdempotencyService.REPLAYED_HEADER)
+                            : header().string(IdempotencyService.REPLAYED_HEADER, "true"))
+                    .andExpect(jsonPath("$.id", is(itemDto.getId()), Long.class));
+        }
+
+        verify(itemService, times(1)).add(any(), any(Long.class));
+    }
+
+    @Test
+    void createItemWithReusedIdempotencyKeyAndOtherBody() throws Exception {
+        when(itemService.add(any(), any(Long.class)))
+                .thenReturn(itemDto);
+
+        for (String name : List.of(itemDto.getName(), "other")) {
+            itemDto.setName(name);
+            mvc.perform(post("/items")
+                            .content(mapper.writeValueAsString(itemDto))
+                            .characterEncoding(StandardCharsets.UTF_8)
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .accept(MediaType.APPLICATION_JSON)
+                            .header(USER_ID_HEADER, 1)
+                            .header(IdempotencyService.IDEMPOTENCY_KEY_HEADER, "reused"))
+                    .andExpect("other".equals(name) ? status().isUnprocessableEntity() : status().isOk());
+        }
+
+        verify(itemService, times(1)).add(any(), any(Long.class));
+    }
+}
@@ -1,22 +1,37 @@
 package ru.practicum.shareit.item.integration;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mapstruct.factory.Mappers;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
 import ru.practicum.shareit.common.service.ConsistencyService;
 import ru.practicum.shareit.exception.ItemNotFoundException;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.mapper.ItemMapper;
 import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemFullTextSearch;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.item.service.ItemServiceImpl;
+import ru.practicum.shareit.user.cache.UserIdCache;
+import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
 
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @SpringBootTest
@@ -29,19 +44,22 @@ public class ItemServiceImplTest {
     @Mock
     private UserRepository mockUserRepository;
 
+    @Mock
+    private UserIdCache mockUserIdCache;
+
     @Mock
     private ItemRepository mockItemRepository;
 
     @Test
     void shouldExceptionWhenEditNotExistingItem() {
-        ItemService itemService = new ItemServiceImpl(consistencyService, null, null, mockItemRepository,
-                mockUserRepository, null, null, null);
+        ItemService itemService = new ItemServiceImpl(consistencyService, null, null, null, mockItemRepository, null,
+                null, null, null, null, mockUserRepository, null, null, null, null);
 
-        when(mockUserRepository.existsById(any(Long.class)))
-                .thenReturn(true);
+        when(mockUserRepository.findActiveById(any(Long.class)))
+                .thenReturn(Optional.of(new User(2L, "user", "user@user.ru")));
 
-        when(mockItemRepository.existsById(any(Long.class)))
-                .thenReturn(false);
+        when(mockItemRepository.findActiveById(any(Long.class)))
+                .thenReturn(Optional.empty());
 
         ItemDto itemDto = new ItemDto(1L, "item1", "description1", true, null, null);
 
@@ -49,4 +67,19 @@ public class ItemServiceImplTest {
                 () -> itemService.edit(itemDto, itemDto.getId(), 2L));
         assertEquals(String.format("Вещь с id = %d не найдена!", itemDto.getId()), exception.getMessage());
     }
+
+    @Test
+    void shouldSearchWithRankedQueryWhenFullTextSearchEnabled() {
+        ItemService itemService = new ItemServiceImpl(consistencyService, null, null, null, mockItemRepository,
+                new ItemSearchIndex(mockItemRepository, false, false),
+                new ItemSearchCache(new SimpleMeterRegistry(), false, 0, Duration.ZERO), null,
+                new ItemFullTextSearch(mockItemRepository, true), null, mockUserRepository, null, null,
+                Mappers.getMapper(ItemMapper.class), null);
+
+        when(mockItemRepository.searchRanked("дрель", PageRequest.of(1, 2)))
+                .thenReturn(List.of());
+
+        assertTrue(itemService.search("дрель", 2, 2).isEmpty());
+        verify(mockItemRepository).searchRanked("дрель", PageRequest.of(1, 2));
+    }
 }
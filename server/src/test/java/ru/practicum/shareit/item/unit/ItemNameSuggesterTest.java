@@ -0,0 +1,119 @@
+package ru.practicum.shareit.item.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.dto.ItemSuggestionDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemNameSuggester;
+import ru.practicum.shareit.user.model.User;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemNameSuggesterTest {
+
+    @Mock
+    private ItemRepository mockItemRepository;
+
+    private ItemNameSuggester itemNameSuggester;
+
+    private final User owner = new User(1L, "user1", "first@user.ru");
+
+    @BeforeEach
+    void setUp() {
+        itemNameSuggester = new ItemNameSuggester(mockItemRepository, true, 100);
+
+        itemNameSuggester.index(new Item(1L, "Дрель", "Мощная дрель", true, owner, null));
+        itemNameSuggester.index(new Item(2L, "Дрель ударная", "Без аккумулятора", true, null, null));
+        itemNameSuggester.index(new Item(3L, "Дрова", "Берёзовые", false, null, null));
+        itemNameSuggester.index(new Item(4L, "Пила", "Цепная", true, null, null));
+        itemNameSuggester.index(new Item(5L, "дрель", "Маленькая", true, null, null));
+    }
+
+    @Test
+    void shouldSuggestAvailableItemsByPrefixIgnoringCaseOrderedByNameAndId() {
+        assertEquals(List.of(1L, 5L, 2L), getIds(itemNameSuggester.suggest("дР", 10)));
+        assertEquals(List.of(4L), getIds(itemNameSuggester.suggest("пила", 10)));
+        assertTrue(itemNameSuggester.suggest("пилы", 10).isEmpty());
+    }
+
+    @Test
+    void shouldLimitNumberOfSuggestions() {
+        assertEquals(List.of(1L, 5L), getIds(itemNameSuggester.suggest("дрель", 2)));
+    }
+
+    @Test
+    void shouldUpdateRenamedAndUnavailableItems() {
+        itemNameSuggester.index(new Item(1L, "Шуруповёрт", "Мощная дрель", true, owner, null));
+        itemNameSuggester.index(new Item(2L, "Дрель ударная", "Без аккумулятора", false, null, null));
+        itemNameSuggester.index(new Item(3L, "Дрова", "Берёзовые", true, null, null));
+
+        assertEquals(List.of(5L, 3L), getIds(itemNameSuggester.suggest("др", 10)));
+        assertEquals(List.of(1L), getIds(itemNameSuggester.suggest("шуруп", 10)));
+    }
+
+    @Test
+    void shouldRemoveItemsOfOwner() {
+        itemNameSuggester.removeByOwner(owner.getId());
+
+        assertEquals(List.of(5L, 2L), getIds(itemNameSuggester.suggest("дрель", 10)));
+    }
+
+    @Test
+    void shouldKeepOrderAcrossRepeatedChangesBetweenLookups() {
+        assertEquals(List.of(1L, 5L, 2L), getIds(itemNameSuggester.suggest("др", 10)));
+
+        itemNameSuggester.index(new Item(1L, "Дрель", "Мощная дрель", false, owner, null));
+        itemNameSuggester.index(new Item(1L, "Дрель большая", "Мощная дрель", true, owner, null));
+        itemNameSuggester.index(new Item(3L, "Дрова", "Берёзовые", true, null, null));
+        itemNameSuggester.index(new Item(6L, "Дрель", "Новая", true, null, null));
+
+        assertEquals(List.of(5L, 6L, 1L, 2L, 3L), getIds(itemNameSuggester.suggest("др", 10)));
+        assertEquals(List.of(4L), getIds(itemNameSuggester.suggest("п", 10)));
+    }
+
+    @Test
+    void shouldNotSuggestMoreItemsThanLimit() {
+        itemNameSuggester = new ItemNameSuggester(mockItemRepository, true, 2);
+
+        itemNameSuggester.index(new Item(1L, "Дрель", "Мощная дрель", true, owner, null));
+        itemNameSuggester.index(new Item(2L, "Дрель ударная", "Без аккумулятора", true, null, null));
+        itemNameSuggester.index(new Item(5L, "дрель", "Маленькая", true, null, null));
+
+        assertEquals(List.of(1L, 2L), getIds(itemNameSuggester.suggest("дрель", 10)));
+
+        itemNameSuggester.index(new Item(2L, "Дрель ударная", "Без аккумулятора", false, null, null));
+        itemNameSuggester.index(new Item(5L, "дрель", "Маленькая", true, null, null));
+
+        assertEquals(List.of(1L, 5L), getIds(itemNameSuggester.suggest("дрель", 10)));
+    }
+
+    @Test
+    void shouldRebuildFromRepository() {
+        when(mockItemRepository.findByOwnerDeletedAtIsNull(any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(List.of(new Item(6L, "Лестница", "Стремянка", true, null, null))));
+
+        itemNameSuggester.rebuild();
+
+        assertEquals(List.of(6L), getIds(itemNameSuggester.suggest("лес", 10)));
+        assertTrue(itemNameSuggester.suggest("дрель", 10).isEmpty());
+    }
+
+    private List<Long> getIds(List<ItemSuggestionDto> suggestions) {
+        return suggestions.stream()
+                .map(ItemSuggestionDto::getId)
+                .collect(Collectors.toList());
+    }
+}
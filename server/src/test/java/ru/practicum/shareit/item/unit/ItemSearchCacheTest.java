@@ -0,0 +1,111 @@
+package ru.practicum.shareit.item.unit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.search.ItemSearchCache;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ItemSearchCacheTest {
+
+    private final ItemDto drill = new ItemDto(1L, "Дрель", "Мощная дрель", true, null, null);
+    private final ItemDto saw = new ItemDto(2L, "Пила", "Цепная пила", true, null, null);
+
+    private MeterRegistry meterRegistry;
+    private ItemSearchCache itemSearchCache;
+    private AtomicInteger searches;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        itemSearchCache = new ItemSearchCache(meterRegistry, true, 2, Duration.ofMinutes(1));
+        searches = new AtomicInteger();
+    }
+
+    @Test
+    void shouldReturnCachedResultForSameNormalizedTextAndWindow() {
+        assertEquals(List.of(drill), search("дрель", 0, 10, drill));
+        assertEquals(List.of(drill), search("ДрЕлЬ", 0, 10, drill));
+        search("дрель", 10, 10);
+
+        assertEquals(2, searches.get());
+        assertEquals(1.0, counter("shareit.item.search.cache.requests", "result", "hit"));
+        assertEquals(2.0, counter("shareit.item.search.cache.requests", "result", "miss"));
+    }
+
+    @Test
+    void shouldInvalidateOnlyTextsOccurringInChangedItem() {
+        search("дрель", 0, 10, drill);
+        search("пила", 0, 10, saw);
+
+        itemSearchCache.invalidate(3L, "Ударная дрель", "Новая");
+        search("дрель", 0, 10, drill);
+        search("пила", 0, 10, saw);
+
+        assertEquals(3, searches.get());
+        assertEquals(1.0, counter("shareit.item.search.cache.evictions", "cause", "invalidated"));
+    }
+
+    @Test
+    void shouldInvalidateEntriesContainingChangedItem() {
+        search("мощная", 0, 10, drill);
+
+        itemSearchCache.invalidate(drill.getId());
+        search("мощная", 0, 10, drill);
+
+        assertEquals(2, searches.get());
+    }
+
+    @Test
+    void shouldInvalidateByNewItemsOfBatch() {
+        search("лестн", 0, 10);
+        search("пила", 0, 10, saw);
+
+        itemSearchCache.invalidate(List.of(new Item(5L, "Лестница", "Стремянка", true, null, null)));
+
+        assertEquals(1, itemSearchCache.size());
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedEntryWhenFull() {
+        search("дрель", 0, 10, drill);
+        search("пила", 0, 10, saw);
+        search("дрель", 0, 10, drill);
+        search("молоток", 0, 10);
+        search("дрель", 0, 10, drill);
+
+        assertEquals(3, searches.get());
+        assertEquals(2, itemSearchCache.size());
+        assertEquals(1.0, counter("shareit.item.search.cache.evictions", "cause", "size"));
+    }
+
+    @Test
+    void shouldExpireEntriesAfterTtl() {
+        itemSearchCache = new ItemSearchCache(meterRegistry, true, 2, Duration.ZERO);
+
+        search("дрель", 0, 10, drill);
+        search("дрель", 0, 10, drill);
+
+        assertEquals(2, searches.get());
+        assertEquals(1.0, counter("shareit.item.search.cache.evictions", "cause", "expired"));
+    }
+
+    private List<ItemDto> search(String text, long offset, int size, ItemDto... items) {
+        return itemSearchCache.get(text, offset, size, () -> {
+            searches.incrementAndGet();
+            return List.of(items);
+        });
+    }
+
+    private double counter(String name, String tagKey, String tagValue) {
+        return meterRegistry.counter(name, tagKey, tagValue).count();
+    }
+}
@@ -0,0 +1,97 @@
+package ru.practicum.shareit.item.unit;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import ru.practicum.shareit.item.model.Item;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.search.ItemSearchIndex;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+public class ItemSearchIndexTest {
+
+    @Mock
+    private ItemRepository mockItemRepository;
+
+    private ItemSearchIndex itemSearchIndex;
+
+    @BeforeEach
+    void setUp() {
+        itemSearchIndex = new ItemSearchIndex(mockItemRepository, true, false);
+
+        itemSearchIndex.index(new Item(1L, "Дрель", "Мощная дрель", true, null, null));
+        itemSearchIndex.index(new Item(2L, "Отвертка", "Аккумуляторная отвертка", true, null, null));
+        itemSearchIndex.index(new Item(3L, "Дрель ударная", "Без аккумулятора", false, null, null));
+        itemSearchIndex.index(new Item(4L, "Пила", "Дрель не прилагается", true, null, null));
+    }
+
+    @Test
+    void shouldFindAvailableItemsByNameOrDescriptionIgnoringCase() {
+        assertEquals(List.of(1L, 4L), itemSearchIndex.search("дРеЛь", 0, Integer.MAX_VALUE));
+        assertEquals(List.of(2L), itemSearchIndex.search("аккумулятор", 0, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void shouldFindItemsByTextShorterThanGram() {
+        assertEquals(List.of(1L, 2L, 4L), itemSearchIndex.search("р", 0, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void shouldApplyOffsetAndSize() {
+        assertEquals(List.of(2L), itemSearchIndex.search("р", 1, 1));
+        assertTrue(itemSearchIndex.search("р", 3, 1).isEmpty());
+    }
+
+    @Test
+    void shouldKeepShortTextResultsInIdOrderAfterEditsAndRemovals() {
+        itemSearchIndex.index(new Item(3L, "Дрель ударная", "Без аккумулятора", true, null, null));
+        itemSearchIndex.index(new Item(4L, "Пила", "Цепная", true, null, null));
+        itemSearchIndex.remove(1L);
+
+        assertEquals(List.of(2L, 3L), itemSearchIndex.search("ят", 0, Integer.MAX_VALUE));
+        assertEquals(List.of(3L), itemSearchIndex.search("ят", 1, 1));
+        assertTrue(itemSearchIndex.search("юю", 0, Integer.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    void shouldNotFindTextWhenAllGramsMatchButSubstringDoesNot() {
+        assertTrue(itemSearchIndex.search("дрельдрель", 0, Integer.MAX_VALUE).isEmpty());
+    }
+
+    @Test
+    void shouldReindexEditedItem() {
+        itemSearchIndex.index(new Item(3L, "Дрель ударная", "Без аккумулятора", true, null, null));
+        itemSearchIndex.index(new Item(4L, "Пила", "Цепная", true, null, null));
+
+        assertEquals(List.of(1L, 3L), itemSearchIndex.search("дрель", 0, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void shouldRemoveItem() {
+        itemSearchIndex.remove(1L);
+
+        assertEquals(List.of(4L), itemSearchIndex.search("дрель", 0, Integer.MAX_VALUE));
+    }
+
+    @Test
+    void shouldRebuildFromRepository() {
+        when(mockItemRepository.findByOwnerDeletedAtIsNull(any(PageRequest.class)))
+                .thenReturn(new PageImpl<>(List.of(new Item(5L, "Лестница", "Стремянка", true, null, null))));
+
+        itemSearchIndex.rebuild();
+
+        assertEquals(List.of(5L), itemSearchIndex.search("лестн", 0, Integer.MAX_VALUE));
+        assertTrue(itemSearchIndex.search("дрель", 0, Integer.MAX_VALUE).isEmpty());
+    }
+}
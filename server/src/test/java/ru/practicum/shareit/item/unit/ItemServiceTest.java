@@ -1,5 +1,7 @@
 package ru.practicum.shareit.item.unit;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -8,17 +10,29 @@ import org.springframework.transaction.annotation.Transactional;
 import ru.practicum.shareit.booking.dto.BookingDto;
 import ru.practicum.shareit.booking.dto.BookingInputDto;
 import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.common.util.QueryBudget;
 import ru.practicum.shareit.exception.ItemNotFoundException;
 import ru.practicum.shareit.exception.NotEnoughRightsException;
+import ru.practicum.shareit.item.dto.AvailabilityIntervalDto;
 import ru.practicum.shareit.item.dto.CommentDto;
+import ru.practicum.shareit.item.dto.ItemAvailabilityDto;
+import ru.practicum.shareit.item.dto.ItemBatchResultDto;
 import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.service.ItemExportService;
 import ru.practicum.shareit.item.service.ItemService;
 import ru.practicum.shareit.user.dto.UserDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
+import javax.persistence.EntityManager;
+import javax.validation.ValidationException;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.stream.Collectors;
 
 import static java.lang.Thread.sleep;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -26,6 +40,8 @@ import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 @SpringBootTest
@@ -34,8 +50,11 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 public class ItemServiceTest {
 
     private final ItemService itemService;
+    private final ItemExportService itemExportService;
+    private final ObjectMapper objectMapper;
     private final UserService userService;
     private final BookingService bookingService;
+    private final EntityManager entityManager;
 
     private final User user1 = new User(200L, "user1", "first@user.ru");
     private final User user2 = new User(201L, "user2", "second@user.ru");
@@ -58,6 +77,18 @@ public class ItemServiceTest {
         assertThat(returnItemDto.getAvailable(), equalTo(itemDto.getAvailable()));
     }
 
+    @Test
+    void shouldLoadItemOnceWhenGetItemByOwner() {
+        UserDto userDto = userService.create(user1);
+        ItemDto itemDto = itemService.add(itemDto1, userDto.getId());
+
+        ItemDto returnItemDto = QueryBudget.assertAtMost(6, entityManager,
+                () -> itemService.get(itemDto.getId(), userDto.getId()));
+
+        assertEquals(itemDto.getName(), returnItemDto.getName());
+        assertThrows(ItemNotFoundException.class, () -> itemService.get(itemDto.getId() + 1, userDto.getId()));
+    }
+
     @Test
     void shouldEditItem() {
         UserDto userDto = userService.create(user1);
@@ -126,6 +157,86 @@ public class ItemServiceTest {
         assertEquals(2, listItems.size());
     }
 
+    @Test
+    void shouldExcludeItemsWithApprovedBookingsOverlappingWindowWhenSearch() {
+        UserDto ownerDto = userService.create(user1);
+        UserDto bookerDto = userService.create(user2);
+        ItemDto bookedItemDto = itemService.add(itemDto1, ownerDto.getId());
+        ItemDto freeItemDto = itemService.add(itemDto2, ownerDto.getId());
+
+        LocalDateTime start = LocalDateTime.now().plusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        BookingDto approvedBookingDto = bookingService.add(new BookingInputDto(bookedItemDto.getId(), start,
+                start.plusDays(2)), bookerDto.getId());
+        bookingService.updateStatus(approvedBookingDto.getId(), true, ownerDto.getId());
+        bookingService.add(new BookingInputDto(freeItemDto.getId(), start, start.plusDays(2)), bookerDto.getId());
+
+        List<ItemDto> overlapping = itemService.search("itemDto", start.plusDays(1), start.plusDays(3), 0, 10);
+        List<ItemDto> adjacent = itemService.search("itemDto", start.plusDays(2), start.plusDays(3), 0, 10);
+
+        assertEquals(List.of(freeItemDto.getId()), getIds(overlapping));
+        assertEquals(List.of(bookedItemDto.getId(), freeItemDto.getId()), getIds(adjacent));
+        assertEquals(2, itemService.search("itemDto", null, null, 0, 10).size());
+        assertThrows(ValidationException.class, () -> itemService.search("itemDto", start, null, 0, 10));
+        assertThrows(ValidationException.class, () -> itemService.search("itemDto", start, start, 0, 10));
+    }
+
+    @Test
+    void shouldExcludeItemsWithActiveHoldOverlappingWindowWhenSearchAndGetAvailability() {
+        UserDto ownerDto = userService.create(user1);
+        UserDto bookerDto = userService.create(user2);
+        ItemDto heldItemDto = itemService.add(itemDto1, ownerDto.getId());
+        ItemDto freeItemDto = itemService.add(itemDto2, ownerDto.getId());
+
+        LocalDateTime start = LocalDateTime.now().plusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        bookingService.hold(new BookingInputDto(heldItemDto.getId(), start, start.plusDays(2)), bookerDto.getId());
+
+        List<ItemDto> overlapping = itemService.search("itemDto", start.plusDays(1), start.plusDays(3), 0, 10);
+        ItemAvailabilityDto availability = itemService.getAvailability(heldItemDto.getId(), start,
+                start.plusDays(3), false, bookerDto.getId());
+
+        assertEquals(List.of(freeItemDto.getId()), getIds(overlapping));
+        assertEquals(List.of(new AvailabilityIntervalDto(start, start.plusDays(2))), availability.getBusy());
+        assertEquals(List.of(new AvailabilityIntervalDto(start.plusDays(2), start.plusDays(3))),
+                availability.getFree());
+    }
+
+    @Test
+    void shouldMergeBookingsIntoBusyAndFreeIntervalsWhenGetAvailability() {
+        UserDto ownerDto = userService.create(user1);
+        UserDto bookerDto = userService.create(user2);
+        ItemDto itemDto = itemService.add(itemDto1, ownerDto.getId());
+
+        LocalDateTime start = LocalDateTime.now().plusDays(10).truncatedTo(ChronoUnit.SECONDS);
+        BookingDto firstBookingDto = bookingService.add(new BookingInputDto(itemDto.getId(), start,
+                start.plusDays(2)), bookerDto.getId());
+        BookingDto secondBookingDto = bookingService.add(new BookingInputDto(itemDto.getId(), start.plusDays(2),
+                start.plusDays(3)), bookerDto.getId());
+        bookingService.updateStatus(firstBookingDto.getId(), true, ownerDto.getId());
+        bookingService.updateStatus(secondBookingDto.getId(), true, ownerDto.getId());
+        bookingService.add(new BookingInputDto(itemDto.getId(), start.plusDays(5), start.plusDays(6)),
+                bookerDto.getId());
+
+        ItemAvailabilityDto approved = itemService.getAvailability(itemDto.getId(), start.minusDays(1),
+                start.plusDays(7), false, bookerDto.getId());
+        ItemAvailabilityDto withWaiting = itemService.getAvailability(itemDto.getId(), start.minusDays(1),
+                start.plusDays(7), true, bookerDto.getId());
+        ItemAvailabilityDto clipped = itemService.getAvailability(itemDto.getId(), start.plusDays(1),
+                start.plusDays(2), false, bookerDto.getId());
+
+        assertEquals(List.of(new AvailabilityIntervalDto(start, start.plusDays(3))), approved.getBusy());
+        assertEquals(List.of(new AvailabilityIntervalDto(start.minusDays(1), start),
+                new AvailabilityIntervalDto(start.plusDays(3), start.plusDays(7))), approved.getFree());
+        assertEquals(List.of(new AvailabilityIntervalDto(start, start.plusDays(3)),
+                new AvailabilityIntervalDto(start.plusDays(5), start.plusDays(6))), withWaiting.getBusy());
+        assertEquals(List.of(new AvailabilityIntervalDto(start.minusDays(1), start),
+                new AvailabilityIntervalDto(start.plusDays(3), start.plusDays(5)),
+                new AvailabilityIntervalDto(start.plusDays(6), start.plusDays(7))), withWaiting.getFree());
+        assertEquals(List.of(new AvailabilityIntervalDto(start.plusDays(1), start.plusDays(2))), clipped.getBusy());
+        assertEquals(List.of(), clipped.getFree());
+        assertThrows(ValidationException.class, () -> itemService.getAvailability(itemDto.getId(), start, start,
+                false, bookerDto.getId()));
+    }
+
     @Test
     void shouldExceptionWhenAddCommentWhenUserNotBooker() {
         UserDto ownerDto = userService.create(user1);
@@ -163,4 +274,162 @@ public class ItemServiceTest {
 
         assertEquals(1, itemService.getAll(0, 10, ownerDto.getId()).get(0).getComments().size());
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnItemsByOwnerWithConstantNumberOfQueries() {
+        UserDto ownerDto = userService.create(user1);
+        UserDto bookerDto = userService.create(user2);
+
+        addItemsWithBookingsAndComments(2, ownerDto.getId(), bookerDto);
+        long smallPageQueries = countQueriesOfGetAll(ownerDto.getId(), 2);
+
+        addItemsWithBookingsAndComments(8, ownerDto.getId(), bookerDto);
+        long largePageQueries = countQueriesOfGetAll(ownerDto.getId(), 10);
+
+        assertEquals(smallPageQueries, largePageQueries);
+    }
+
+    @Test
+    void shouldReturnRecentCommentsWithCountAndPagedComments() {
+        UserDto ownerDto = userService.create(user1);
+        UserDto bookerDto = userService.create(user2);
+        ItemDto itemDto = itemService.add(itemDto1, ownerDto.getId());
+
+        LocalDateTime dateTime = LocalDateTime.now();
+        BookingDto bookingDto = bookingService.add(new BookingInputDto(itemDto.getId(), dateTime.minusDays(2),
+                dateTime.minusDays(1)), bookerDto.getId());
+        bookingService.updateStatus(bookingDto.getId(), true, ownerDto.getId());
+
+        for (int i = 0; i < 12; i++) {
+            CommentDto commentDto = new CommentDto(null, "comment" + i, bookerDto.getName(), dateTime);
+            itemService.addComment(commentDto, itemDto.getId(), bookerDto.getId());
+        }
+
+        ItemDto returnItemDto = itemService.get(itemDto.getId(), ownerDto.getId());
+
+        assertEquals(12L, returnItemDto.getCommentCount());
+        assertEquals(10, returnItemDto.getComments().size());
+        assertEquals("comment11", returnItemDto.getComments().get(0).getText());
+        assertEquals(bookerDto.getName(), returnItemDto.getComments().get(0).getAuthorName());
+
+        List<CommentDto> comments = itemService.getComments(itemDto.getId(), 10, 5, ownerDto.getId());
+
+        assertEquals(2, comments.size());
+        assertEquals("comment1", comments.get(0).getText());
+        assertEquals("comment0", comments.get(1).getText());
+    }
+
+    @Test
+    void shouldCreateValidItemsAndReportInvalidOnesWhenAddAll() {
+        UserDto userDto = userService.create(user1);
+        ItemDto blankItemDto = new ItemDto(null, " ", "description", true, null, null);
+        ItemDto requestedItemDto = new ItemDto(null, "itemDto3", "description3", true, null, null);
+        requestedItemDto.setRequestId(Long.MAX_VALUE);
+
+        List<ItemBatchResultDto> results = itemService.addAll(List.of(itemDto1, blankItemDto, requestedItemDto,
+                itemDto2), userDto.getId());
+
+        assertEquals(4, results.size());
+        assertNotNull(results.get(0).getId());
+        assertNull(results.get(0).getError());
+        assertNull(results.get(1).getId());
+        assertEquals("Название (name) вещи не должно быть пустым!", results.get(1).getError());
+        assertNull(results.get(2).getId());
+        assertEquals(String.format("Запрос c id = %d не найден!", Long.MAX_VALUE), results.get(2).getError());
+        assertEquals(3, results.get(3).getIndex());
+
+        ItemDto returnItemDto = itemService.get(results.get(3).getId(), userDto.getId());
+
+        assertThat(returnItemDto.getName(), equalTo(itemDto2.getName()));
+        assertEquals(2, itemService.getAll(0, 10, userDto.getId()).size());
+    }
+
+    @Test
+    void shouldInsertItemsInSeveralBatchesWhenAddAll() {
+        UserDto userDto = userService.create(user1);
+        List<ItemDto> itemDtos = new ArrayList<>();
+
+        for (int i = 0; i < 1200; i++) {
+            itemDtos.add(new ItemDto(null, "item" + i, "description" + i, true, null, null));
+        }
+
+        List<ItemBatchResultDto> results = itemService.addAll(itemDtos, userDto.getId());
+
+        assertEquals(1200, results.stream().map(ItemBatchResultDto::getId).distinct().count());
+        assertEquals(1200, itemService.getAll(0, 2000, userDto.getId()).size());
+        assertEquals("item1199", itemService.get(results.get(1199).getId(), userDto.getId()).getName());
+    }
+
+    @Test
+    void shouldExceptionWhenAddAllWithEmptyList() {
+        UserDto userDto = userService.create(user1);
+
+        assertThrows(ValidationException.class, () -> itemService.addAll(List.of(), userDto.getId()));
+    }
+
+    @Test
+    void shouldExportItemsWithBookingsAsNdjson() throws Exception {
+        UserDto ownerDto = userService.create(user1);
+        UserDto bookerDto = userService.create(user2);
+        itemService.add(itemDto2, bookerDto.getId());
+        addItemsWithBookingsAndComments(3, ownerDto.getId(), bookerDto);
+        entityManager.flush();
+        entityManager.clear();
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        itemExportService.export(ownerDto.getId(), true).writeTo(outputStream);
+        String[] lines = outputStream.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(3, lines.length);
+        for (String line : lines) {
+            JsonNode item = objectMapper.readTree(line);
+
+            assertEquals(itemDto1.getName(), item.get("name").asText());
+            assertEquals(2, item.get("bookings").size());
+            assertEquals("APPROVED", item.get("bookings").get(0).get("status").asText());
+        }
+
+        outputStream.reset();
+        itemExportService.export(ownerDto.getId(), false).writeTo(outputStream);
+
+        assertFalse(outputStream.toString(StandardCharsets.UTF_8).contains("bookings"));
+    }
+
+    private void addItemsWithBookingsAndComments(int count, Long ownerId, UserDto bookerDto) {
+        LocalDateTime dateTime = LocalDateTime.now();
+
+        for (int i = 0; i < count; i++) {
+            ItemDto itemDto = itemService.add(itemDto1, ownerId);
+
+            BookingDto lastBookingDto = bookingService.add(new BookingInputDto(itemDto.getId(),
+                    dateTime.minusDays(2), dateTime.minusDays(1)), bookerDto.getId());
+            bookingService.updateStatus(lastBookingDto.getId(), true, ownerId);
+
+            BookingDto nextBookingDto = bookingService.add(new BookingInputDto(itemDto.getId(),
+                    dateTime.plusDays(1), dateTime.plusDays(2)), bookerDto.getId());
+            bookingService.updateStatus(nextBookingDto.getId(), true, ownerId);
+
+            CommentDto commentDto = new CommentDto(null, "comment", bookerDto.getName(), dateTime);
+            itemService.addComment(commentDto, itemDto.getId(), bookerDto.getId());
+        }
+    }
+
+    private List<Long> getIds(List<ItemDto> items) {
+        return items.stream()
+                .map(ItemDto::getId)
+                .collect(Collectors.toList());
+    }
+
+    private long countQueriesOfGetAll(Long ownerId, int size) {
+        return QueryBudget.count(entityManager, () -> {
+            List<ItemDto> items = itemService.getAll(0, size, ownerId);
+
+            assertEquals(size, items.size());
+            for (ItemDto item : items) {
+                assertNotNull(item.getLastBooking());
+                assertNotNull(item.getNextBooking());
+                assertEquals(1, item.getComments().size());
+            }
+        });
+    }
+}
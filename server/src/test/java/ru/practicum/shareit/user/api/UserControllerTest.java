@@ -7,8 +7,11 @@ import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.practicum.shareit.user.controller.UserController;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserPageDto;
+import ru.practicum.shareit.user.service.UserExportService;
 import ru.practicum.shareit.user.service.UserService;
 
 import java.nio.charset.StandardCharsets;
@@ -16,13 +19,16 @@ import java.util.List;
 
 import static org.hamcrest.Matchers.is;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 
@@ -35,6 +41,9 @@ public class UserControllerTest {
     @MockBean
     private UserService userService;
 
+    @MockBean
+    private UserExportService userExportService;
+
     @Autowired
     private MockMvc mvc;
 
@@ -93,7 +102,7 @@ public class UserControllerTest {
                 new UserDto(2L, "user2", "second@user.ru")
         );
 
-        when(userService.getAll())
+        when(userService.getAll(null, null))
                 .thenReturn(listUserDto);
 
         mvc.perform(get("/users")
@@ -104,6 +113,36 @@ public class UserControllerTest {
                 .andExpect(content().json(mapper.writeValueAsString(listUserDto)));
     }
 
+    @Test
+    void getUsersPage() throws Exception {
+        UserPageDto userPageDto = new UserPageDto(List.of(userDto), "MQ");
+
+        when(userService.getPage(eq(""), eq(1)))
+                .thenReturn(userPageDto);
+
+        mvc.perform(get("/users?cursor=&size=1")
+                        .characterEncoding(StandardCharsets.UTF_8)
+                        .accept(MediaType.APPLICATION_JSON))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0].id", is(userDto.getId()), Long.class))
+                .andExpect(jsonPath("$.nextCursor", is("MQ")));
+    }
+
+    @Test
+    void exportUsers() throws Exception {
+        when(userExportService.export())
+                .thenReturn(outputStream -> outputStream.write("{\"id\":1}\n{\"id\":2}\n".getBytes()));
+
+        MvcResult mvcResult = mvc.perform(get("/users/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(mvcResult))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"))
+                .andExpect(content().string("{\"id\":1}\n{\"id\":2}\n"));
+    }
+
     @Test
     void deleteUser() throws Exception {
         mvc.perform(delete("/users/1"))
@@ -8,6 +8,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.dao.DataIntegrityViolationException;
 import ru.practicum.shareit.exception.EmailAlreadyExistsException;
+import ru.practicum.shareit.user.cache.EmailBloomFilter;
 import ru.practicum.shareit.user.mapper.UserMapper;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.repository.UserRepository;
@@ -29,9 +30,13 @@ public class UserServiceImplTest {
     @Mock
     private UserRepository mockUserRepository;
 
+    @Mock
+    private EmailBloomFilter mockEmailBloomFilter;
+
     @Test
     void shouldExceptionWhenCreateUserWithExistingEmail() {
-        UserService userService = new UserServiceImpl(userMapper, mockUserRepository, null);
+        UserService userService = new UserServiceImpl(userMapper, mockUserRepository, null, null, null, null, null, null,
+                mockEmailBloomFilter, null);
 
         User user = new User(1L, "user1", "first@user.ru");
         userService.create(user);
@@ -0,0 +1,70 @@
+package ru.practicum.shareit.user.unit;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.practicum.shareit.user.cache.EmailBloomFilter;
+import ru.practicum.shareit.user.repository.UserRepository;
+
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class EmailBloomFilterTest {
+
+    private final UserRepository userRepository = mock(UserRepository.class);
+
+    @Test
+    void shouldReportEveryAddedEmailAndFewFalsePositives() {
+        EmailBloomFilter emailBloomFilter = createFilter(10_000, true);
+        emailBloomFilter.rebuild();
+
+        for (int i = 0; i < 10_000; i++) {
+            emailBloomFilter.add("user" + i + "@user.ru");
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(emailBloomFilter.mightContain("USER" + i + "@user.ru"));
+            falsePositives += emailBloomFilter.mightContain("other" + i + "@user.ru") ? 1 : 0;
+        }
+
+        assertTrue(falsePositives < 200, "False positives: " + falsePositives);
+    }
+
+    @Test
+    void shouldLoadRegisteredEmailsAndDropStaleOnesWhenRebuilt() {
+        when(userRepository.count()).thenReturn(2L, 1L);
+        when(userRepository.streamAllEmails())
+                .thenReturn(Stream.of("first@user.ru", "second@user.ru"))
+                .thenReturn(Stream.of("first@user.ru"));
+
+        EmailBloomFilter emailBloomFilter = createFilter(100, true);
+        assertTrue(emailBloomFilter.mightContain("unknown@user.ru"));
+
+        emailBloomFilter.rebuild();
+        assertTrue(emailBloomFilter.mightContain("second@user.ru"));
+        assertFalse(emailBloomFilter.mightContain("unknown@user.ru"));
+
+        emailBloomFilter.markRemoved();
+        emailBloomFilter.rebuildIfStale();
+        assertTrue(emailBloomFilter.mightContain("first@user.ru"));
+        assertFalse(emailBloomFilter.mightContain("second@user.ru"));
+    }
+
+    @Test
+    void shouldReportEveryEmailWhenDisabled() {
+        EmailBloomFilter emailBloomFilter = createFilter(100, false);
+        emailBloomFilter.rebuild();
+
+        assertTrue(emailBloomFilter.mightContain("unknown@user.ru"));
+    }
+
+    private EmailBloomFilter createFilter(long expectedInsertions, boolean enabled) {
+        return new EmailBloomFilter(userRepository, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry(), enabled, expectedInsertions, 0.01, 0.1);
+    }
+}
@@ -0,0 +1,101 @@
+package ru.practicum.shareit.user.unit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.practicum.shareit.user.cache.UserIdCache;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UserIdCacheTest {
+
+    private static final Duration TOMBSTONE_TTL = Duration.ofMinutes(10);
+
+    private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void shouldRememberKnownIdsUntilInvalidatedAndReportHitRatio() {
+        UserIdCache userIdCache = new UserIdCache(meterRegistry, true, 16, Duration.ZERO, TOMBSTONE_TTL);
+
+        assertFalse(userIdCache.isKnown(1L));
+        userIdCache.addKnown(1L);
+        assertTrue(userIdCache.isKnown(1L));
+        assertTrue(userIdCache.isKnown(1L));
+
+        userIdCache.invalidate(1L);
+        assertFalse(userIdCache.isKnown(1L));
+
+        assertEquals(0.5, userIdCache.getHitRatio());
+        assertEquals(0.5, meterRegistry.get("shareit.user.id-cache.hit-ratio").gauge().value());
+        assertEquals(2.0, meterRegistry.get("shareit.user.id-cache.requests").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void shouldNotAddDeletedIdBackWhenReadingTransactionCommitsAfterDeletion() {
+        UserIdCache userIdCache = new UserIdCache(meterRegistry, true, 16, Duration.ZERO, TOMBSTONE_TTL);
+        List<TransactionSynchronization> readingTransaction;
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            userIdCache.addKnown(1L);
+            readingTransaction = TransactionSynchronizationManager.getSynchronizations();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        userIdCache.invalidate(1L);
+        readingTransaction.forEach(TransactionSynchronization::afterCommit);
+
+        assertFalse(userIdCache.isKnown(1L));
+        userIdCache.addKnown(2L);
+        assertTrue(userIdCache.isKnown(2L));
+    }
+
+    @Test
+    void shouldStayBoundedWhenMoreIdsThanCapacityAreAdded() {
+        UserIdCache userIdCache = new UserIdCache(meterRegistry, true, 4, Duration.ZERO, TOMBSTONE_TTL);
+
+        for (long userId = 1; userId <= 100; userId++) {
+            userIdCache.addKnown(userId);
+        }
+
+        long known = 0;
+        for (long userId = 1; userId <= 100; userId++) {
+            known += userIdCache.isKnown(userId) ? 1 : 0;
+        }
+
+        assertTrue(known > 0 && known <= 4);
+        assertTrue(userIdCache.isKnown(100L));
+    }
+
+    @Test
+    void shouldForgetUnknownIdsAfterTimeToLive() throws InterruptedException {
+        UserIdCache userIdCache = new UserIdCache(meterRegistry, true, 16, Duration.ofMillis(50), TOMBSTONE_TTL);
+
+        userIdCache.addUnknown(7L);
+        assertTrue(userIdCache.isUnknown(7L));
+        assertFalse(userIdCache.isUnknown(8L));
+
+        Thread.sleep(100);
+        assertFalse(userIdCache.isUnknown(7L));
+    }
+
+    @Test
+    void shouldNeverReportIdsWhenDisabled() {
+        UserIdCache userIdCache = new UserIdCache(meterRegistry, false, 16, Duration.ofMinutes(1), TOMBSTONE_TTL);
+
+        userIdCache.addKnown(1L);
+        userIdCache.addUnknown(2L);
+
+        assertFalse(userIdCache.isKnown(1L));
+        assertFalse(userIdCache.isUnknown(2L));
+    }
+}
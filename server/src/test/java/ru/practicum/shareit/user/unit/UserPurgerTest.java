@@ -0,0 +1,138 @@
+package ru.practicum.shareit.user.unit;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.booking.dto.BookingInputDto;
+import ru.practicum.shareit.booking.model.Booking;
+import ru.practicum.shareit.booking.model.Status;
+import ru.practicum.shareit.booking.repository.BookingRepository;
+import ru.practicum.shareit.booking.service.BookingService;
+import ru.practicum.shareit.exception.ItemNotFoundException;
+import ru.practicum.shareit.exception.UserNotFoundException;
+import ru.practicum.shareit.item.dto.ItemDto;
+import ru.practicum.shareit.item.repository.ItemRepository;
+import ru.practicum.shareit.item.service.ItemService;
+import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.model.User;
+import ru.practicum.shareit.user.purge.UserPurger;
+import ru.practicum.shareit.user.repository.UserRepository;
+import ru.practicum.shareit.user.service.UserService;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {
+        "shareit.user.purge.batch-size=2",
+        "shareit.user.purge.max-batches-per-run=2"
+})
+@Transactional
+@RequiredArgsConstructor(onConstructor_ = @Autowired)
+class UserPurgerTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2040, 1, 1, 12, 0, 0);
+
+    private final UserPurger userPurger;
+    private final UserService userService;
+    private final ItemService itemService;
+    private final BookingService bookingService;
+    private final UserRepository userRepository;
+    private final ItemRepository itemRepository;
+    private final BookingRepository bookingRepository;
+    private final MeterRegistry meterRegistry;
+
+    @Test
+    void shouldHideDeletedUserAtOnceAndPurgeDependentRowsInBatches() {
+        UserDto ownerDto = userService.create(new User(null, "owner", "purge-owner@user.ru"));
+        UserDto bookerDto = userService.create(new User(null, "booker", "purge-booker@user.ru"));
+        ItemDto item = itemService.add(new ItemDto(null, "item", "description", true, null, null),
+                ownerDto.getId());
+        for (int i = 0; i < 3; i++) {
+            saveBooking(item.getId(), bookerDto.getId(), START.plusDays(i));
+        }
+        double deletedBookings = getDeletedRows("bookings");
+
+        userService.delete(ownerDto.getId());
+
+        assertThrows(UserNotFoundException.class, () -> userService.get(ownerDto.getId()));
+        assertEquals(List.of(bookerDto), userService.getAll(null, null));
+        assertTrue(itemRepository.existsById(item.getId()));
+
+        assertEquals(3, userPurger.purge());
+        assertEquals(deletedBookings + 3, getDeletedRows("bookings"));
+        assertTrue(itemRepository.existsById(item.getId()));
+        assertTrue(userRepository.existsById(ownerDto.getId()));
+
+        assertEquals(2, userPurger.purge());
+        assertFalse(itemRepository.existsById(item.getId()));
+        assertFalse(userRepository.existsById(ownerDto.getId()));
+        assertTrue(userRepository.existsById(bookerDto.getId()));
+
+        assertEquals(0, userPurger.purge());
+    }
+
+    @Test
+    void shouldHideDeletedOwnerItemsAndBookingsAndFreeEmailAtOnce() {
+        UserDto ownerDto = userService.create(new User(null, "owner", "hidden-owner@user.ru"));
+        UserDto bookerDto = userService.create(new User(null, "booker", "hidden-booker@user.ru"));
+        ItemDto item = itemService.add(new ItemDto(null, "hidden item", "description", true, null, null),
+                ownerDto.getId());
+        saveBooking(item.getId(), bookerDto.getId(), START);
+
+        userService.delete(ownerDto.getId());
+
+        assertThrows(ItemNotFoundException.class, () -> itemService.get(item.getId(), bookerDto.getId()));
+        assertTrue(itemService.search("hidden", null, null).isEmpty());
+        assertTrue(itemService.search("hidden", START.plusDays(1), START.plusDays(2), null, null).isEmpty());
+        assertTrue(bookingService.getAllBookingsByUserId("ALL", null, null, bookerDto.getId()).isEmpty());
+        assertThrows(ItemNotFoundException.class, () -> bookingService.add(new BookingInputDto(item.getId(),
+                START.plusDays(1), START.plusDays(2)), bookerDto.getId()));
+
+        UserDto newOwnerDto = userService.create(new User(null, "new owner", "hidden-owner@user.ru"));
+        assertEquals("hidden-owner@user.ru", userService.get(newOwnerDto.getId()).getEmail());
+    }
+
+    @Test
+    void shouldHideDeletedBookerBookingsFromItemOfOwner() {
+        UserDto ownerDto = userService.create(new User(null, "owner", "hidden-owner@user.ru"));
+        UserDto bookerDto = userService.create(new User(null, "booker", "hidden-booker@user.ru"));
+        ItemDto item = itemService.add(new ItemDto(null, "item", "description", true, null, null),
+                ownerDto.getId());
+        saveBooking(item.getId(), bookerDto.getId(), START);
+
+        userService.delete(bookerDto.getId());
+
+        assertNull(itemService.get(item.getId(), ownerDto.getId()).getNextBooking());
+        assertNull(itemService.getAll(null, null, ownerDto.getId()).get(0).getNextBooking());
+    }
+
+    @Test
+    void shouldExceptionWhenDeleteUnknownUser() {
+        UserNotFoundException exp = assertThrows(UserNotFoundException.class, () -> userService.delete(999L));
+        assertEquals("Пользователь c id = 999 не найден!", exp.getMessage());
+    }
+
+    private void saveBooking(Long itemId, Long bookerId, LocalDateTime start) {
+        Booking booking = new Booking();
+        booking.setItem(itemRepository.getReferenceById(itemId));
+        booking.setBooker(userRepository.getReferenceById(bookerId));
+        booking.setStart(start);
+        booking.setEnd(start.plusHours(1));
+        booking.setStatus(Status.APPROVED);
+
+        bookingRepository.save(booking);
+    }
+
+    private double getDeletedRows(String table) {
+        return meterRegistry.counter("shareit.user.purge.deleted", "table", table).count();
+    }
+}
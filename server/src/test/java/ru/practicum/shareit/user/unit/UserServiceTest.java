@@ -1,29 +1,36 @@
 package ru.practicum.shareit.user.unit;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.transaction.annotation.Transactional;
+import ru.practicum.shareit.common.util.QueryBudget;
 import ru.practicum.shareit.exception.EmailAlreadyExistsException;
 import ru.practicum.shareit.user.dto.UserDto;
+import ru.practicum.shareit.user.dto.UserPageDto;
 import ru.practicum.shareit.user.model.User;
 import ru.practicum.shareit.user.service.UserService;
 
+import javax.persistence.EntityManager;
 import javax.validation.ValidationException;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+@Slf4j
 @SpringBootTest
 @Transactional
 @RequiredArgsConstructor(onConstructor_ = @Autowired)
 class UserServiceTest {
 
     private final UserService userService;
+    private final EntityManager entityManager;
 
     private User user = new User(1L, "user1", "first@user.ru");
 
@@ -77,14 +84,69 @@ class UserServiceTest {
         assertThat(returnUserDto.getEmail(), equalTo(user.getEmail()));
     }
 
+    /**
+     * Registration burst benchmark: every new e-mail is a definite miss of the e-mail filter, so a registration
+     * costs the insert alone instead of a uniqueness probe plus the insert.
+     */
+    @Test
+    void shouldRegisterBurstWithoutUniquenessProbes() {
+        int burst = 1000;
+
+        long startNanos = System.nanoTime();
+        long statements = QueryBudget.count(entityManager, () -> {
+            for (int i = 0; i < burst; i++) {
+                userService.create(new User(null, "user" + i, "burst" + i + "@user.ru"));
+            }
+        });
+        long burstNanos = System.nanoTime() - startNanos;
+
+        log.info("{} registrations: {} statements, {} ms", burst, statements, burstNanos / 1_000_000);
+        assertEquals(burst, statements);
+
+        EmailAlreadyExistsException exp = assertThrows(EmailAlreadyExistsException.class,
+                () -> userService.create(new User(null, "duplicate", "burst0@user.ru")));
+        assertEquals("Пользователь с e-mail = 'burst0@user.ru' уже зарегистрирован!", exp.getMessage());
+    }
+
     @Test
     void shouldDeleteUser() {
         user = new User(10L, "user10", "ten@user.ru");
         UserDto returnUserDto = userService.create(user);
 
         userService.delete(returnUserDto.getId());
-        List<UserDto> listUser = userService.getAll();
+        List<UserDto> listUser = userService.getAll(null, null);
 
         assertThat(listUser.size(), equalTo(0));
     }
+
+    @Test
+    void shouldReturnUsersOrderedByIdWhenGetAllWithFromAndSize() {
+        UserDto first = userService.create(new User(null, "user11", "eleven@user.ru"));
+        UserDto second = userService.create(new User(null, "user12", "twelve@user.ru"));
+        UserDto third = userService.create(new User(null, "user13", "thirteen@user.ru"));
+
+        assertEquals(List.of(first, second), userService.getAll(0, 2));
+        assertEquals(List.of(third), userService.getAll(2, 2));
+        assertEquals(List.of(first, second, third), userService.getAll(null, null));
+    }
+
+    @Test
+    void shouldWalkAllUsersWhenGetPageByCursor() {
+        UserDto first = userService.create(new User(null, "user14", "fourteen@user.ru"));
+        UserDto second = userService.create(new User(null, "user15", "fifteen@user.ru"));
+        UserDto third = userService.create(new User(null, "user16", "sixteen@user.ru"));
+
+        UserPageDto firstPage = userService.getPage("", 2);
+        assertEquals(List.of(first, second), firstPage.getUsers());
+
+        UserPageDto secondPage = userService.getPage(firstPage.getNextCursor(), 2);
+        assertEquals(List.of(third), secondPage.getUsers());
+        assertNull(secondPage.getNextCursor());
+    }
+
+    @Test
+    void shouldExceptionWhenGetPageWithMalformedCursor() {
+        ValidationException exp = assertThrows(ValidationException.class, () -> userService.getPage("@@@", 2));
+        assertEquals("Некорректное значение параметра cursor: @@@!", exp.getMessage());
+    }
 }